@@ -0,0 +1,46 @@
+package com.qr.controller;
+
+import com.qr.service.QrLogoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/applications")
+@RequiredArgsConstructor
+@Slf4j
+public class ApplicationLogoController {
+
+    private static final int MAX_LOGO_BYTES = 1024 * 1024;
+
+    private final QrLogoService qrLogoService;
+
+    /**
+     * Registers (or replaces) the logo embedded in QR codes rendered with {@code logo={id}}.
+     */
+    @PutMapping(value = "/{id}/logo",
+            consumes = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_GIF_VALUE})
+    public ResponseEntity<Void> registerLogo(
+            @PathVariable Long id,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @RequestBody byte[] imageData) {
+        
+        log.info("PUT /api/admin/applications/{}/logo - {} bytes", id, imageData.length);
+        
+        if (imageData.length > MAX_LOGO_BYTES) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        
+        try {
+            boolean registered = qrLogoService.registerLogo(id, imageData, contentType);
+            return registered ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected logo for application {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
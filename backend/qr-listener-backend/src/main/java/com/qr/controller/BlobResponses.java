@@ -0,0 +1,143 @@
+package com.qr.controller;
+
+import com.qr.service.PhotoBlobService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes stored blobs to the response without loading them onto the heap.
+ *
+ * Files are handed to Tomcat's sendfile support, which lets the kernel copy the file straight
+ * to the socket once the handler returns. Where sendfile is unavailable (other containers, TLS
+ * on some connectors) they are sent with {@link FileChannel#transferTo}; anything else is
+ * streamed from its input stream.
+ */
+@Slf4j
+final class BlobResponses {
+
+    // org.apache.catalina.Globals, not referenced directly to avoid depending on Tomcat classes
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Versioned URLs (?v= the content hash) never change content; others are revalidated by ETag
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE_CACHE_CONTROL = "public, no-cache";
+    private static final String PROVISIONAL_CACHE_CONTROL = "public, max-age=60";
+
+    private BlobResponses() {
+    }
+
+    /**
+     * Sets the validators and caching headers and, when the request's If-None-Match lists the
+     * ETag, answers 304 Not Modified; returns whether it did, in which case nothing else is to be
+     * sent. Called before the blob is opened, so revalidations never read it.
+     */
+    static boolean notModified(String eTag, String cacheControl, HttpServletRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (eTag == null) {
+            return false;
+        }
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        if (!matchesETag(request.getHeader(HttpHeaders.IF_NONE_MATCH), eTag)) {
+            return false;
+        }
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return true;
+    }
+
+    /**
+     * Sends a photo's image or thumbnail, or the variant for the requested width, as served by
+     * every photo endpoint: 400 for a bad width, 404 for an unknown photo, and 304 when the client
+     * already has it.
+     */
+    static void sendPhoto(PhotoBlobService photoBlobService, Long photoId, boolean thumbnail, Integer width,
+                          String version, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (width != null && width < 1) {
+            log.warn("Rejecting photo request for ID: {} with width: {}", photoId, width);
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        PhotoBlobService.PhotoContent photo = photoBlobService.find(photoId, thumbnail, width);
+        if (photo == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String cacheControl = photo.isProvisional() ? PROVISIONAL_CACHE_CONTROL
+                : photo.getVersion() != null && photo.getVersion().equals(version) ? IMMUTABLE_CACHE_CONTROL
+                : REVALIDATE_CACHE_CONTROL;
+        // Revalidations are answered from the photo's metadata, before the blob is opened
+        if (notModified(photo.getETag(), cacheControl, request, response)) {
+            return;
+        }
+        send(photo.getResource(), photo.getContentType(), cacheControl, request, response);
+    }
+
+    private static void send(Resource blob, MediaType contentType, String cacheControl,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = blob.contentLength();
+        response.setContentType(contentType.toString());
+        response.setContentLengthLong(length);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (blob.isFile()) {
+            File file = blob.getFile();
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+                request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, length);
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = 0;
+                while (position < length) {
+                    position += channel.transferTo(position, length - position, out);
+                }
+            }
+            return;
+        }
+
+        try (InputStream in = blob.getInputStream()) {
+            OutputStream out = response.getOutputStream();
+            in.transferTo(out);
+        }
+    }
+
+    /**
+     * Whether an If-None-Match header lists the ETag, shared with the QR image endpoint.
+     */
+    static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            // If-None-Match uses weak comparison
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,13 +1,21 @@
 package com.qr.controller;
 
 import com.qr.dto.*;
+import com.qr.service.PhotoUploadService;
 import com.qr.service.PublicationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/publisher")
@@ -16,6 +24,35 @@ import org.springframework.web.bind.annotation.*;
 public class PublicationController {
 
     private final PublicationService publicationService;
+    private final PhotoUploadService photoUploadService;
+
+    /**
+     * Stores photos sent as multipart files; publications refer to them by the returned IDs
+     * (PhotoRequest.photoId). The container spools large parts to disk and each file is streamed
+     * from there into the blob store. A batch with any unacceptable file is rejected as a whole.
+     */
+    @PostMapping(value = "/photos", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<List<PhotoResponse>> uploadPhotos(@RequestParam("files") List<MultipartFile> files) throws IOException {
+        log.info("POST /api/publisher/photos - {} files", files.size());
+
+        // Every part is checked before any is stored, so a bad file rejects the whole batch
+        for (MultipartFile file : files) {
+            try (InputStream content = file.getInputStream()) {
+                photoUploadService.check(content, file.getSize(), file.getOriginalFilename());
+            } catch (IllegalArgumentException e) {
+                log.warn("Rejecting photo upload: {}", e.getMessage());
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        List<PhotoResponse> uploaded = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            try (InputStream content = file.getInputStream()) {
+                uploaded.add(photoUploadService.upload(content, file.getOriginalFilename()));
+            }
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(uploaded);
+    }
 
     @PostMapping("/publications")
     public ResponseEntity<PublicationResponse> createPublication(
@@ -23,8 +60,14 @@ public class PublicationController {
             @RequestHeader(value = "X-User-Id", required = false, defaultValue = "admin") String userId) {
         log.info("Creating publication: {}", request.getPrimaryNames());
         
-        PublicationResponse response = publicationService.createPublication(request, userId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        try {
+            PublicationResponse response = publicationService.createPublication(request, userId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IllegalArgumentException e) {
+            // A photoId that is unknown or belongs to another publication
+            log.warn("Rejecting publication request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/publications")
@@ -78,8 +121,13 @@ public class PublicationController {
         
         log.info("PUT /api/publisher/publications/{}", id);
         
-        PublicationResponse response = publicationService.updatePublication(id, request);
-        return ResponseEntity.ok(response);
+        try {
+            PublicationResponse response = publicationService.updatePublication(id, request);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting publication update for ID: {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @DeleteMapping("/publications/{id}")
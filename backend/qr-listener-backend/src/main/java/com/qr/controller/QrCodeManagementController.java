@@ -1,15 +1,33 @@
 package com.qr.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.qr.dto.*;
+import com.qr.service.DashboardStatistics;
+import com.qr.service.QrCodeBulkUpdateService;
+import com.qr.service.QrCodeImportService;
 import com.qr.service.QrCodeManagementService;
+import com.qr.service.QrPrintSheetService;
+import com.qr.service.QrScanVerificationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -18,6 +36,12 @@ import java.util.List;
 public class QrCodeManagementController {
 
     private final QrCodeManagementService qrCodeManagementService;
+    private final QrPrintSheetService qrPrintSheetService;
+    private final QrScanVerificationService qrScanVerificationService;
+    private final QrCodeBulkUpdateService qrCodeBulkUpdateService;
+    private final QrCodeImportService qrCodeImportService;
+    private final ObjectMapper objectMapper;
+    private final DashboardStatistics dashboardStatistics;
 
     @GetMapping("/qr-codes")
     public ResponseEntity<PagedResponse<QrCodeListResponse>> getAllQrCodes(
@@ -29,10 +53,29 @@ public class QrCodeManagementController {
         log.info("GET /api/admin/qr-codes - page: {}, size: {}, sortBy: {}, sortDirection: {}", 
                 page, size, sortBy, sortDirection);
         
-        PagedResponse<QrCodeListResponse> response = qrCodeManagementService.getAllQrCodes(
-                page, size, sortBy, sortDirection);
+        try {
+            return ResponseEntity.ok(qrCodeManagementService.getAllQrCodes(page, size, sortBy, sortDirection));
+        } catch (IllegalArgumentException e) {
+            // Unknown sort field or direction
+            log.warn("Rejecting QR code list request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/qr-codes/cursor")
+    public ResponseEntity<CursorPageResponse<QrCodeListResponse>> getQrCodesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
         
-        return ResponseEntity.ok(response);
+        log.info("GET /api/admin/qr-codes/cursor - cursor: {}, size: {}, includeTotal: {}", cursor, size, includeTotal);
+        
+        try {
+            return ResponseEntity.ok(qrCodeManagementService.getQrCodesByCursor(cursor, size, includeTotal));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting cursor request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @PostMapping("/qr-codes/search")
@@ -41,11 +84,131 @@ public class QrCodeManagementController {
         
         log.info("POST /api/admin/qr-codes/search - request: {}", searchRequest);
         
-        PagedResponse<QrCodeListResponse> response = qrCodeManagementService.searchQrCodes(searchRequest);
+        try {
+            return ResponseEntity.ok(qrCodeManagementService.searchQrCodes(searchRequest));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting QR code search request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/qr-codes/print-sheet")
+    public ResponseEntity<StreamingResponseBody> generatePrintSheet(
+            @Valid @RequestBody PrintSheetRequest request) {
+        
+        log.info("POST /api/admin/qr-codes/print-sheet - {} QR IDs, filter: {}, paper: {}, preset: {}",
+                request.getQrIds() != null ? request.getQrIds().size() : 0, request.getFilter(),
+                request.getPaper(), request.getPreset());
+        
+        try {
+            qrPrintSheetService.validate(request);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting print sheet request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        
+        // Pages are written as they are rendered, so large jobs never sit in memory
+        StreamingResponseBody body = outputStream -> qrPrintSheetService.writePrintSheet(request, outputStream);
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=qr-labels.pdf")
+                .body(body);
+    }
+
+    @PostMapping("/qr-codes/verify")
+    public ResponseEntity<ScanVerificationResponse> verifyQrCodes(
+            @Valid @RequestBody ScanVerificationRequest request) {
+        
+        log.info("POST /api/admin/qr-codes/verify - {} QR IDs, {} styles", request.getQrIds().size(),
+                request.getStyles() != null ? request.getStyles().size() : 1);
+        
+        try {
+            qrScanVerificationService.resolveStyles(request);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting verification request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        
+        ScanVerificationResponse response = qrScanVerificationService.verify(request);
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/qr-codes/bulk")
+    public ResponseEntity<BulkUpdateJobResponse> bulkUpdateQrCodes(
+            @Valid @RequestBody BulkUpdateRequest request) {
+        
+        log.info("POST /api/admin/qr-codes/bulk - {}, targetUrl: {}, isActive: {}, applicationId: {}",
+                request.getQrIds() != null ? request.getQrIds().size() + " QR IDs" : "filter " + request.getFilter(),
+                request.getTargetUrl(), request.getIsActive(), request.getApplicationId());
+        
+        try {
+            BulkUpdateJobResponse response = qrCodeBulkUpdateService.submit(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting bulk update request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            log.warn("Rejecting bulk update request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/qr-codes/bulk/{jobId}")
+    public ResponseEntity<BulkUpdateJobResponse> getBulkUpdateJob(@PathVariable String jobId) {
+        log.info("GET /api/admin/qr-codes/bulk/{}", jobId);
         
+        BulkUpdateJobResponse response = qrCodeBulkUpdateService.getJob(jobId);
+        if (response == null) {
+            return ResponseEntity.notFound().build();
+        }
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping(value = "/qr-codes/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> importQrCodes(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam String createdBy,
+            @RequestParam(required = false) Long applicationId,
+            @RequestParam(defaultValue = "update") String onConflict) {
+        
+        log.info("POST /api/admin/qr-codes/import - file: {} ({} bytes), createdBy: {}, applicationId: {}, onConflict: {}",
+                file.getOriginalFilename(), file.getSize(), createdBy, applicationId, onConflict);
+        
+        QrCodeImportService.OnConflict conflictMode;
+        try {
+            conflictMode = QrCodeImportService.OnConflict.valueOf(onConflict.toUpperCase(Locale.ROOT));
+            qrCodeImportService.validateOptions(createdBy, applicationId);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting import request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        
+        // One JSON line per rejected row as it is found, then the summary line
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            QrCodeImportResponse summary;
+            try (InputStream csv = file.getInputStream()) {
+                summary = qrCodeImportService.importCsv(csv, createdBy.trim(), applicationId, conflictMode, error -> {
+                    try {
+                        writer.write(objectMapper.writeValueAsString(error));
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            writer.write(objectMapper.writeValueAsString(summary));
+            writer.write('\n');
+            writer.flush();
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/qr-codes/{id}")
     public ResponseEntity<QrCodeListResponse> getQrCodeById(@PathVariable Long id) {
         log.info("GET /api/admin/qr-codes/{}", id);
@@ -95,23 +258,19 @@ public class QrCodeManagementController {
         
         log.info("GET /api/admin/qr-codes/recent - limit: {}", limit);
         
-        List<QrCodeListResponse> response = qrCodeManagementService.getRecentQrCodes(limit);
-        
-        return ResponseEntity.ok(response);
+        try {
+            return ResponseEntity.ok(qrCodeManagementService.getRecentQrCodes(limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting recent QR codes request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/qr-codes/stats")
     public ResponseEntity<QrCodeStatsResponse> getQrCodeStats() {
         log.info("GET /api/admin/qr-codes/stats");
         
-        long totalQrCodes = qrCodeManagementService.getTotalQrCodesCount();
-        
-        QrCodeStatsResponse response = QrCodeStatsResponse.builder()
-                .totalQrCodes(totalQrCodes)
-                .activeQrCodes(totalQrCodes) // All are active since we filter by isActive = true
-                .build();
-        
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(dashboardStatistics.qrCodeStats());
     }
 
     @GetMapping("/health")
@@ -7,12 +7,15 @@ import com.qr.service.QrCodeGenerationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Duration;
 
@@ -22,7 +25,15 @@ import java.time.Duration;
 @Slf4j
 public class QrGeneratorController {
 
+    private static final CacheControl IMAGE_CACHE_CONTROL = CacheControl.maxAge(Duration.ofHours(1));
+
     private final QrCodeGenerationService qrCodeGenerationService;
+    
+    @Value("${qr.render.streaming-threshold:2048}")
+    private int streamingThreshold;
+    
+    @Value("${qr.render.max-size:20000}")
+    private int maxImageSize;
 
     @PostMapping("/generate")
     public ResponseEntity<QrGenerationResponse> generateQrCode(@Valid @RequestBody QrGenerationRequest request) {
@@ -34,37 +45,46 @@ public class QrGeneratorController {
     }
 
     @GetMapping("/{qrId}/image")
-    public ResponseEntity<byte[]> getQrCodeImage(
+    public ResponseEntity<?> getQrCodeImage(
             @PathVariable String qrId,
-            @RequestParam(defaultValue = "256") int size,
+            // default, small, large or highContrast; size and format override the preset's
+            @RequestParam(required = false) String preset,
+            @RequestParam(required = false) Integer size,
             @RequestParam(defaultValue = "PNG") String format,
             @RequestParam(required = false) String foreground,
             @RequestParam(required = false) String background,
-            @RequestParam(required = false) String logo
+            // Id of the application whose registered logo is embedded in the centre
+            @RequestParam(required = false) String logo,
+            @RequestParam(required = false) Integer logoSize,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
-        log.debug("QR code image request for ID: {} with size: {}", qrId, size);
+        log.debug("QR code image request for ID: {} with preset: {} and size: {}", qrId, preset, size);
         
-        QrCodeStyle style = QrCodeStyle.builder()
-            .size(size)
+        QrCodeStyle base;
+        try {
+            base = preset != null ? QrCodeStyle.preset(preset) : QrCodeStyle.builder().build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting QR code image request for ID: {}: {}", qrId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        
+        QrCodeStyle style = base.toBuilder()
+            .size(size != null ? size : base.getSize())
             .format(format)
             .foreground(foreground)
             .background(background)
             .logo(logo)
+            .logoSize(logoSize)
             .build();
         
-        byte[] imageData = qrCodeGenerationService.generateQrCodeImage(qrId, style);
-        
-        return ResponseEntity.ok()
-            .contentType(MediaType.IMAGE_PNG)
-            .cacheControl(CacheControl.maxAge(Duration.ofHours(1)))
-            .header("ETag", generateETag(qrId, style))
-            .body(imageData);
+        return buildImageResponse(qrId, style, ifNoneMatch, new HttpHeaders());
     }
 
     @GetMapping("/{qrId}/download")
-    public ResponseEntity<byte[]> downloadQrCode(
+    public ResponseEntity<?> downloadQrCode(
             @PathVariable String qrId,
-            @RequestParam(defaultValue = "512") int size
+            @RequestParam(defaultValue = "512") int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
         log.debug("QR code download request for ID: {} with size: {}", qrId, size);
         
@@ -73,12 +93,10 @@ public class QrGeneratorController {
             .format("PNG")
             .build();
         
-        byte[] imageData = qrCodeGenerationService.generateQrCodeImage(qrId, style);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + qrId + ".png");
         
-        return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + qrId + ".png")
-            .contentType(MediaType.IMAGE_PNG)
-            .body(imageData);
+        return buildImageResponse(qrId, style, ifNoneMatch, headers);
     }
 
     @DeleteMapping("/{qrId}")
@@ -99,7 +117,46 @@ public class QrGeneratorController {
         return ResponseEntity.ok("QR Generation Service is healthy");
     }
 
-    private String generateETag(String qrId, QrCodeStyle style) {
-        return "\"" + qrId + "_" + style.hashCode() + "\"";
+    private ResponseEntity<?> buildImageResponse(String qrId, QrCodeStyle style, String ifNoneMatch, HttpHeaders headers) {
+        int size = style.getSize();
+        boolean streaming = size > streamingThreshold;
+        boolean invalidLogo = style.getLogo() != null && (streaming || !style.getLogo().matches("\\d+"));
+        if (size < 1 || size > maxImageSize || invalidLogo
+                || (streaming && !"PNG".equalsIgnoreCase(style.getFormat()))) {
+            log.warn("Rejecting QR code image request for ID: {} with size: {} and format: {}", 
+                qrId, size, style.getFormat());
+            return ResponseEntity.badRequest().build();
+        }
+        
+        // Revalidations are answered before anything is rendered
+        String eTag;
+        try {
+            eTag = qrCodeGenerationService.getImageETag(qrId, style);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting QR code image request for ID: {}: {}", qrId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        if (BlobResponses.matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(IMAGE_CACHE_CONTROL)
+                .eTag(eTag)
+                .build();
+        }
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .headers(headers)
+            .contentType(MediaType.IMAGE_PNG)
+            .cacheControl(IMAGE_CACHE_CONTROL)
+            .eTag(eTag);
+        
+        if (streaming) {
+            // Print sizes are produced scanline by scanline straight into the response
+            StreamingResponseBody body = outputStream ->
+                qrCodeGenerationService.streamQrCodeImage(qrId, style, outputStream);
+            return response.body(body);
+        }
+        
+        Resource imageData = qrCodeGenerationService.generateQrCodeImage(qrId, style);
+        return response.body(imageData);
     }
 }
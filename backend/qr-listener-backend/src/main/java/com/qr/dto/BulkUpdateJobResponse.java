@@ -0,0 +1,28 @@
+package com.qr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateJobResponse {
+    private String jobId;
+    // QUEUED, RUNNING, COMPLETED or FAILED
+    private String status;
+    private long total;
+    private long processed;
+    private long updated;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long durationMs;
+    private String error;
+    // The changed codes, once the job is finished, for invalidating caches keyed by QR ID
+    private List<String> qrIds;
+}
@@ -0,0 +1,30 @@
+package com.qr.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateRequest {
+    
+    // Either an explicit list of QR IDs (active or not) or a search filter
+    @Size(max = 100000, message = "At most 100000 QR IDs can be listed; use a filter for more")
+    private List<String> qrIds;
+    
+    private QrCodeSearchRequest filter;
+    
+    // Changes; at least one is required
+    @Size(max = 500, message = "Target URL must not exceed 500 characters")
+    private String targetUrl;
+    
+    private Boolean isActive;
+    
+    private Long applicationId;
+}
@@ -0,0 +1,43 @@
+package com.qr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The columns of a publication photo needed to list and serve it, selected directly by projection
+ * queries so no blob column (and no inline data: URL) is ever read. fileUrl and thumbnailUrl are
+ * only set for photos hosted elsewhere.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PhotoMetadata {
+    private Long id;
+    private Long publicationId;
+    private String fileName;
+    private Boolean isCover;
+    private Integer displayOrder;
+    private String contentType;
+    private Long sizeBytes;
+    private String imageKey;
+    private String thumbnailKey;
+    private String fileUrl;
+    private String thumbnailUrl;
+
+    /**
+     * Whether the photo's content is served by this application (from the blob store, or from the
+     * database for photos not yet moved there) rather than hosted at fileUrl.
+     */
+    public boolean isStored() {
+        return imageKey != null || fileUrl == null;
+    }
+
+    /**
+     * Whether a thumbnail was stored apart from the image; clients without one often send the
+     * image a second time.
+     */
+    public boolean hasThumbnail() {
+        return thumbnailKey != null && !thumbnailKey.equals(imageKey);
+    }
+}
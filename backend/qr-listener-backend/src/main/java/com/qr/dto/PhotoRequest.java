@@ -10,6 +10,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class PhotoRequest {
+    private Long photoId; // Id returned by the photo upload endpoint, or of a photo of this publication
     private String fileUrl; // Base64 data URL or actual URL
     private String thumbnailUrl; // Base64 data URL or actual URL
     private String fileName;
@@ -16,5 +16,8 @@ public class PhotoResponse {
     private String fileName;
     private Boolean isCover;
     private Integer displayOrder;
+    private String contentType;
+    private Long sizeBytes;
+    private Boolean hasThumbnail;
 }
 
@@ -0,0 +1,33 @@
+package com.qr.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrintSheetRequest {
+    
+    // Either an explicit list of QR IDs (printed in this order) or a search filter
+    @Size(max = 50000, message = "At most 50000 QR IDs can be printed at once")
+    private List<String> qrIds;
+    
+    private QrCodeSearchRequest filter;
+    
+    // A4 or LETTER
+    @Builder.Default
+    private String paper = "A4";
+    
+    // QrCodeStyle preset: default, small, large or highContrast
+    @Builder.Default
+    private String preset = "default";
+    
+    @Builder.Default
+    private Boolean includeDescription = true;
+}
@@ -0,0 +1,15 @@
+package com.qr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrCodeImportError {
+    // 1-based line of the CSV the rejected row starts on
+    private long line;
+    private String qrId;
+    private String error;
+}
@@ -0,0 +1,24 @@
+package com.qr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrCodeImportResponse {
+    // COMPLETED or FAILED; a failed import changes nothing
+    private String status;
+    private long rows;
+    private long rejected;
+    private long inserted;
+    private long updated;
+    // Valid rows left alone: existing QR IDs with onConflict=skip, and repeated IDs within the file
+    private long skipped;
+    private long durationMs;
+    private long rowsPerSecond;
+    private String error;
+}
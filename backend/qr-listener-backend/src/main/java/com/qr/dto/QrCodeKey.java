@@ -0,0 +1,16 @@
+package com.qr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Just the two identifiers of a QR code, for queries that only need to find codes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrCodeKey {
+    private Long id;
+    private String qrId;
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -12,7 +14,12 @@ import lombok.NoArgsConstructor;
 public class QrCodeSearchRequest {
     private String search;
     private String createdBy;
+    // Defaults to active codes only
     private Boolean isActive;
+    private Long applicationId;
+    // Inclusive lower and exclusive upper bound on createdAt
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
     private Integer page;
     private Integer size;
     private String sortBy;
@@ -14,5 +14,6 @@ public class QrCodeStatsResponse {
     private long activeQrCodes;
     private long inactiveQrCodes;
     private long totalScans;
+    private long scansToday;
     private long uniqueScans;
 }
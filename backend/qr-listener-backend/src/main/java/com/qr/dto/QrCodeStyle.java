@@ -6,7 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class QrCodeStyle {
@@ -28,6 +28,39 @@ public class QrCodeStyle {
     private String logo;
     private Integer logoSize;
     
+    /**
+     * Canonical representation of every attribute that affects the rendered image, with defaults
+     * filled in, so that equivalent styles share cache entries. Foreground and background are not
+     * rendered (images are always black on white), so they are left out.
+     */
+    public String cacheKey() {
+        return String.join("|",
+            String.valueOf(size != null ? size : 256),
+            format != null ? format.toUpperCase() : "PNG",
+            errorCorrection != null ? errorCorrection.toUpperCase() : "M",
+            String.valueOf(margin != null ? margin : 4),
+            logo != null ? logo : "",
+            logoSize != null ? String.valueOf(logoSize) : "");
+    }
+    
+    /**
+     * Resolves a named preset: default, small, large or highContrast.
+     */
+    public static QrCodeStyle preset(String name) {
+        switch (name) {
+            case "default":
+                return defaultStyle();
+            case "small":
+                return small();
+            case "large":
+                return large();
+            case "highContrast":
+                return highContrast();
+            default:
+                throw new IllegalArgumentException("Unknown QR style preset: " + name);
+        }
+    }
+    
     // Default styling
     public static QrCodeStyle defaultStyle() {
         return QrCodeStyle.builder()
@@ -0,0 +1,25 @@
+package com.qr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a QR code shown in listings, selected directly by projection queries so no
+ * entity (or application proxy) is loaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QrCodeSummary {
+    private Long id;
+    private String qrId;
+    private String targetUrl;
+    private String description;
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Boolean isActive;
+}
@@ -1,7 +1,9 @@
 package com.qr.dto;
 
+import com.qr.service.QrIdFormat;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,6 +24,7 @@ public class QrGenerationRequest {
     private String description;
     
     @Size(max = 20, message = "Prefix must not exceed 20 characters")
+    @Pattern(regexp = QrIdFormat.PREFIX_PATTERN, message = "Prefix may only contain letters, digits, '.', '_', '~' and '-'")
     private String prefix;
     
     @NotNull(message = "Size is required")
@@ -0,0 +1,25 @@
+package com.qr.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanVerificationRequest {
+    
+    @NotEmpty(message = "At least one QR ID is required")
+    @Size(max = 10000, message = "At most 10000 QR IDs can be verified at once")
+    private List<String> qrIds;
+    
+    // Every code is verified in each of these styles; defaults to the default style
+    @Size(max = 20, message = "At most 20 styles can be verified at once")
+    private List<QrCodeStyle> styles;
+}
@@ -0,0 +1,33 @@
+package com.qr.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanVerificationResponse {
+    private long verified;
+    private long passed;
+    private long failed;
+    private long durationMs;
+    private double imagesPerSecond;
+    private List<Failure> failures;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure {
+        private String qrId;
+        private String style;
+        private String reason;
+        // What the image decoded to, when it decoded to the wrong content
+        private String decodedText;
+    }
+}
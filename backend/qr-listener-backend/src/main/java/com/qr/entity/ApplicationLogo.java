@@ -0,0 +1,34 @@
+package com.qr.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "application_logos")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApplicationLogo {
+
+    // Kept out of Application so loading an application never drags the image along
+    @Id
+    @Column(name = "application_id")
+    private Long applicationId;
+
+    @Column(name = "image_data", columnDefinition = "BYTEA", nullable = false)
+    private byte[] imageData;
+
+    @Column(name = "content_type", length = 50)
+    private String contentType;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -6,7 +6,6 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.Type;
 
 import java.time.LocalDateTime;
 
@@ -22,8 +21,9 @@ public class PublicationPhoto {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // Null for an upload not yet attached to a publication
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "publication_id", nullable = false)
+    @JoinColumn(name = "publication_id")
     private Publication publication;
 
     @Column(name = "file_url", columnDefinition = "TEXT")
@@ -32,13 +32,20 @@ public class PublicationPhoto {
     @Column(name = "thumbnail_url", columnDefinition = "TEXT")
     private String thumbnailUrl;
 
-    @Column(name = "image_data", columnDefinition = "BYTEA")
-    @Basic(fetch = FetchType.LAZY)
-    private byte[] imageData; // Store image binary data in database
+    // Blob store keys (SHA-256 of the bytes); the legacy image_data/thumbnail_data columns are
+    // emptied by PhotoBlobMigration and no longer mapped
+    @Column(name = "image_key", length = 64)
+    private String imageKey;
 
-    @Column(name = "thumbnail_data", columnDefinition = "BYTEA")
-    @Basic(fetch = FetchType.LAZY)
-    private byte[] thumbnailData; // Store thumbnail binary data
+    @Column(name = "thumbnail_key", length = 64)
+    private String thumbnailKey;
+
+    // Of the stored image; set when it is stored
+    @Column(name = "content_type", length = 50)
+    private String contentType;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
 
     @Column(name = "file_name", length = 200)
     private String fileName;
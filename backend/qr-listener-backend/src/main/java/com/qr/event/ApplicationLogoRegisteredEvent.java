@@ -0,0 +1,12 @@
+package com.qr.event;
+
+import lombok.Value;
+
+/**
+ * Published inside the transaction that registers or replaces an application's logo; listeners
+ * that need the committed logo should subscribe with {@code @TransactionalEventListener}.
+ */
+@Value
+public class ApplicationLogoRegisteredEvent {
+    Long applicationId;
+}
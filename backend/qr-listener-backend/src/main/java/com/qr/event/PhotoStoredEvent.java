@@ -0,0 +1,13 @@
+package com.qr.event;
+
+import lombok.Value;
+
+/**
+ * Published inside the transaction that saves a publication photo whose image went to the blob
+ * store; listeners that need the row to be visible should subscribe with
+ * {@code @TransactionalEventListener}.
+ */
+@Value
+public class PhotoStoredEvent {
+    String imageKey;
+}
@@ -0,0 +1,16 @@
+package com.qr.event;
+
+import com.qr.dto.QrCodeSummary;
+import lombok.Value;
+
+/**
+ * Published inside the creating transaction; listeners that need the row to be visible should
+ * subscribe with {@code @TransactionalEventListener}. The summary holds the created row's listing
+ * columns, so listeners need not read it back.
+ */
+@Value
+public class QrCodeCreatedEvent {
+    Long id;
+    String qrId;
+    QrCodeSummary summary;
+}
@@ -0,0 +1,15 @@
+package com.qr.event;
+
+import lombok.Value;
+
+/**
+ * Published inside the transaction that modifies or deactivates a QR code; listeners that need
+ * the committed state should subscribe with {@code @TransactionalEventListener}.
+ */
+@Value
+public class QrCodeUpdatedEvent {
+    Long id;
+    String qrId;
+    // True when this change deactivated the code
+    boolean deactivated;
+}
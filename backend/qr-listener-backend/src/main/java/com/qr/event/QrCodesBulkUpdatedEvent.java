@@ -0,0 +1,15 @@
+package com.qr.event;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published inside each chunk transaction of a bulk update, once for all the codes it changed;
+ * listeners that need the committed state should subscribe with {@code @TransactionalEventListener}.
+ */
+@Value
+public class QrCodesBulkUpdatedEvent {
+    List<Long> ids;
+    List<String> qrIds;
+}
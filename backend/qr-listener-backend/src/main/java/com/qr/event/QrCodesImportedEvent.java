@@ -0,0 +1,13 @@
+package com.qr.event;
+
+import lombok.Value;
+
+/**
+ * Published inside the transaction of a CSV import; it may have inserted or changed any number
+ * of codes, so listeners reload rather than patch.
+ */
+@Value
+public class QrCodesImportedEvent {
+    long inserted;
+    long updated;
+}
@@ -3,6 +3,7 @@ package com.qr.redirect;
 import com.qr.redirect.dto.QrRedirectResponse;
 import com.qr.redirect.service.QrRedirectService;
 import com.qr.redirect.service.QrLoggingService;
+import com.qr.service.QrIdFormat;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -28,7 +29,8 @@ public class QrRedirectController {
     public ResponseEntity<Void> redirectQr(
             @RequestParam 
             @NotBlank 
-            @Pattern(regexp = "^[A-Z]{2,10}-[A-Z0-9]{8}$", message = "Invalid QR ID format") 
+            // Generated and imported IDs alike
+            @Pattern(regexp = QrIdFormat.PATTERN, message = "Invalid QR ID format")
             String qr_id) {
         
         log.info("QR redirect request for ID: {} from IP: {}", qr_id, getClientIp());
@@ -71,7 +73,7 @@ public class QrRedirectController {
         return ResponseEntity.ok("QR Redirect Service is healthy");
     }
 
-    private String getClientIp() {
+    String getClientIp() {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
             return xForwardedFor.split(",")[0].trim();
@@ -2,6 +2,7 @@ package com.qr.redirect.service;
 
 import com.qr.entity.QrRedirectLog;
 import com.qr.repository.QrRedirectLogRepository;
+import com.qr.service.DashboardStatistics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -15,6 +16,7 @@ import java.time.LocalDateTime;
 public class QrLoggingService {
 
     private final QrRedirectLogRepository redirectLogRepository;
+    private final DashboardStatistics dashboardStatistics;
 
     @Transactional
     public void logRedirect(String qrId, String ipAddress, String userAgent, String targetUrl) {
@@ -29,6 +31,9 @@ public class QrLoggingService {
                 .build();
             
             redirectLogRepository.save(redirectLog);
+            if (targetUrl != null) {
+                dashboardStatistics.scanRecorded();
+            }
             
             log.debug("Logged redirect for QR ID: {} from IP: {} - Success: {}", 
                 qrId, ipAddress, targetUrl != null);
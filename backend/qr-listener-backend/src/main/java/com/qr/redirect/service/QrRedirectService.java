@@ -18,7 +18,6 @@ import java.util.Optional;
 public class QrRedirectService {
 
     private final QrCodeRepository qrCodeRepository;
-    private final QrLoggingService qrLoggingService;
 
     @Cacheable(value = "qrCodes", key = "#qrId")
     public String getRedirectUrl(String qrId) {
@@ -30,9 +29,7 @@ public class QrRedirectService {
             QrCode code = qrCode.get();
             log.info("Found QR code: {} -> {}", qrId, code.getTargetUrl());
             
-            // Log the redirect event
-            qrLoggingService.logRedirect(qrId, getClientIp(), "Unknown", code.getTargetUrl());
-            
+            // The controller logs the redirect, with the real client IP and user agent
             return code.getTargetUrl();
         } else {
             log.warn("QR code not found or inactive: {}", qrId);
@@ -61,10 +58,4 @@ public class QrRedirectService {
             return null;
         }
     }
-
-    private String getClientIp() {
-        // This would be implemented to get the actual client IP
-        // For now, return a placeholder
-        return "127.0.0.1";
-    }
 }
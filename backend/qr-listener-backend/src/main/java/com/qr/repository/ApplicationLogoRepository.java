@@ -0,0 +1,17 @@
+package com.qr.repository;
+
+import com.qr.entity.ApplicationLogo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ApplicationLogoRepository extends JpaRepository<ApplicationLogo, Long> {
+
+    @Query("SELECT l.updatedAt FROM ApplicationLogo l WHERE l.applicationId = :applicationId")
+    Optional<LocalDateTime> findUpdatedAtByApplicationId(@Param("applicationId") Long applicationId);
+}
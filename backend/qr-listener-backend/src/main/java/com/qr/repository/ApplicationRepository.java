@@ -0,0 +1,9 @@
+package com.qr.repository;
+
+import com.qr.entity.Application;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ApplicationRepository extends JpaRepository<Application, Long> {
+}
@@ -4,7 +4,11 @@ import com.qr.entity.PublicationPhoto;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
-public interface PublicationPhotoRepository extends JpaRepository<PublicationPhoto, Long> {
-}
+public interface PublicationPhotoRepository extends JpaRepository<PublicationPhoto, Long>, PublicationPhotoRepositoryCustom {
 
+    List<PublicationPhoto> findByPublicationIsNullAndCreatedAtBefore(LocalDateTime cutoff);
+}
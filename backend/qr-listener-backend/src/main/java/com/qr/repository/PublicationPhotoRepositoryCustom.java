@@ -0,0 +1,26 @@
+package com.qr.repository;
+
+import com.qr.dto.PhotoMetadata;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PublicationPhotoRepositoryCustom {
+
+    /**
+     * The photo's metadata, without reading its content.
+     */
+    Optional<PhotoMetadata> findMetadataById(Long id);
+
+    /**
+     * Metadata of the publication's photos in display order, without reading their content.
+     */
+    List<PhotoMetadata> findMetadataByPublicationId(Long publicationId);
+
+    /**
+     * Metadata of the photos of all the given publications in one statement, ordered by
+     * publication and then display order.
+     */
+    List<PhotoMetadata> findMetadataByPublicationIds(Collection<Long> publicationIds);
+}
@@ -0,0 +1,55 @@
+package com.qr.repository;
+
+import com.qr.dto.PhotoMetadata;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Selects photo metadata without touching the content columns. Inline data: URLs of photos not
+ * yet moved to the blob store are left out; SUBSTRING only reads the first bytes of such a value.
+ *
+ * The queries go to the EntityManager directly: Hibernate caches their interpretation by query
+ * string, whereas Spring Data re-parses an {@code @Query} on every call.
+ */
+@RequiredArgsConstructor
+public class PublicationPhotoRepositoryCustomImpl implements PublicationPhotoRepositoryCustom {
+
+    private static final String METADATA = "SELECT new com.qr.dto.PhotoMetadata(p.id, p.publication.id, p.fileName, "
+            + "p.isCover, p.displayOrder, p.contentType, p.sizeBytes, p.imageKey, p.thumbnailKey, "
+            + "CASE WHEN SUBSTRING(p.fileUrl, 1, 5) = 'data:' THEN NULL ELSE p.fileUrl END, "
+            + "CASE WHEN SUBSTRING(p.thumbnailUrl, 1, 5) = 'data:' THEN NULL ELSE p.thumbnailUrl END) "
+            + "FROM PublicationPhoto p ";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<PhotoMetadata> findMetadataById(Long id) {
+        return entityManager.createQuery(METADATA + "WHERE p.id = :id", PhotoMetadata.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public List<PhotoMetadata> findMetadataByPublicationId(Long publicationId) {
+        return entityManager.createQuery(METADATA + "WHERE p.publication.id = :publicationId "
+                        + "ORDER BY p.displayOrder, p.id", PhotoMetadata.class)
+                .setParameter("publicationId", publicationId)
+                .getResultList();
+    }
+
+    @Override
+    public List<PhotoMetadata> findMetadataByPublicationIds(Collection<Long> publicationIds) {
+        if (publicationIds.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.createQuery(METADATA + "WHERE p.publication.id IN :publicationIds "
+                        + "ORDER BY p.publication.id, p.displayOrder, p.id", PhotoMetadata.class)
+                .setParameter("publicationIds", publicationIds)
+                .getResultList();
+    }
+}
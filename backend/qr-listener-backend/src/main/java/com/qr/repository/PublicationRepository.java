@@ -4,10 +4,12 @@ import com.qr.entity.Publication;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -38,5 +40,12 @@ public interface PublicationRepository extends JpaRepository<Publication, Long>
 
     @Query("SELECT SUM(p.viewCount) FROM Publication p")
     Long getTotalViewCount();
+
+    @Query("SELECT p.status, COUNT(p), COALESCE(SUM(p.viewCount), 0) FROM Publication p GROUP BY p.status")
+    List<Object[]> countAndViewsByStatus();
+
+    @Modifying
+    @Query("UPDATE Publication p SET p.viewCount = p.viewCount + 1 WHERE p.id = :id")
+    int incrementViewCount(@Param("id") Long id);
 }
 
@@ -1,41 +1,52 @@
 package com.qr.repository;
 
+import com.qr.dto.QrCodeKey;
+import com.qr.dto.QrCodeSummary;
 import com.qr.entity.QrCode;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface QrCodeRepository extends JpaRepository<QrCode, Long> {
+public interface QrCodeRepository extends JpaRepository<QrCode, Long>, QrCodeRepositoryCustom {
+
+    // Listing columns only: no entity, no application proxy
+    String SUMMARY = "SELECT new com.qr.dto.QrCodeSummary(q.id, q.qrId, q.targetUrl, q.description, " +
+                     "q.createdBy, q.createdAt, q.updatedAt, q.isActive) FROM QrCode q ";
 
     Optional<QrCode> findByQrIdAndIsActiveTrue(String qrId);
 
-    List<QrCode> findByIsActiveTrueOrderByCreatedAtDesc();
-    
-    Page<QrCode> findByIsActiveTrueOrderByCreatedAtDesc(Pageable pageable);
-
-    @Query("SELECT q FROM QrCode q WHERE q.isActive = true AND " +
-           "(LOWER(q.qrId) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(q.description) LIKE LOWER(CONCAT('%', :search, '%')))")
-    List<QrCode> searchActiveQrCodes(@Param("search") String search);
-    
-    @Query("SELECT q FROM QrCode q WHERE q.isActive = true AND " +
-           "(LOWER(q.qrId) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(q.description) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<QrCode> searchActiveQrCodes(@Param("search") String search, Pageable pageable);
-
-    @Query("SELECT q FROM QrCode q WHERE q.isActive = true AND (q.application.id = :applicationId OR (q.application IS NULL AND :applicationId IS NULL))")
-    List<QrCode> findByApplicationIdAndIsActiveTrue(@Param("applicationId") Long applicationId);
-    
-    Page<QrCode> findByCreatedByAndIsActiveTrue(String createdBy, Pageable pageable);
-
-    boolean existsByQrId(String qrId);
+    // Keyset pages over (created_at, id), served by the partial index idx_qr_codes_active_created_at_id.
+    // The redundant createdAt bound lets the index scan start at the cursor instead of filtering up to it.
+    @Query(SUMMARY + "WHERE q.isActive = true ORDER BY q.createdAt DESC, q.id DESC")
+    List<QrCodeSummary> findActiveNewest(Limit limit);
+
+    @Query(SUMMARY + "WHERE q.isActive = true AND q.createdAt <= :createdAt AND " +
+           "(q.createdAt < :createdAt OR q.id < :id) ORDER BY q.createdAt DESC, q.id DESC")
+    List<QrCodeSummary> findActiveOlderThan(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query(SUMMARY + "WHERE q.isActive = true AND q.createdAt >= :createdAt AND " +
+           "(q.createdAt > :createdAt OR q.id > :id) ORDER BY q.createdAt ASC, q.id ASC")
+    List<QrCodeSummary> findActiveNewerThan(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query(SUMMARY + "WHERE q.id IN :ids")
+    List<QrCodeSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SUMMARY + "WHERE q.qrId IN :qrIds AND q.isActive = true")
+    List<QrCodeSummary> findActiveSummariesByQrIdIn(@Param("qrIds") Collection<String> qrIds);
+
+    @Query("SELECT new com.qr.dto.QrCodeKey(q.id, q.qrId) FROM QrCode q WHERE q.qrId IN :qrIds")
+    List<QrCodeKey> findKeysByQrIdIn(@Param("qrIds") Collection<String> qrIds);
+
+    @Query("SELECT q.isActive, COUNT(q) FROM QrCode q GROUP BY q.isActive")
+    List<Object[]> countByActive();
 
     @Query("SELECT COUNT(q) FROM QrCode q WHERE q.isActive = true")
     long countActiveQrCodes();
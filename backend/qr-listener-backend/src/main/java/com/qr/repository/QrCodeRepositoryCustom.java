@@ -0,0 +1,44 @@
+package com.qr.repository;
+
+import com.qr.dto.QrCodeKey;
+import com.qr.dto.QrCodeSearchRequest;
+import com.qr.dto.QrCodeSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface QrCodeRepositoryCustom {
+
+    /**
+     * One page of the codes matching every filter set on the request (its paging fields are
+     * ignored), selected as summaries. An unsorted pageable means newest first, or best pg_trgm
+     * word similarity first when {@code rankBySimilarity} is set and there is a search term.
+     */
+    Page<QrCodeSummary> findSummaries(QrCodeSearchRequest filter, Pageable pageable, boolean rankBySimilarity);
+
+    /**
+     * Up to {@code limit} codes matching the filter (sort and paging fields ignored), newest first
+     * by (createdAt, id), starting after the given keyset position or at the newest code when it
+     * is null.
+     */
+    List<QrCodeSummary> findSummariesOlderThan(QrCodeSearchRequest filter, LocalDateTime createdAt, Long id, int limit);
+
+    /**
+     * Number of codes matching the filter.
+     */
+    long countMatching(QrCodeSearchRequest filter);
+
+    /**
+     * Ids and QR IDs of up to {@code limit} codes matching the filter, in id order.
+     */
+    List<QrCodeKey> findKeys(QrCodeSearchRequest filter, int limit);
+
+    /**
+     * Applies the non-null changes to the given codes in one UPDATE statement and sets their
+     * updatedAt, bypassing the persistence context. Must run in a transaction.
+     */
+    int bulkUpdate(Collection<Long> ids, String targetUrl, Boolean isActive, Long applicationId, LocalDateTime updatedAt);
+}
@@ -0,0 +1,189 @@
+package com.qr.repository;
+
+import com.qr.dto.QrCodeKey;
+import com.qr.dto.QrCodeSearchRequest;
+import com.qr.dto.QrCodeSummary;
+import com.qr.entity.Application;
+import com.qr.entity.QrCode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.ParameterExpression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds the search query from whichever filters are set, so any combination runs as a single
+ * statement. Predicates use the same expressions as the indexes on qr_codes: lower(qr_id) and
+ * lower(description) for the trigram indexes, and is_active with created_by, application_id or
+ * created_at for the partial composite ones.
+ */
+@RequiredArgsConstructor
+public class QrCodeRepositoryCustomImpl implements QrCodeRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Page<QrCodeSummary> findSummaries(QrCodeSearchRequest filter, Pageable pageable, boolean rankBySimilarity) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<QrCodeSummary> query = cb.createQuery(QrCodeSummary.class);
+        Root<QrCode> root = query.from(QrCode.class);
+        String term = searchTerm(filter);
+        // A bound parameter, so each term doesn't become a new statement
+        ParameterExpression<String> rankTerm = rankBySimilarity && term != null && pageable.getSort().isUnsorted()
+                ? cb.parameter(String.class, "rankTerm") : null;
+        query.select(cb.construct(QrCodeSummary.class,
+                        root.get("id"), root.get("qrId"), root.get("targetUrl"), root.get("description"),
+                        root.get("createdBy"), root.get("createdAt"), root.get("updatedAt"), root.get("isActive")))
+                .where(predicates(cb, root, filter))
+                .orderBy(orders(cb, root, pageable.getSort(), rankTerm));
+
+        TypedQuery<QrCodeSummary> typedQuery = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize());
+        if (rankTerm != null) {
+            typedQuery.setParameter(rankTerm, term);
+        }
+        List<QrCodeSummary> content = typedQuery.getResultList();
+
+        // Skips the count when this page already shows where the results end
+        return PageableExecutionUtils.getPage(content, pageable, () -> countMatching(filter));
+    }
+
+    @Override
+    public List<QrCodeSummary> findSummariesOlderThan(QrCodeSearchRequest filter, LocalDateTime createdAt, Long id,
+                                                      int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<QrCodeSummary> query = cb.createQuery(QrCodeSummary.class);
+        Root<QrCode> root = query.from(QrCode.class);
+        List<Predicate> predicates = new ArrayList<>(List.of(predicates(cb, root, filter)));
+        if (createdAt != null) {
+            // Same shape as findActiveOlderThan: the redundant bound lets the index scan start at the cursor
+            predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), createdAt));
+            predicates.add(cb.or(
+                    cb.lessThan(root.get("createdAt"), createdAt),
+                    cb.lessThan(root.get("id"), id)));
+        }
+        query.select(cb.construct(QrCodeSummary.class,
+                        root.get("id"), root.get("qrId"), root.get("targetUrl"), root.get("description"),
+                        root.get("createdBy"), root.get("createdAt"), root.get("updatedAt"), root.get("isActive")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public long countMatching(QrCodeSearchRequest filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<QrCode> root = query.from(QrCode.class);
+        query.select(cb.count(root)).where(predicates(cb, root, filter));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public List<QrCodeKey> findKeys(QrCodeSearchRequest filter, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<QrCodeKey> query = cb.createQuery(QrCodeKey.class);
+        Root<QrCode> root = query.from(QrCode.class);
+        query.select(cb.construct(QrCodeKey.class, root.get("id"), root.get("qrId")))
+                .where(predicates(cb, root, filter))
+                .orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public int bulkUpdate(Collection<Long> ids, String targetUrl, Boolean isActive, Long applicationId,
+                          LocalDateTime updatedAt) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<QrCode> update = cb.createCriteriaUpdate(QrCode.class);
+        Root<QrCode> root = update.from(QrCode.class);
+        if (targetUrl != null) {
+            update.set(root.<String>get("targetUrl"), targetUrl);
+        }
+        if (isActive != null) {
+            update.set(root.<Boolean>get("isActive"), isActive);
+        }
+        if (applicationId != null) {
+            update.set(root.<Application>get("application"), entityManager.getReference(Application.class, applicationId));
+        }
+        // Bulk statements skip @UpdateTimestamp; image ETags are derived from updatedAt
+        update.set(root.<LocalDateTime>get("updatedAt"), updatedAt)
+                .where(root.get("id").in(ids));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder cb, Root<QrCode> root, QrCodeSearchRequest filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        // Rendered as a literal condition rather than a parameter, so the partial indexes always apply
+        predicates.add(Boolean.FALSE.equals(filter.getIsActive()) ? cb.isFalse(root.get("isActive")) : cb.isTrue(root.get("isActive")));
+
+        String term = searchTerm(filter);
+        if (term != null) {
+            String pattern = "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            predicates.add(cb.or(
+                    cb.like(cb.lower(root.get("qrId")), pattern, '\\'),
+                    cb.like(cb.lower(root.get("description")), pattern, '\\')));
+        }
+        if (filter.getCreatedBy() != null && !filter.getCreatedBy().trim().isEmpty()) {
+            predicates.add(cb.equal(root.get("createdBy"), filter.getCreatedBy().trim()));
+        }
+        if (filter.getApplicationId() != null) {
+            // The foreign key column; no join to applications
+            predicates.add(cb.equal(root.get("application").get("id"), filter.getApplicationId()));
+        }
+        if (filter.getCreatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.getCreatedFrom()));
+        }
+        if (filter.getCreatedTo() != null) {
+            predicates.add(cb.lessThan(root.get("createdAt"), filter.getCreatedTo()));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private static List<Order> orders(CriteriaBuilder cb, Root<QrCode> root, Sort sort,
+                                      ParameterExpression<String> rankTerm) {
+        List<Order> orders = new ArrayList<>();
+        if (sort.isUnsorted()) {
+            if (rankTerm != null) {
+                Expression<Double> similarity = cb.function("greatest", Double.class,
+                        cb.function("word_similarity", Double.class, rankTerm, cb.lower(root.get("qrId"))),
+                        cb.function("word_similarity", Double.class, rankTerm,
+                                cb.coalesce(cb.lower(root.get("description")), "")));
+                orders.add(cb.desc(similarity));
+            }
+            orders.add(cb.desc(root.get("createdAt")));
+        } else {
+            for (Sort.Order order : sort) {
+                orders.add(order.isAscending() ? cb.asc(root.get(order.getProperty())) : cb.desc(root.get(order.getProperty())));
+            }
+        }
+        // Rows that tie on the sort must still page deterministically
+        if (sort.getOrderFor("id") == null) {
+            orders.add(cb.desc(root.get("id")));
+        }
+        return orders;
+    }
+
+    private static String searchTerm(QrCodeSearchRequest filter) {
+        if (filter.getSearch() == null || filter.getSearch().trim().isEmpty()) {
+            return null;
+        }
+        return filter.getSearch().trim().toLowerCase(Locale.ROOT);
+    }
+}
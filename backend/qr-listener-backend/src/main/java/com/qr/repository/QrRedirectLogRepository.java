@@ -31,6 +31,9 @@ public interface QrRedirectLogRepository extends JpaRepository<QrRedirectLog, Lo
     @Query("SELECT COUNT(l) FROM QrRedirectLog l WHERE l.success = true")
     long countTotalSuccessfulRedirects();
 
+    @Query("SELECT COUNT(l) FROM QrRedirectLog l WHERE l.success = true AND l.redirectTime >= :since")
+    long countSuccessfulRedirectsSince(@Param("since") LocalDateTime since);
+
     @Query("SELECT COUNT(l) FROM QrRedirectLog l WHERE l.success = false")
     long countTotalFailedRedirects();
 }
@@ -0,0 +1,50 @@
+package com.qr.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+
+/**
+ * Content-addressed storage for binary blobs such as publication photos.
+ *
+ * A blob's key is the hex SHA-256 of its bytes, so storing the same bytes twice yields the same
+ * key and one stored copy, and a key never refers to different content. Rows in the database
+ * hold only the key. {@link LocalBlobStore} keeps blobs on the local filesystem; an object store
+ * can be plugged in by providing another implementation and selecting it with
+ * {@code qr.blob.store}.
+ */
+public interface BlobStore {
+
+    /**
+     * Stores the bytes unless a blob with the same content exists, and returns its key.
+     *
+     * @throws java.io.UncheckedIOException if the blob could not be written
+     */
+    String put(byte[] content);
+
+    /**
+     * Stores the stream's content, hashing it as it is written, and returns its key. Only a
+     * buffer's worth of the content is held in memory. The stream is read to its end but not
+     * closed; exceptions thrown while reading it propagate after the partial blob is discarded.
+     *
+     * @throws java.io.UncheckedIOException if the stream could not be read or the blob written
+     */
+    String put(InputStream content);
+
+    /**
+     * Returns the blob as a streamable resource, or null when no blob has this key. Resources of
+     * local blobs are files ({@link Resource#isFile()}), which can be sent without copying them
+     * through the heap.
+     */
+    Resource get(String key);
+
+    boolean exists(String key);
+
+    /**
+     * Deletes the blob; returns false when there was none with this key. Blobs are shared by all
+     * content with the same bytes, so callers must know the blob is no longer referenced.
+     *
+     * @throws java.io.UncheckedIOException if the blob could not be deleted
+     */
+    boolean delete(String key);
+}
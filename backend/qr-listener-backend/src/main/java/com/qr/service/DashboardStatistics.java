@@ -0,0 +1,228 @@
+package com.qr.service;
+
+import com.qr.dto.PublicationStatsResponse;
+import com.qr.dto.QrCodeStatsResponse;
+import com.qr.entity.Publication;
+import com.qr.event.QrCodeCreatedEvent;
+import com.qr.event.QrCodeUpdatedEvent;
+import com.qr.event.QrCodesBulkUpdatedEvent;
+import com.qr.event.QrCodesImportedEvent;
+import com.qr.repository.PublicationRepository;
+import com.qr.repository.QrCodeRepository;
+import com.qr.repository.QrRedirectLogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dashboard aggregates (QR codes by state, publications by status, views, scans) kept in memory.
+ *
+ * Write paths report their changes here once their transaction commits, so the stats endpoints
+ * never query the database. A few grouped COUNT queries load the values at startup and reconcile
+ * them every {@code qr.stats.reconcile-interval}, correcting any drift (e.g. from other instances
+ * or direct SQL). Bulk updates do not say how many codes changed state, so they only mark the QR
+ * code counts stale until the next read.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardStatistics {
+
+    private final QrCodeRepository qrCodeRepository;
+    private final PublicationRepository publicationRepository;
+    private final QrRedirectLogRepository qrRedirectLogRepository;
+
+    private final AtomicLong activeQrCodes = new AtomicLong();
+    private final AtomicLong inactiveQrCodes = new AtomicLong();
+    private final AtomicLong totalScans = new AtomicLong();
+    private final AtomicLong scansToday = new AtomicLong();
+    private final AtomicLong totalViews = new AtomicLong();
+    private final Map<Publication.PublicationStatus, AtomicLong> publications = publicationCounters();
+
+    private volatile LocalDate scansDay = LocalDate.now();
+    private volatile boolean qrCodesStale = true;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void init() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${qr.stats.reconcile-interval:PT5M}", initialDelayString = "${qr.stats.reconcile-interval:PT5M}")
+    public void reconcile() {
+        try {
+            long started = System.nanoTime();
+            reconcileQrCodes();
+
+            long[] byStatus = new long[Publication.PublicationStatus.values().length];
+            long views = 0;
+            for (Object[] row : publicationRepository.countAndViewsByStatus()) {
+                byStatus[((Publication.PublicationStatus) row[0]).ordinal()] = (Long) row[1];
+                views += (Long) row[2];
+            }
+            for (Publication.PublicationStatus status : Publication.PublicationStatus.values()) {
+                correct("publications." + status, publications.get(status), byStatus[status.ordinal()]);
+            }
+            correct("totalViews", totalViews, views);
+
+            correct("totalScans", totalScans, qrRedirectLogRepository.countTotalSuccessfulRedirects());
+            LocalDate today = LocalDate.now();
+            long todays = qrRedirectLogRepository.countSuccessfulRedirectsSince(today.atStartOfDay());
+            synchronized (this) {
+                scansDay = today;
+                correct("scansToday", scansToday, todays);
+            }
+            log.debug("Reconciled dashboard statistics in {} ms", (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Failed to reconcile dashboard statistics", e);
+        }
+    }
+
+    private void reconcileQrCodes() {
+        // Cleared first: a bulk update committing meanwhile marks the counts stale again
+        qrCodesStale = false;
+        long active = 0;
+        long inactive = 0;
+        for (Object[] row : qrCodeRepository.countByActive()) {
+            if (Boolean.TRUE.equals(row[0])) {
+                active = (Long) row[1];
+            } else {
+                inactive += (Long) row[1];
+            }
+        }
+        correct("activeQrCodes", activeQrCodes, active);
+        correct("inactiveQrCodes", inactiveQrCodes, inactive);
+    }
+
+    // Changes committing while the queries run can leave a counter off by those changes until the next run
+    private static void correct(String name, AtomicLong counter, long actual) {
+        long previous = counter.getAndSet(actual);
+        if (previous != actual) {
+            log.debug("Dashboard statistic {} corrected from {} to {}", name, previous, actual);
+        }
+    }
+
+    public QrCodeStatsResponse qrCodeStats() {
+        if (qrCodesStale) {
+            reconcileQrCodes();
+        }
+        long active = activeQrCodes.get();
+        long inactive = inactiveQrCodes.get();
+        return QrCodeStatsResponse.builder()
+                .totalQrCodes(active + inactive)
+                .activeQrCodes(active)
+                .inactiveQrCodes(inactive)
+                .totalScans(totalScans.get())
+                .scansToday(LocalDate.now().equals(scansDay) ? scansToday.get() : 0)
+                .build();
+    }
+
+    public PublicationStatsResponse publicationStats() {
+        long total = 0;
+        for (AtomicLong count : publications.values()) {
+            total += count.get();
+        }
+        return PublicationStatsResponse.builder()
+                .totalPublications(total)
+                .published(publications.get(Publication.PublicationStatus.PUBLISHED).get())
+                .drafts(publications.get(Publication.PublicationStatus.DRAFT).get())
+                .scheduled(publications.get(Publication.PublicationStatus.SCHEDULED).get())
+                .totalViews(totalViews.get())
+                .build();
+    }
+
+    @TransactionalEventListener
+    public void onQrCodeCreated(QrCodeCreatedEvent event) {
+        activeQrCodes.incrementAndGet();
+    }
+
+    @TransactionalEventListener
+    public void onQrCodeUpdated(QrCodeUpdatedEvent event) {
+        if (event.isDeactivated()) {
+            activeQrCodes.decrementAndGet();
+            inactiveQrCodes.incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onQrCodesBulkUpdated(QrCodesBulkUpdatedEvent event) {
+        qrCodesStale = true;
+    }
+
+    @TransactionalEventListener
+    public void onQrCodesImported(QrCodesImportedEvent event) {
+        // Imports insert active codes and never change the state of existing ones
+        activeQrCodes.addAndGet(event.getInserted());
+    }
+
+    public void publicationCreated(Publication.PublicationStatus status) {
+        afterCommit(() -> publications.get(status).incrementAndGet());
+    }
+
+    public void publicationStatusChanged(Publication.PublicationStatus from, Publication.PublicationStatus to) {
+        if (from != to) {
+            afterCommit(() -> {
+                publications.get(from).decrementAndGet();
+                publications.get(to).incrementAndGet();
+            });
+        }
+    }
+
+    public void publicationDeleted(Publication.PublicationStatus status, long views) {
+        afterCommit(() -> {
+            publications.get(status).decrementAndGet();
+            totalViews.addAndGet(-views);
+        });
+    }
+
+    public void publicationViewed() {
+        afterCommit(totalViews::incrementAndGet);
+    }
+
+    public void scanRecorded() {
+        afterCommit(() -> {
+            LocalDate today = LocalDate.now();
+            if (!today.equals(scansDay)) {
+                synchronized (this) {
+                    if (!today.equals(scansDay)) {
+                        scansDay = today;
+                        scansToday.set(0);
+                    }
+                }
+            }
+            scansToday.incrementAndGet();
+            totalScans.incrementAndGet();
+        });
+    }
+
+    private static Map<Publication.PublicationStatus, AtomicLong> publicationCounters() {
+        Map<Publication.PublicationStatus, AtomicLong> counters = new EnumMap<>(Publication.PublicationStatus.class);
+        for (Publication.PublicationStatus status : Publication.PublicationStatus.values()) {
+            counters.put(status, new AtomicLong());
+        }
+        return counters;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
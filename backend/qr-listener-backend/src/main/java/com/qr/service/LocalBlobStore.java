@@ -0,0 +1,149 @@
+package com.qr.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BlobStore} on the local filesystem. Blobs are laid out as {@code <aa>/<bb>/<key>} under
+ * {@code qr.blob.local.path} and written to a temporary file first, then moved into place, so
+ * readers never see a partial blob. Unlike {@link QrCodeStorageService} nothing is indexed in
+ * memory or walked at startup; the filesystem is the index.
+ */
+@Service
+@ConditionalOnProperty(name = "qr.blob.store", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class LocalBlobStore implements BlobStore {
+
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path root;
+
+    public LocalBlobStore(@Value("${qr.blob.local.path:./storage/blobs}") String path) {
+        this.root = Paths.get(path).toAbsolutePath().normalize();
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(root);
+        log.info("Blob store at {}", root);
+    }
+
+    @Override
+    public String put(byte[] content) {
+        String key = sha256(content);
+        Path path = resolve(key);
+        if (Files.exists(path)) {
+            return key;
+        }
+
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(key + "." + UUID.randomUUID() + TEMP_SUFFIX);
+            Files.write(temp, content);
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Stored concurrently; same key, same bytes
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store blob " + key, e);
+        }
+        return key;
+    }
+
+    @Override
+    public String put(InputStream content) {
+        Path temp = root.resolve(UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                new DigestInputStream(content, digest).transferTo(out);
+            }
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path path = resolve(key);
+            if (!Files.exists(path)) {
+                Files.createDirectories(path.getParent());
+                // Replaces a blob stored concurrently, which has the same bytes
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return key;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store blob from stream", e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.warn("Failed to delete temporary blob file: {}", temp, e);
+            }
+        }
+    }
+
+    @Override
+    public Resource get(String key) {
+        if (!isKey(key)) {
+            return null;
+        }
+        Path path = resolve(key);
+        return Files.isRegularFile(path) ? new FileSystemResource(path) : null;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return isKey(key) && Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public boolean delete(String key) {
+        if (!isKey(key)) {
+            return false;
+        }
+        try {
+            return Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete blob " + key, e);
+        }
+    }
+
+    private Path resolve(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private static boolean isKey(String key) {
+        return key != null && KEY.matcher(key).matches();
+    }
+
+    private static String sha256(byte[] content) {
+        return HexFormat.of().formatHex(sha256().digest(content));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
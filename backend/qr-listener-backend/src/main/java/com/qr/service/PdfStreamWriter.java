@@ -0,0 +1,70 @@
+package com.qr.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal PDF writer that emits objects as soon as they are complete, remembering only their
+ * byte offsets for the cross-reference table written at the end. Object numbers can be reserved
+ * up front and written later, so objects that depend on the final page count go last.
+ */
+final class PdfStreamWriter {
+
+    private final OutputStream out;
+    private long position;
+    private long[] offsets = new long[64];
+    private int objectCount;
+
+    PdfStreamWriter(OutputStream out) throws IOException {
+        this.out = out;
+        write("%PDF-1.4\n");
+        // Binary comment so transfer tools treat the file as binary
+        writeBytes(new byte[]{'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'});
+    }
+
+    int reserve() {
+        objectCount++;
+        if (objectCount >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        return objectCount;
+    }
+
+    void writeObject(int number, String body) throws IOException {
+        offsets[number] = position;
+        write(number + " 0 obj\n" + body + "\nendobj\n");
+    }
+
+    void writeStream(int number, String dictionary, byte[] data) throws IOException {
+        offsets[number] = position;
+        write(number + " 0 obj\n<< " + dictionary + " /Length " + data.length + " >>\nstream\n");
+        writeBytes(data);
+        write("\nendstream\nendobj\n");
+    }
+
+    void finish(int catalog) throws IOException {
+        long xref = position;
+        StringBuilder table = new StringBuilder(32 + objectCount * 20);
+        table.append("xref\n0 ").append(objectCount + 1).append('\n');
+        table.append("0000000000 65535 f \n");
+        for (int i = 1; i <= objectCount; i++) {
+            String offset = Long.toString(offsets[i]);
+            table.append("0".repeat(10 - offset.length())).append(offset).append(" 00000 n \n");
+        }
+        table.append("trailer\n<< /Size ").append(objectCount + 1).append(" /Root ").append(catalog)
+                .append(" 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+        write(table.toString());
+        out.flush();
+    }
+
+    private void write(String text) throws IOException {
+        writeBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private void writeBytes(byte[] data) throws IOException {
+        out.write(data);
+        position += data.length;
+    }
+}
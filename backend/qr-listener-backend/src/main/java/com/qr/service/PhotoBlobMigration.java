@@ -0,0 +1,157 @@
+package com.qr.service;
+
+import com.qr.event.PhotoStoredEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Moves photo bytes still held in publication_photos (the image_data and thumbnail_data BYTEA
+ * columns and inline data: URLs in file_url and thumbnail_url) into the {@link BlobStore}.
+ *
+ * Runs in the background after startup, in batches of {@code qr.blob.migration.batch-size} rows,
+ * each batch in its own transaction. Only one row's bytes are loaded at a time. Blob writes are
+ * idempotent, so a batch that fails is simply retried on the next start. PostgreSQL reclaims
+ * the space of the cleared columns once the table is vacuumed. The size and content type of
+ * each image (read from its leading bytes) are recorded on the way, including for photos already
+ * in the blob store. Moved photos take their references in photo_blobs like newly saved ones.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoBlobMigration {
+
+    // substr only detoasts the first bytes of a possibly huge data: URL. Photos stored before
+    // their size was recorded are picked up too.
+    private static final String PENDING = "SELECT id FROM publication_photos WHERE id > ? AND ("
+            + "image_data IS NOT NULL OR thumbnail_data IS NOT NULL "
+            + "OR substr(file_url, 1, 5) = 'data:' OR substr(thumbnail_url, 1, 5) = 'data:' "
+            + "OR (image_key IS NOT NULL AND size_bytes IS NULL)) "
+            + "ORDER BY id LIMIT ?";
+    private static final String CONTENT = "SELECT image_data, thumbnail_data, file_url, thumbnail_url, image_key, thumbnail_key "
+            + "FROM publication_photos WHERE id = ?";
+    private static final String MIGRATED = "UPDATE publication_photos SET image_key = ?, thumbnail_key = ?, "
+            + "size_bytes = COALESCE(size_bytes, ?), content_type = COALESCE(content_type, ?), "
+            + "image_data = NULL, thumbnail_data = NULL, "
+            + "file_url = CASE WHEN ? THEN NULL ELSE file_url END, "
+            + "thumbnail_url = CASE WHEN ? THEN NULL ELSE thumbnail_url END "
+            + "WHERE id = ?";
+
+    private final BlobStore blobStore;
+    private final PhotoBlobReferences photoBlobReferences;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${qr.blob.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${qr.blob.migration.batch-size:20}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (enabled) {
+            new CustomizableThreadFactory("photo-blob-migration-").newThread(this::migrate).start();
+        }
+    }
+
+    void migrate() {
+        long started = System.nanoTime();
+        long lastId = 0;
+        int migrated = 0;
+        try {
+            while (true) {
+                List<Long> ids = jdbcTemplate.queryForList(PENDING, Long.class, lastId, batchSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                transactionTemplate.executeWithoutResult(status -> ids.forEach(this::migrateRow));
+                migrated += ids.size();
+                lastId = ids.get(ids.size() - 1);
+                log.debug("Moved {} photos into the blob store", migrated);
+            }
+            if (migrated > 0) {
+                log.info("Moved {} photos from the database into the blob store in {} ms",
+                        migrated, (System.nanoTime() - started) / 1_000_000);
+            }
+        } catch (RuntimeException e) {
+            log.error("Moving photos into the blob store stopped after {} photos", migrated, e);
+        }
+    }
+
+    private void migrateRow(Long id) {
+        jdbcTemplate.query(CONTENT, rs -> {
+            String fileUrl = rs.getString("file_url");
+            String thumbnailUrl = rs.getString("thumbnail_url");
+            String imageKey = rs.getString("image_key");
+            Long size = null;
+            String contentType = null;
+            if (imageKey == null) {
+                byte[] image = rs.getBytes("image_data");
+                String dataUrl = null;
+                if (image == null) {
+                    dataUrl = fileUrl;
+                    image = PhotoBlobService.decodeDataUrl(dataUrl, "#" + id);
+                }
+                imageKey = store(image);
+                if (imageKey != null) {
+                    size = (long) image.length;
+                    contentType = PhotoBlobService.contentType(image, dataUrl).toString();
+                    if (photoBlobReferences.acquire(imageKey)) {
+                        eventPublisher.publishEvent(new PhotoStoredEvent(imageKey));
+                    }
+                }
+            } else {
+                Resource blob = blobStore.get(imageKey);
+                if (blob != null) {
+                    size = blobSize(blob);
+                    contentType = PhotoBlobService.contentType(blob).toString();
+                }
+            }
+            String thumbnailKey = rs.getString("thumbnail_key");
+            if (thumbnailKey == null) {
+                byte[] thumbnail = rs.getBytes("thumbnail_data");
+                thumbnailKey = store(thumbnail != null ? thumbnail : PhotoBlobService.decodeDataUrl(thumbnailUrl, "#" + id));
+                if (thumbnailKey != null) {
+                    photoBlobReferences.acquire(thumbnailKey);
+                }
+            }
+
+            // A data: URL that could not be decoded is left in place rather than lost
+            jdbcTemplate.update(MIGRATED, imageKey, thumbnailKey, size, contentType,
+                    imageKey != null && PhotoBlobService.isDataUrl(fileUrl),
+                    thumbnailKey != null && PhotoBlobService.isDataUrl(thumbnailUrl),
+                    id);
+        }, id);
+    }
+
+    private String store(byte[] content) {
+        if (content == null || content.length == 0) {
+            return null;
+        }
+        String key = blobStore.put(content);
+        photoBlobReferences.register(key);
+        return key;
+    }
+
+    private static long blobSize(Resource blob) {
+        try {
+            return blob.contentLength();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the size of blob " + blob.getDescription(), e);
+        }
+    }
+}
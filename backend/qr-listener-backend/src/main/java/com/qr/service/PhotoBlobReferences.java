@@ -0,0 +1,161 @@
+package com.qr.service;
+
+import com.qr.entity.PublicationPhoto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Counts the photos referring to each blob in photo_blobs, so a blob shared by identical photos
+ * is stored once and deleted only after its last photo is gone.
+ *
+ * Every blob is registered unreferenced as soon as it is stored, in a transaction of its own, so
+ * content whose photo is never committed is reclaimed like any other. References are taken and
+ * dropped in the transaction that saves or removes the photo. Blobs
+ * whose count reached zero are deleted by a periodic sweep once they have been unreferenced for
+ * {@code qr.blob.reclaim.grace}, together with their variants; a photo saved meanwhile with the
+ * same content takes the blob back instead.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoBlobReferences {
+
+    private static final String REGISTER = "INSERT INTO photo_blobs (blob_key, ref_count, released_at) VALUES (?, 0, now()) "
+            + "ON CONFLICT (blob_key) DO NOTHING";
+    private static final String ACQUIRE = "INSERT INTO photo_blobs (blob_key, ref_count) VALUES (?, 1) "
+            + "ON CONFLICT (blob_key) DO UPDATE SET ref_count = photo_blobs.ref_count + 1, released_at = NULL "
+            + "RETURNING ref_count";
+    private static final String RELEASE = "UPDATE photo_blobs SET ref_count = ref_count - 1, "
+            + "released_at = CASE WHEN ref_count = 1 THEN now() ELSE released_at END "
+            + "WHERE blob_key = ? AND ref_count > 0";
+    private static final String RECLAIMABLE = "SELECT blob_key FROM photo_blobs "
+            + "WHERE ref_count = 0 AND released_at < ? ORDER BY released_at LIMIT ?";
+
+    private final BlobStore blobStore;
+    private final PhotoVariantService photoVariantService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${qr.blob.reclaim.grace:PT1H}")
+    private Duration grace;
+
+    @Value("${qr.blob.reclaim.batch-size:100}")
+    private int batchSize;
+
+    private Counter reclaimedCounter;
+    private TransactionTemplate registerTransaction;
+
+    @PostConstruct
+    void init() {
+        registerTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        registerTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        reclaimedCounter = Counter.builder("publication.photo.blobs.reclaimed")
+                .description("Photo blobs deleted after their last reference was removed, variants included")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a blob just written to the store as unreferenced, committed independently of the
+     * caller's transaction, so the sweep deletes it after the grace period if the photo for it is
+     * rolled back. Known blobs are left alone: the caller's transaction may hold their row, which
+     * the separate transaction would wait for forever.
+     */
+    public void register(String key) {
+        if (!jdbcTemplate.queryForList("SELECT 1 FROM photo_blobs WHERE blob_key = ?", Integer.class, key).isEmpty()) {
+            return;
+        }
+        registerTransaction.executeWithoutResult(status -> jdbcTemplate.update(REGISTER, key));
+    }
+
+    /**
+     * Takes a reference to the blob for a photo being saved. Returns true for the first one,
+     * i.e. when the content is new rather than a duplicate of a stored photo.
+     *
+     * @throws IllegalStateException if the blob was reclaimed while the photo was being saved
+     */
+    public boolean acquire(String key) {
+        Integer count = jdbcTemplate.queryForObject(ACQUIRE, Integer.class, key);
+        if (count != null && count == 1 && !blobStore.exists(key)) {
+            // Deleted by a sweep that ran between storing the content and counting it
+            throw new IllegalStateException("Blob " + key + " was reclaimed while being stored");
+        }
+        return count != null && count == 1;
+    }
+
+    public void release(String key) {
+        jdbcTemplate.update(RELEASE, key);
+    }
+
+    /**
+     * Takes references to the blobs of a photo being saved; returns true when its image is new.
+     */
+    public boolean acquire(PublicationPhoto photo) {
+        if (photo.getThumbnailKey() != null) {
+            acquire(photo.getThumbnailKey());
+        }
+        return photo.getImageKey() != null && acquire(photo.getImageKey());
+    }
+
+    public void release(PublicationPhoto photo) {
+        if (photo.getImageKey() != null) {
+            release(photo.getImageKey());
+        }
+        if (photo.getThumbnailKey() != null) {
+            release(photo.getThumbnailKey());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${qr.blob.reclaim.interval:PT1H}", initialDelayString = "${qr.blob.reclaim.interval:PT1H}")
+    public void reclaim() {
+        int reclaimed = 0;
+        while (true) {
+            Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(grace));
+            List<String> keys = jdbcTemplate.queryForList(RECLAIMABLE, String.class, cutoff, batchSize);
+            for (String key : keys) {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> reclaim(key)))) {
+                    reclaimed++;
+                }
+            }
+            if (keys.size() < batchSize) {
+                break;
+            }
+        }
+        if (reclaimed > 0) {
+            log.info("Deleted {} photo blobs no longer used by any photo", reclaimed);
+        }
+    }
+
+    /**
+     * Deletes an unreferenced blob and its variants. The row is deleted first, so a photo saved
+     * with the same content concurrently waits for this transaction and then finds the blob gone.
+     */
+    private boolean reclaim(String key) {
+        if (jdbcTemplate.update("DELETE FROM photo_blobs WHERE blob_key = ? AND ref_count = 0", key) == 0) {
+            return false;
+        }
+        for (String variantKey : photoVariantService.remove(key)) {
+            // A variant whose bytes some photo was also saved with stays for that photo
+            if (jdbcTemplate.queryForList("SELECT 1 FROM photo_blobs WHERE blob_key = ?", Integer.class, variantKey).isEmpty()) {
+                blobStore.delete(variantKey);
+            }
+        }
+        blobStore.delete(key);
+        reclaimedCounter.increment();
+        return true;
+    }
+}
@@ -0,0 +1,353 @@
+package com.qr.service;
+
+import com.qr.dto.PhotoMetadata;
+import com.qr.repository.PublicationPhotoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Stores publication photo bytes in the {@link BlobStore} and resolves them for serving.
+ *
+ * Photos not yet moved out of the database by {@link PhotoBlobMigration} are still served from
+ * the legacy BYTEA columns or inline data: URLs. Blobs are shared by every photo with the same
+ * content; {@link PhotoBlobReferences} deletes them once the last of those photos is gone.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoBlobService {
+
+    private static final String DATA_URL_PREFIX = "data:";
+    private static final MediaType IMAGE_WEBP = MediaType.parseMediaType("image/webp");
+
+    private static final int VERSION_LENGTH = 16;
+    private static final int MAGIC_LENGTH = 12;
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] GIF87_MAGIC = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GIF89_MAGIC = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RIFF_MAGIC = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP_MAGIC = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    private final BlobStore blobStore;
+    private final PublicationPhotoRepository publicationPhotoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PhotoVariantService photoVariantService;
+    private final PhotoBlobReferences photoBlobReferences;
+
+    @Value("${qr.photo-variants.thumbnail-width:480}")
+    private int thumbnailWidth;
+
+    @Value("${qr.photo-upload.max-size:25MB}")
+    private DataSize maxUploadSize;
+
+    @lombok.Value
+    public static class PhotoContent {
+        Resource resource;
+        // Null when the type is not recorded; it is then read from the content when asked for
+        MediaType contentType;
+        // The image stands in for a variant not rendered yet, so it should not be cached for long
+        boolean provisional;
+        // The blob served, and the version of the stored photo it is (derived from), as in the
+        // photo's URLs; both null for content not yet moved into the blob store
+        String blobKey;
+        String version;
+
+        public MediaType getContentType() {
+            return contentType != null ? contentType : contentType(resource);
+        }
+
+        /**
+         * Strong ETag: the served blob's content hash. Null for content outside the blob store.
+         */
+        public String getETag() {
+            return blobKey != null ? "\"" + blobKey + "\"" : null;
+        }
+    }
+
+    @lombok.Value
+    public static class StoredBlob {
+        String key;
+        long size;
+        String contentType;
+    }
+
+    /**
+     * Stores the image of a base64 data URL, or returns null when the value is not a data URL or
+     * cannot be decoded.
+     */
+    public StoredBlob storeDataUrl(String dataUrl, String fileName) {
+        byte[] content = decodeDataUrl(dataUrl, fileName);
+        if (content == null) {
+            return null;
+        }
+        String key = blobStore.put(content);
+        photoBlobReferences.register(key);
+        return new StoredBlob(key, content.length, contentType(content, dataUrl).toString());
+    }
+
+    /**
+     * Streams an uploaded image into the blob store, hashing it on the way, so only a buffer of
+     * it is ever on the heap. The type is taken from the leading bytes rather than from the file
+     * name or the client's declared type.
+     *
+     * @throws IllegalArgumentException if the content is not a JPEG, PNG, GIF or WebP image, or
+     *                                  is larger than {@code qr.photo-upload.max-size}
+     */
+    public StoredBlob storeUpload(InputStream content, String fileName) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(content);
+        in.mark(MAGIC_LENGTH);
+        MediaType contentType = uploadContentType(in, fileName);
+        in.reset();
+
+        SizeLimitedInputStream limited = new SizeLimitedInputStream(in, maxUploadSize.toBytes(), fileName);
+        String key;
+        try {
+            key = blobStore.put(limited);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        photoBlobReferences.register(key);
+        return new StoredBlob(key, limited.count, contentType.toString());
+    }
+
+    /**
+     * Checks an upload of known size without storing it, reading only its leading bytes, so a
+     * batch of files can be rejected before any of them is stored.
+     *
+     * @throws IllegalArgumentException if {@link #storeUpload} would reject the content
+     */
+    public void checkUpload(InputStream content, long size, String fileName) throws IOException {
+        if (size > maxUploadSize.toBytes()) {
+            throw new IllegalArgumentException("Photo " + fileName + " is larger than " + maxUploadSize.toBytes() + " bytes");
+        }
+        uploadContentType(content, fileName);
+    }
+
+    private static MediaType uploadContentType(InputStream content, String fileName) throws IOException {
+        MediaType contentType = sniffContentType(content.readNBytes(MAGIC_LENGTH));
+        if (contentType == null) {
+            throw new IllegalArgumentException("Not a JPEG, PNG, GIF or WebP image: " + fileName);
+        }
+        return contentType;
+    }
+
+    /**
+     * The photo's image, or its thumbnail, or null when the photo does not exist or has no stored
+     * content. With a width, the narrowest variant of the image at least that wide is served
+     * instead; a thumbnail without one of its own is the variant of the thumbnail width. Either
+     * falls back to the image until its variants are rendered.
+     */
+    @Transactional(readOnly = true)
+    public PhotoContent find(Long photoId, boolean thumbnail, Integer width) {
+        PhotoMetadata photo = publicationPhotoRepository.findMetadataById(photoId).orElse(null);
+        if (photo == null) {
+            return null;
+        }
+
+        if (width == null && thumbnail && !photo.hasThumbnail()) {
+            width = thumbnailWidth;
+        }
+        // Until the migration and the variants catch up, the image stands in for the variant
+        boolean provisional = width != null;
+        if (width != null && photo.getImageKey() != null) {
+            PhotoVariantService.PhotoVariant variant = photoVariantService.find(photo.getImageKey(), width);
+            if (variant != null && !variant.getBlobKey().equals(photo.getImageKey())) {
+                Resource blob = blobStore.get(variant.getBlobKey());
+                if (blob != null) {
+                    return new PhotoContent(blob, MediaType.parseMediaType(variant.getContentType()), false,
+                            variant.getBlobKey(), version(photo.getImageKey()));
+                }
+                log.error("Variant blob {} of photo {} is missing from the blob store", variant.getBlobKey(), photoId);
+            }
+            provisional = variant == null;
+        }
+
+        String key = thumbnail && width == null ? photo.getThumbnailKey() : photo.getImageKey();
+        if (key == null) {
+            return findLegacy(photo, thumbnail, provisional);
+        }
+        Resource blob = blobStore.get(key);
+        if (blob == null) {
+            log.error("Blob {} of photo {} is missing from the blob store", key, photoId);
+            return null;
+        }
+        // A thumbnail of its own may be of another type than the image; read from it if served
+        MediaType contentType = key.equals(photo.getImageKey()) && photo.getContentType() != null
+                ? MediaType.parseMediaType(photo.getContentType())
+                : null;
+        return new PhotoContent(blob, contentType, provisional, key, version(key));
+    }
+
+    private PhotoContent findLegacy(PhotoMetadata photo, boolean thumbnail, boolean provisional) {
+        List<byte[]> stored = jdbcTemplate.query(thumbnail
+                        ? "SELECT COALESCE(thumbnail_data, image_data) FROM publication_photos WHERE id = ?"
+                        : "SELECT image_data FROM publication_photos WHERE id = ?",
+                (rs, rowNum) -> rs.getBytes(1), photo.getId());
+        if (!stored.isEmpty() && stored.get(0) != null && stored.get(0).length > 0) {
+            return new PhotoContent(new ByteArrayResource(stored.get(0)), contentType(stored.get(0), null),
+                    provisional, null, null);
+        }
+
+        // The metadata projection leaves data: URLs out
+        List<String> dataUrls = jdbcTemplate.query(thumbnail
+                        ? "SELECT CASE WHEN substr(thumbnail_url, 1, 5) = 'data:' THEN thumbnail_url ELSE file_url END "
+                        + "FROM publication_photos WHERE id = ?"
+                        : "SELECT file_url FROM publication_photos WHERE id = ?",
+                (rs, rowNum) -> rs.getString(1), photo.getId());
+        String dataUrl = dataUrls.isEmpty() ? null : dataUrls.get(0);
+        byte[] decoded = decodeDataUrl(dataUrl, photo.getFileName());
+        if (decoded == null) {
+            return null;
+        }
+        return new PhotoContent(new ByteArrayResource(decoded), contentType(decoded, dataUrl), provisional, null, null);
+    }
+
+    /**
+     * The URL of a photo's image or thumbnail, versioned by the content hash of the stored photo
+     * it serves, so the URL changes whenever the content does and the response can be cached as
+     * immutable. Photos not yet in the blob store get an unversioned URL.
+     */
+    public static String photoUrl(Long photoId, boolean thumbnail, String key) {
+        String url = "/api/publications/photos/" + photoId + (thumbnail ? "/thumbnail" : "/image");
+        return key != null ? url + "?v=" + version(key) : url;
+    }
+
+    static String version(String key) {
+        return key.substring(0, VERSION_LENGTH);
+    }
+
+    static boolean isDataUrl(String url) {
+        return url != null && url.startsWith(DATA_URL_PREFIX);
+    }
+
+    static byte[] decodeDataUrl(String dataUrl, String fileName) {
+        if (!isDataUrl(dataUrl)) {
+            return null;
+        }
+        int comma = dataUrl.indexOf(',');
+        try {
+            byte[] decoded = Base64.getDecoder().decode(dataUrl.substring(comma + 1));
+            return comma > 0 && decoded.length > 0 ? decoded : null;
+        } catch (IllegalArgumentException e) {
+            log.warn("Failed to decode image data for photo: {}", fileName, e);
+            return null;
+        }
+    }
+
+    /**
+     * The image type identified by the content's leading bytes, else the type declared by its
+     * data URL ("data:image/png;base64,..."), else application/octet-stream.
+     */
+    static MediaType contentType(byte[] content, String dataUrl) {
+        MediaType sniffed = sniffContentType(content);
+        if (sniffed != null) {
+            return sniffed;
+        }
+        int semicolon = dataUrl != null ? dataUrl.indexOf(';') : -1;
+        if (semicolon > DATA_URL_PREFIX.length()) {
+            try {
+                MediaType declared = MediaType.parseMediaType(dataUrl.substring(DATA_URL_PREFIX.length(), semicolon));
+                if ("image".equals(declared.getType()) && !declared.isWildcardSubtype()) {
+                    return declared;
+                }
+            } catch (IllegalArgumentException e) {
+                // Not a usable type
+            }
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    /**
+     * The image type identified by a stored blob's leading bytes, or application/octet-stream.
+     */
+    static MediaType contentType(Resource blob) {
+        try (InputStream in = blob.getInputStream()) {
+            MediaType sniffed = sniffContentType(in.readNBytes(MAGIC_LENGTH));
+            return sniffed != null ? sniffed : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read blob " + blob.getDescription(), e);
+        }
+    }
+
+    /**
+     * The image type identified by the first bytes of the content, null when it is none of the
+     * types accepted for photos.
+     */
+    static MediaType sniffContentType(byte[] head) {
+        if (startsWith(head, 0, JPEG_MAGIC)) {
+            return MediaType.IMAGE_JPEG;
+        } else if (startsWith(head, 0, PNG_MAGIC)) {
+            return MediaType.IMAGE_PNG;
+        } else if (startsWith(head, 0, GIF87_MAGIC) || startsWith(head, 0, GIF89_MAGIC)) {
+            return MediaType.IMAGE_GIF;
+        } else if (startsWith(head, 0, RIFF_MAGIC) && startsWith(head, 8, WEBP_MAGIC)) {
+            return IMAGE_WEBP;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] content, int offset, byte[] prefix) {
+        return content.length >= offset + prefix.length
+                && Arrays.equals(content, offset, offset + prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * Counts the bytes read and fails the read that goes past the limit, so an oversized upload
+     * is abandoned mid-stream instead of being stored first and checked afterwards.
+     */
+    private static class SizeLimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private final String fileName;
+        private long count;
+
+        SizeLimitedInputStream(InputStream in, long limit, String fileName) {
+            super(in);
+            this.limit = limit;
+            this.fileName = fileName;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counted(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counted(n);
+            }
+            return n;
+        }
+
+        private void counted(int n) {
+            count += n;
+            if (count > limit) {
+                throw new IllegalArgumentException("Photo " + fileName + " is larger than " + limit + " bytes");
+            }
+        }
+    }
+}
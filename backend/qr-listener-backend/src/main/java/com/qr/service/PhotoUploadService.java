@@ -0,0 +1,95 @@
+package com.qr.service;
+
+import com.qr.dto.PhotoResponse;
+import com.qr.entity.PublicationPhoto;
+import com.qr.event.PhotoStoredEvent;
+import com.qr.repository.PublicationPhotoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Photo uploads sent as multipart files instead of base64 data URLs inside the publication JSON.
+ *
+ * Each file is streamed into the blob store and saved as a photo that belongs to no publication
+ * yet; the publication request then refers to it by id. Uploads that were never attached are
+ * deleted once they are older than {@code qr.photo-upload.unattached-ttl}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoUploadService {
+
+    private final PhotoBlobService photoBlobService;
+    private final PhotoBlobReferences photoBlobReferences;
+    private final PublicationPhotoRepository publicationPhotoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${qr.photo-upload.unattached-ttl:PT24H}")
+    private Duration unattachedTtl;
+
+    /**
+     * @throws IllegalArgumentException if {@link #upload} would reject the content
+     */
+    public void check(InputStream content, long size, String fileName) throws IOException {
+        photoBlobService.checkUpload(content, size, fileName);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the content is not an accepted image or is too large
+     */
+    @Transactional
+    public PhotoResponse upload(InputStream content, String fileName) throws IOException {
+        PhotoBlobService.StoredBlob image = photoBlobService.storeUpload(content, fileName);
+        PublicationPhoto photo = publicationPhotoRepository.save(PublicationPhoto.builder()
+                .imageKey(image.getKey())
+                .contentType(image.getContentType())
+                .sizeBytes(image.getSize())
+                .fileName(fileName)
+                .isCover(false)
+                .displayOrder(0)
+                .build());
+        if (photoBlobReferences.acquire(photo)) {
+            // New content: renders the smaller variants once the photo is committed
+            eventPublisher.publishEvent(new PhotoStoredEvent(image.getKey()));
+        }
+        log.info("Uploaded photo {} ({} bytes) as ID: {}", fileName, image.getSize(), photo.getId());
+
+        return PhotoResponse.builder()
+                .id(photo.getId())
+                .fileUrl(PhotoBlobService.photoUrl(photo.getId(), false, image.getKey()))
+                .thumbnailUrl(PhotoBlobService.photoUrl(photo.getId(), true, image.getKey()))
+                .fileName(fileName)
+                .isCover(false)
+                .displayOrder(0)
+                .contentType(image.getContentType())
+                .sizeBytes(image.getSize())
+                .hasThumbnail(false)
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${qr.photo-upload.cleanup-interval:PT1H}",
+            initialDelayString = "${qr.photo-upload.cleanup-interval:PT1H}")
+    @Transactional
+    public void deleteUnattached() {
+        List<PublicationPhoto> unattached = publicationPhotoRepository
+                .findByPublicationIsNullAndCreatedAtBefore(LocalDateTime.now().minus(unattachedTtl));
+        if (unattached.isEmpty()) {
+            return;
+        }
+        // Their blobs are deleted once no other photo uses them
+        unattached.forEach(photoBlobReferences::release);
+        publicationPhotoRepository.deleteAll(unattached);
+        log.info("Deleted {} photo uploads never attached to a publication", unattached.size());
+    }
+}
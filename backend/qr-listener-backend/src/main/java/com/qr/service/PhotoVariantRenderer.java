@@ -0,0 +1,262 @@
+package com.qr.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Renders downscaled copies of a photo at several widths from a single decode.
+ *
+ * Sources larger than {@code qr.photo-variants.max-source-pixels} are subsampled while decoding,
+ * but never below twice the widest variant. Each variant is scaled from the next wider one,
+ * halving step by step before the final resize so detail survives bilinear filtering. The EXIF
+ * orientation is applied and the output carries no metadata: JPEG at the configured quality, or
+ * PNG for images with transparency.
+ */
+@Component
+public class PhotoVariantRenderer {
+
+    private static final int SOI = 0xFFD8;
+    private static final int SOS = 0xFFDA;
+    private static final int APP1 = 0xFFE1;
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private final float jpegQuality;
+    private final long maxSourcePixels;
+
+    public PhotoVariantRenderer(@Value("${qr.photo-variants.jpeg-quality:0.85}") float jpegQuality,
+                                @Value("${qr.photo-variants.max-source-pixels:24000000}") long maxSourcePixels) {
+        this.jpegQuality = jpegQuality;
+        this.maxSourcePixels = maxSourcePixels;
+    }
+
+    @lombok.Value
+    public static class Variant {
+        int width;
+        int height;
+        byte[] content;
+        String contentType;
+    }
+
+    @lombok.Value
+    public static class Rendered {
+        // Of the source as displayed, i.e. after its orientation is applied
+        int width;
+        int height;
+        String contentType;
+        List<Variant> variants;
+    }
+
+    /**
+     * Renders the source at each of the given widths that is narrower than the source itself,
+     * widest first.
+     *
+     * @throws IOException if the source is not an image ImageIO can decode
+     */
+    public Rendered render(ImageInputStream source, List<Integer> widths) throws IOException {
+        int orientation = orientation(source);
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(source);
+        if (!readers.hasNext()) {
+            throw new IOException("Unsupported image format");
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(source, true, true);
+            int sourceWidth = reader.getWidth(0);
+            int sourceHeight = reader.getHeight(0);
+            String[] types = reader.getOriginatingProvider().getMIMETypes();
+            String contentType = types != null && types.length > 0 ? types[0] : "application/octet-stream";
+            boolean transposed = orientation >= 5;
+            int displayWidth = transposed ? sourceHeight : sourceWidth;
+            int displayHeight = transposed ? sourceWidth : sourceHeight;
+
+            List<Integer> targets = widths.stream()
+                    .filter(width -> width > 0 && width < displayWidth)
+                    .distinct()
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+            if (targets.isEmpty()) {
+                return new Rendered(displayWidth, displayHeight, contentType, List.of());
+            }
+
+            int subsampling = 1;
+            while ((long) (sourceWidth / subsampling) * (sourceHeight / subsampling) > maxSourcePixels
+                    && displayWidth / (subsampling + 1) >= targets.get(0) * 2) {
+                subsampling++;
+            }
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            BufferedImage current = reader.read(0, param);
+
+            boolean png = current.getColorModel().hasAlpha();
+            int type = png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            List<Variant> variants = new ArrayList<>(targets.size());
+            for (int width : targets) {
+                int height = Math.max(1, (int) Math.round((double) displayHeight * width / displayWidth));
+                current = transposed ? scale(current, height, width, type) : scale(current, width, height, type);
+                byte[] content = encode(orient(current, orientation, type), png);
+                variants.add(new Variant(width, height, content, png ? "image/png" : "image/jpeg"));
+            }
+            return new Rendered(displayWidth, displayHeight, contentType, variants);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Reads the EXIF orientation from the JPEG markers before the image data, leaving the stream
+     * where it was. ImageIO's own metadata tree refuses files whose Exif segment comes before the
+     * JFIF one, which cameras and phones write routinely.
+     */
+    private static int orientation(ImageInputStream source) throws IOException {
+        source.mark();
+        try {
+            if (source.readUnsignedShort() != SOI) {
+                return 1;
+            }
+            while (true) {
+                int marker = source.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == SOS) {
+                    return 1;
+                }
+                int length = source.readUnsignedShort() - 2;
+                if (marker == APP1 && length > 0) {
+                    byte[] segment = new byte[length];
+                    source.readFully(segment);
+                    if (isExif(segment)) {
+                        return exifOrientation(segment);
+                    }
+                } else {
+                    source.skipBytes(length);
+                }
+            }
+        } catch (EOFException e) {
+            return 1;
+        } finally {
+            source.reset();
+        }
+    }
+
+    private static boolean isExif(byte[] app1) {
+        return app1.length >= 14 && app1[0] == 'E' && app1[1] == 'x' && app1[2] == 'i' && app1[3] == 'f';
+    }
+
+    /**
+     * The orientation tag of IFD0 in an APP1 "Exif" segment, 1 (as stored) if absent.
+     */
+    static int exifOrientation(byte[] app1) {
+        if (!isExif(app1)) {
+            return 1;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        int ifd = tiff.getInt(4);
+        if (ifd < 8 || ifd > tiff.limit() - 2) {
+            return 1;
+        }
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry > tiff.limit() - 12) {
+                break;
+            }
+            if ((tiff.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                int value = tiff.getShort(entry + 8) & 0xFFFF;
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static BufferedImage scale(BufferedImage source, int targetWidth, int targetHeight, int type) {
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            if (width < targetWidth * 2 || height < targetHeight * 2) {
+                width = targetWidth;
+                height = targetHeight;
+            }
+
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    /**
+     * Applies an EXIF orientation (1-8) to the pixels.
+     */
+    private static BufferedImage orient(BufferedImage image, int orientation, int type) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        // Maps stored coordinates to displayed ones: x' = m00 x + m01 y + m02, y' = m10 x + m11 y + m12
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+
+        BufferedImage oriented = orientation >= 5 ? new BufferedImage(h, w, type) : new BufferedImage(w, h, type);
+        Graphics2D graphics = oriented.createGraphics();
+        graphics.drawImage(image, transform, null);
+        graphics.dispose();
+        return oriented;
+    }
+
+    private byte[] encode(BufferedImage image, boolean png) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(png ? "png" : "jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // In memory; ImageIO's default stream would buffer through a temporary file
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (!png) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            }
+            // No metadata is passed, so none of the source's (EXIF, GPS, comments) is written
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,268 @@
+package com.qr.service;
+
+import com.qr.event.PhotoStoredEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the width variants of stored photo images on a bounded background pool, so pages
+ * showing photos as thumbnails download a few kilobytes per photo instead of the original.
+ *
+ * Variants are rendered right after a photo is saved, and at startup for stored images that have
+ * none yet. They are recorded in photo_variants per source blob; photos whose variants are not
+ * ready yet are served the original. Sources ImageIO cannot decode get no variants and are
+ * served as they are.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoVariantService {
+
+    private static final String PENDING = "SELECT DISTINCT p.image_key FROM publication_photos p "
+            + "WHERE p.image_key > ? AND NOT EXISTS (SELECT 1 FROM photo_variants v WHERE v.source_key = p.image_key) "
+            + "ORDER BY p.image_key LIMIT ?";
+    private static final String INSERT = "INSERT INTO photo_variants "
+            + "(source_key, width, height, blob_key, content_type, size_bytes) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT DO NOTHING";
+
+    private final PhotoVariantRenderer renderer;
+    private final BlobStore blobStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${qr.photo-variants.enabled:true}")
+    private boolean enabled;
+
+    @Value("${qr.photo-variants.widths:160,480,1080}")
+    private List<Integer> widths;
+
+    @Value("${qr.photo-variants.threads:2}")
+    private int threads;
+
+    @Value("${qr.photo-variants.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${qr.photo-variants.backfill.enabled:true}")
+    private boolean backfillEnabled;
+
+    @Value("${qr.photo-variants.backfill.batch-size:100}")
+    private int backfillBatchSize;
+
+    private ThreadPoolExecutor executor;
+    private Timer renderTimer;
+    private Counter rejectedCounter;
+    private Counter failedCounter;
+
+    @lombok.Value
+    public static class PhotoVariant {
+        String sourceKey;
+        int width;
+        String blobKey;
+        String contentType;
+        long sizeBytes;
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            log.info("Photo variant generation is disabled");
+            return;
+        }
+
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("photo-variants-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        renderTimer = Timer.builder("publication.photo.variants.render")
+                .description("Time to decode a stored photo and render and store all its variants")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("publication.photo.variants.rejected")
+                .description("Variant jobs dropped because the queue was full")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("publication.photo.variants.failed").register(meterRegistry);
+        Gauge.builder("publication.photo.variants.queue.size", executor, e -> e.getQueue().size()).register(meterRegistry);
+
+        log.info("Photo variants enabled for widths {} with {} threads", widths, threads);
+    }
+
+    @TransactionalEventListener
+    public void onPhotoStored(PhotoStoredEvent event) {
+        if (executor == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> generate(event.getImageKey()));
+        } catch (RejectedExecutionException e) {
+            // Dropping is safe: the original is served meanwhile and the next startup backfill renders it
+            rejectedCounter.increment();
+            log.warn("Photo variant queue full, skipping blob: {}", event.getImageKey());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void startBackfill() {
+        if (executor != null && backfillEnabled) {
+            new CustomizableThreadFactory("photo-variants-backfill-").newThread(this::backfill).start();
+        }
+    }
+
+    /**
+     * Queues every stored image without variants, waiting for room in the queue rather than
+     * competing with new uploads for it.
+     */
+    void backfill() {
+        String lastKey = "";
+        int queued = 0;
+        try {
+            while (true) {
+                List<String> keys = jdbcTemplate.queryForList(PENDING, String.class, lastKey, backfillBatchSize);
+                if (keys.isEmpty()) {
+                    break;
+                }
+                for (String key : keys) {
+                    while (executor.getQueue().remainingCapacity() < queueCapacity / 2) {
+                        Thread.sleep(100);
+                    }
+                    executor.execute(() -> generate(key));
+                    queued++;
+                }
+                lastKey = keys.get(keys.size() - 1);
+            }
+            if (queued > 0) {
+                log.info("Queued {} stored photos for variant generation", queued);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Queueing stored photos for variant generation stopped after {} photos", queued, e);
+        }
+    }
+
+    /**
+     * Renders and stores the variants of one source blob, unless they exist already.
+     */
+    void generate(String sourceKey) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM photo_variants WHERE source_key = ?", Integer.class, sourceKey);
+        if (existing != null && existing > 0) {
+            return;
+        }
+        Resource source = blobStore.get(sourceKey);
+        if (source == null) {
+            log.warn("Blob {} is missing from the blob store, no variants rendered", sourceKey);
+            return;
+        }
+
+        long started = System.nanoTime();
+        try (ImageInputStream input = open(source)) {
+            PhotoVariantRenderer.Rendered rendered = renderer.render(input, widths);
+            for (PhotoVariantRenderer.Variant variant : rendered.getVariants()) {
+                String key = blobStore.put(variant.getContent());
+                jdbcTemplate.update(INSERT, sourceKey, variant.getWidth(), variant.getHeight(), key,
+                        variant.getContentType(), variant.getContent().length);
+            }
+            // The source itself is the widest variant; its row marks the source as done
+            jdbcTemplate.update(INSERT, sourceKey, rendered.getWidth(), rendered.getHeight(), sourceKey,
+                    rendered.getContentType(), source.contentLength());
+            renderTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            // Not an image ImageIO can read (WebP, CMYK JPEG...); the original is served as it is
+            failedCounter.increment();
+            log.warn("Cannot render variants of blob {}: {}", sourceKey, e.getMessage());
+            markUndecodable(sourceKey, source);
+        } catch (RuntimeException e) {
+            failedCounter.increment();
+            log.error("Failed to render variants of blob: {}", sourceKey, e);
+        }
+    }
+
+    /**
+     * Records a source without variants: a row for the source itself at width 0, so it is served
+     * as final rather than as a stand-in and later backfills skip it.
+     */
+    private void markUndecodable(String sourceKey, Resource source) {
+        try {
+            jdbcTemplate.update(INSERT, sourceKey, 0, 0, sourceKey,
+                    PhotoBlobService.contentType(source).toString(), source.contentLength());
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to record blob {} as undecodable", sourceKey, e);
+        }
+    }
+
+    /**
+     * The narrowest variant at least {@code width} pixels wide, else the widest there is; null
+     * when the source has no variants (yet).
+     */
+    public PhotoVariant find(String sourceKey, int width) {
+        List<PhotoVariant> variants = jdbcTemplate.query(
+                "SELECT width, blob_key, content_type, size_bytes FROM photo_variants WHERE source_key = ?",
+                (rs, rowNum) -> new PhotoVariant(sourceKey, rs.getInt("width"), rs.getString("blob_key"),
+                        rs.getString("content_type"), rs.getLong("size_bytes")),
+                sourceKey);
+        return variants.stream()
+                .filter(variant -> variant.getWidth() >= width)
+                .min(Comparator.comparingInt(PhotoVariant::getWidth))
+                .orElseGet(() -> variants.stream().max(Comparator.comparingInt(PhotoVariant::getWidth)).orElse(null));
+    }
+
+    /**
+     * Deletes the variants of a source blob and returns the keys of their blobs that no other
+     * source's variants use; the source's own key is not among them.
+     */
+    public List<String> remove(String sourceKey) {
+        List<String> blobKeys = jdbcTemplate.queryForList(
+                "DELETE FROM photo_variants WHERE source_key = ? RETURNING blob_key", String.class, sourceKey);
+        return blobKeys.stream()
+                .filter(key -> !key.equals(sourceKey))
+                .filter(key -> jdbcTemplate.queryForList(
+                        "SELECT 1 FROM photo_variants WHERE blob_key = ? LIMIT 1", Integer.class, key).isEmpty())
+                .toList();
+    }
+
+    private static ImageInputStream open(Resource source) throws IOException {
+        if (source.isFile()) {
+            return new FileImageInputStream(source.getFile());
+        }
+        InputStream in = source.getInputStream();
+        return new MemoryCacheImageInputStream(in) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                in.close();
+            }
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -3,9 +3,12 @@ package com.qr.service;
 import com.qr.dto.*;
 import com.qr.entity.Publication;
 import com.qr.entity.PublicationPhoto;
+import com.qr.event.PhotoStoredEvent;
+import com.qr.repository.PublicationPhotoRepository;
 import com.qr.repository.PublicationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -14,8 +17,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +27,11 @@ import java.util.stream.Collectors;
 public class PublicationService {
 
     private final PublicationRepository publicationRepository;
+    private final PublicationPhotoRepository publicationPhotoRepository;
+    private final DashboardStatistics dashboardStatistics;
+    private final PhotoBlobService photoBlobService;
+    private final PhotoBlobReferences photoBlobReferences;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public PublicationResponse createPublication(PublicationRequest request, String createdBy) {
@@ -46,70 +54,34 @@ public class PublicationService {
             publication.setPublishedAt(LocalDateTime.now());
         }
 
-        // Save photos - convert base64 data URLs to binary data and store in DB
+        // Save photos - uploaded photos are attached, image bytes of base64 data URLs go to the
+        // blob store and the row keeps their keys
         if (request.getPhotos() != null && !request.getPhotos().isEmpty()) {
             List<PublicationPhoto> photos = request.getPhotos().stream()
-                    .map(photoRequest -> {
-                        byte[] imageData = null;
-                        byte[] thumbnailData = null;
-                        String fileUrl = photoRequest.getFileUrl();
-                        String thumbnailUrl = photoRequest.getThumbnailUrl();
-                        
-                        // Convert base64 data URL to binary data
-                        if (fileUrl != null && fileUrl.startsWith("data:image")) {
-                            try {
-                                String base64Data = fileUrl.split(",")[1];
-                                imageData = Base64.getDecoder().decode(base64Data);
-                                // Store the base64 URL as well for backward compatibility
-                            } catch (Exception e) {
-                                log.warn("Failed to decode image data for photo: {}", photoRequest.getFileName(), e);
-                            }
-                        }
-                        
-                        // Convert thumbnail base64 data URL to binary data
-                        if (thumbnailUrl != null && thumbnailUrl.startsWith("data:image")) {
-                            try {
-                                String base64Data = thumbnailUrl.split(",")[1];
-                                thumbnailData = Base64.getDecoder().decode(base64Data);
-                            } catch (Exception e) {
-                                log.warn("Failed to decode thumbnail data for photo: {}", photoRequest.getFileName(), e);
-                                // Fallback: use same image data for thumbnail if available
-                                thumbnailData = imageData;
-                            }
-                        } else if (imageData != null) {
-                            // If no thumbnail URL provided, use the same image data
-                            thumbnailData = imageData;
-                        }
-                        
-                        return PublicationPhoto.builder()
-                                .publication(publication)
-                                .fileUrl(fileUrl) // Keep URL for reference (base64 data URL)
-                                .thumbnailUrl(thumbnailUrl) // Keep URL for reference
-                                .imageData(imageData) // Store binary data in DB
-                                .thumbnailData(thumbnailData) // Store thumbnail binary data in DB
-                                .fileName(photoRequest.getFileName())
-                                .isCover(photoRequest.getIsCover() != null ? photoRequest.getIsCover() : false)
-                                .displayOrder(photoRequest.getDisplayOrder() != null ? photoRequest.getDisplayOrder() : 0)
-                                .build();
-                    })
+                    .map(photoRequest -> photoRequest.getPhotoId() != null
+                            ? attach(publication, photoRequest.getPhotoId(), photoRequest)
+                            : retain(newPhoto(publication, photoRequest)))
                     .collect(Collectors.toList());
             publication.setPhotos(photos);
         }
 
         Publication saved = publicationRepository.save(publication);
-        return toResponse(saved);
+        dashboardStatistics.publicationCreated(saved.getStatus());
+        return toResponse(saved, metadataOf(saved));
     }
 
-    @Transactional(readOnly = true)
+    @Transactional
     public PublicationResponse getPublicationBySlug(String slug) {
         Publication publication = publicationRepository.findBySlug(slug)
                 .orElseThrow(() -> new RuntimeException("Publication not found: " + slug));
         
-        // Increment view count
-        publication.setViewCount(publication.getViewCount() + 1);
-        publicationRepository.save(publication);
+        // Increment view count in the database, so concurrent views are not lost
+        publicationRepository.incrementViewCount(publication.getId());
+        dashboardStatistics.publicationViewed();
         
-        return toResponse(publication);
+        PublicationResponse response = toResponse(publication);
+        response.setViewCount(publication.getViewCount() + 1);
+        return response;
     }
 
     @Transactional(readOnly = true)
@@ -128,9 +100,7 @@ public class PublicationService {
         
         Page<Publication> publications = publicationRepository.findAll(pageable);
         
-        List<PublicationResponse> content = publications.getContent().stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        List<PublicationResponse> content = toResponses(publications.getContent());
         
         return PagedResponse.<PublicationResponse>builder()
                 .content(content)
@@ -158,9 +128,7 @@ public class PublicationService {
             publications = publicationRepository.searchPublications(query, pageable);
         }
         
-        List<PublicationResponse> content = publications.getContent().stream()
-                .map(this::toResponse)
-                .collect(Collectors.toList());
+        List<PublicationResponse> content = toResponses(publications.getContent());
         
         return PagedResponse.<PublicationResponse>builder()
                 .content(content)
@@ -179,6 +147,7 @@ public class PublicationService {
     public PublicationResponse updatePublication(Long id, PublicationRequest request) {
         Publication publication = publicationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Publication not found: " + id));
+        Publication.PublicationStatus previousStatus = publication.getStatus();
 
         publication.setContentType(request.getContentType());
         publication.setPrimaryNames(request.getPrimaryNames());
@@ -201,7 +170,7 @@ public class PublicationService {
         
         publication.setScheduledFor(request.getScheduledFor());
 
-        // Update photos - handle both existing photos (API URLs) and new photos (base64)
+        // Update photos - handle existing photos (by ID or API URL), uploads and new photos (base64)
         if (request.getPhotos() != null) {
             // Get the managed collection (don't create a new one!)
             List<PublicationPhoto> existingPhotos = publication.getPhotos();
@@ -219,11 +188,10 @@ public class PublicationService {
             
             // Process each photo request
             for (PhotoRequest photoRequest : request.getPhotos()) {
-                String fileUrl = photoRequest.getFileUrl();
-                String thumbnailUrl = photoRequest.getThumbnailUrl();
-                
-                // Check if this is an existing photo (API endpoint URL)
-                Long photoId = extractPhotoIdFromUrl(fileUrl);
+                // Check if this is an existing photo or an upload (by ID or API endpoint URL)
+                Long photoId = photoRequest.getPhotoId() != null
+                        ? photoRequest.getPhotoId()
+                        : extractPhotoIdFromUrl(photoRequest.getFileUrl());
                 
                 // If we found a photo ID and it exists, reuse it
                 if (photoId != null && existingPhotosMap.containsKey(photoId)) {
@@ -232,66 +200,130 @@ public class PublicationService {
                     existingPhoto.setFileName(photoRequest.getFileName());
                     existingPhoto.setIsCover(photoRequest.getIsCover() != null ? photoRequest.getIsCover() : false);
                     existingPhoto.setDisplayOrder(photoRequest.getDisplayOrder() != null ? photoRequest.getDisplayOrder() : 0);
-                    existingPhoto.setFileUrl(fileUrl);
-                    existingPhoto.setThumbnailUrl(thumbnailUrl != null ? thumbnailUrl : fileUrl);
+                    // fileUrl is this photo's own API URL; its stored content is unchanged
+                    processedPhotoIds.add(photoId);
+                } else if (photoRequest.getPhotoId() != null) {
+                    PublicationPhoto uploaded = attach(publication, photoId, photoRequest);
+                    existingPhotos.add(uploaded);
                     processedPhotoIds.add(photoId);
                 } else {
-                    // New photo - convert base64 data URL to binary data
-                    byte[] imageData = null;
-                    byte[] thumbnailData = null;
-                    
-                    // Convert base64 data URL to binary data
-                    if (fileUrl != null && fileUrl.startsWith("data:image")) {
-                        try {
-                            String base64Data = fileUrl.split(",")[1];
-                            imageData = Base64.getDecoder().decode(base64Data);
-                        } catch (Exception e) {
-                            log.warn("Failed to decode image data for photo: {}", photoRequest.getFileName(), e);
-                        }
+                    PublicationPhoto photo = newPhoto(publication, photoRequest);
+                    PublicationPhoto unchanged = findUnchanged(existingPhotos, processedPhotoIds, photo);
+                    if (unchanged != null) {
+                        // The same content sent again (e.g. as a data URL): keep the photo instead
+                        // of adding a copy, and its variants instead of rendering them again
+                        unchanged.setFileName(photo.getFileName());
+                        unchanged.setIsCover(photo.getIsCover());
+                        unchanged.setDisplayOrder(photo.getDisplayOrder());
+                        processedPhotoIds.add(unchanged.getId());
+                    } else {
+                        existingPhotos.add(retain(photo));
                     }
-                    
-                    // Convert thumbnail base64 data URL to binary data
-                    if (thumbnailUrl != null && thumbnailUrl.startsWith("data:image")) {
-                        try {
-                            String base64Data = thumbnailUrl.split(",")[1];
-                            thumbnailData = Base64.getDecoder().decode(base64Data);
-                        } catch (Exception e) {
-                            log.warn("Failed to decode thumbnail data for photo: {}", photoRequest.getFileName(), e);
-                            thumbnailData = imageData;
-                        }
-                    } else if (imageData != null) {
-                        thumbnailData = imageData;
-                    }
-                    
-                    // Create new photo and add to collection
-                    PublicationPhoto newPhoto = PublicationPhoto.builder()
-                            .publication(publication)
-                            .fileUrl(fileUrl)
-                            .thumbnailUrl(thumbnailUrl)
-                            .imageData(imageData)
-                            .thumbnailData(thumbnailData)
-                            .fileName(photoRequest.getFileName())
-                            .isCover(photoRequest.getIsCover() != null ? photoRequest.getIsCover() : false)
-                            .displayOrder(photoRequest.getDisplayOrder() != null ? photoRequest.getDisplayOrder() : 0)
-                            .build();
-                    
-                    existingPhotos.add(newPhoto);
                 }
             }
             
-            // Remove photos that were not in the request (orphan removal)
-            existingPhotos.removeIf(p -> p.getId() != null && !processedPhotoIds.contains(p.getId()));
+            // Remove photos that were not in the request (orphan removal); their blobs are
+            // deleted once no other photo uses them
+            existingPhotos.removeIf(p -> {
+                boolean removed = p.getId() != null && !processedPhotoIds.contains(p.getId());
+                if (removed) {
+                    photoBlobReferences.release(p);
+                }
+                return removed;
+            });
         }
 
         Publication saved = publicationRepository.save(publication);
-        return toResponse(saved);
+        dashboardStatistics.publicationStatusChanged(previousStatus, saved.getStatus());
+        return toResponse(saved, metadataOf(saved));
     }
 
     @Transactional
     public void deletePublication(Long id) {
         Publication publication = publicationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Publication not found: " + id));
+        publication.getPhotos().forEach(photoBlobReferences::release);
         publicationRepository.delete(publication);
+        dashboardStatistics.publicationDeleted(publication.getStatus(),
+                publication.getViewCount() != null ? publication.getViewCount() : 0L);
+    }
+
+    /**
+     * Attaches a photo stored by the upload endpoint, which belongs to no publication until now.
+     *
+     * @throws IllegalArgumentException if there is no such upload, or it is attached already
+     */
+    private PublicationPhoto attach(Publication publication, Long photoId, PhotoRequest photoRequest) {
+        PublicationPhoto photo = publicationPhotoRepository.findById(photoId)
+                .orElseThrow(() -> new IllegalArgumentException("Photo not found: " + photoId));
+        if (photo.getPublication() != null) {
+            throw new IllegalArgumentException("Photo " + photoId + " belongs to another publication");
+        }
+        photo.setPublication(publication);
+        if (photoRequest.getFileName() != null) {
+            photo.setFileName(photoRequest.getFileName());
+        }
+        photo.setIsCover(photoRequest.getIsCover() != null ? photoRequest.getIsCover() : false);
+        photo.setDisplayOrder(photoRequest.getDisplayOrder() != null ? photoRequest.getDisplayOrder() : 0);
+        return photo;
+    }
+
+    /**
+     * Builds a photo from data URLs or external URLs; its blobs are stored, but not referenced
+     * until the photo is {@link #retain retained}.
+     */
+    private PublicationPhoto newPhoto(Publication publication, PhotoRequest photoRequest) {
+        String fileUrl = photoRequest.getFileUrl();
+        String thumbnailUrl = photoRequest.getThumbnailUrl();
+        // Without a thumbnail of its own the photo's thumbnail endpoint serves the image
+        PhotoBlobService.StoredBlob image = photoBlobService.storeDataUrl(fileUrl, photoRequest.getFileName());
+        PhotoBlobService.StoredBlob thumbnail = photoBlobService.storeDataUrl(thumbnailUrl, photoRequest.getFileName());
+        if (image != null && thumbnail != null && thumbnail.getKey().equals(image.getKey())) {
+            // The image sent again as its own thumbnail; the variants serve as thumbnail instead
+            thumbnail = null;
+        }
+
+        return PublicationPhoto.builder()
+                .publication(publication)
+                // External URLs are kept; data URLs are not stored a second time
+                .fileUrl(PhotoBlobService.isDataUrl(fileUrl) ? null : fileUrl)
+                .thumbnailUrl(PhotoBlobService.isDataUrl(thumbnailUrl) ? null : thumbnailUrl)
+                .imageKey(image != null ? image.getKey() : null)
+                .thumbnailKey(thumbnail != null ? thumbnail.getKey() : null)
+                .contentType(image != null ? image.getContentType() : null)
+                .sizeBytes(image != null ? image.getSize() : null)
+                .fileName(photoRequest.getFileName())
+                .isCover(photoRequest.getIsCover() != null ? photoRequest.getIsCover() : false)
+                .displayOrder(photoRequest.getDisplayOrder() != null ? photoRequest.getDisplayOrder() : 0)
+                .build();
+    }
+
+    /**
+     * References the blobs of a photo about to be saved.
+     */
+    private PublicationPhoto retain(PublicationPhoto photo) {
+        if (photoBlobReferences.acquire(photo)) {
+            // New content: renders the smaller variants once the photo is committed
+            eventPublisher.publishEvent(new PhotoStoredEvent(photo.getImageKey()));
+        }
+        return photo;
+    }
+
+    /**
+     * An existing photo, not yet matched to the request, with the same stored content as the
+     * given one; null for new content or photos not in the blob store.
+     */
+    private PublicationPhoto findUnchanged(List<PublicationPhoto> existingPhotos, java.util.Set<Long> processedPhotoIds,
+                                           PublicationPhoto photo) {
+        if (photo.getImageKey() == null) {
+            return null;
+        }
+        return existingPhotos.stream()
+                .filter(existing -> existing.getId() != null && !processedPhotoIds.contains(existing.getId()))
+                .filter(existing -> photo.getImageKey().equals(existing.getImageKey())
+                        && java.util.Objects.equals(photo.getThumbnailKey(), existing.getThumbnailKey()))
+                .findFirst()
+                .orElse(null);
     }
 
     /**
@@ -322,56 +354,83 @@ public class PublicationService {
         return null;
     }
 
-    @Transactional(readOnly = true)
     public PublicationStatsResponse getStats() {
-        Long total = publicationRepository.count();
-        Long published = publicationRepository.countByStatus(Publication.PublicationStatus.PUBLISHED);
-        Long drafts = publicationRepository.countByStatus(Publication.PublicationStatus.DRAFT);
-        Long scheduled = publicationRepository.countByStatus(Publication.PublicationStatus.SCHEDULED);
-        Long totalViews = publicationRepository.getTotalViewCount() != null 
-                ? publicationRepository.getTotalViewCount() : 0L;
-
-        return PublicationStatsResponse.builder()
-                .totalPublications(total)
-                .published(published)
-                .drafts(drafts)
-                .scheduled(scheduled)
-                .totalViews(totalViews)
-                .build();
+        return dashboardStatistics.publicationStats();
     }
 
+    /**
+     * Reads the publication's photos through the metadata projection, so neither the photo rows'
+     * legacy BYTEA columns nor inline data: URLs are loaded.
+     */
     private PublicationResponse toResponse(Publication publication) {
+        return toResponse(publication, publicationPhotoRepository.findMetadataByPublicationId(publication.getId()));
+    }
+
+    /**
+     * Maps a page of publications with the photos of the whole page read in one query, rather
+     * than one query per publication. Publications are paged on their own, so the page size is
+     * not distorted by joined photo rows.
+     */
+    private List<PublicationResponse> toResponses(List<Publication> publications) {
+        Map<Long, List<PhotoMetadata>> photosByPublication = publicationPhotoRepository
+                .findMetadataByPublicationIds(publications.stream().map(Publication::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(PhotoMetadata::getPublicationId));
+        return publications.stream()
+                .map(publication -> toResponse(publication,
+                        photosByPublication.getOrDefault(publication.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private List<PhotoMetadata> metadataOf(Publication publication) {
+        if (publication.getPhotos() == null) {
+            return List.of();
+        }
+        return publication.getPhotos().stream()
+                .map(photo -> new PhotoMetadata(photo.getId(), publication.getId(), photo.getFileName(),
+                        photo.getIsCover(), photo.getDisplayOrder(), photo.getContentType(), photo.getSizeBytes(),
+                        photo.getImageKey(), photo.getThumbnailKey(),
+                        PhotoBlobService.isDataUrl(photo.getFileUrl()) ? null : photo.getFileUrl(),
+                        PhotoBlobService.isDataUrl(photo.getThumbnailUrl()) ? null : photo.getThumbnailUrl()))
+                .collect(Collectors.toList());
+    }
+
+    private PublicationResponse toResponse(Publication publication, List<PhotoMetadata> photoMetadata) {
         List<String> tags = publication.getTags() != null && !publication.getTags().isEmpty()
                 ? List.of(publication.getTags().split(","))
                 : List.of();
 
-        List<PhotoResponse> photos = publication.getPhotos() != null
-                ? publication.getPhotos().stream()
-                        .sorted((a, b) -> Integer.compare(
-                                a.getDisplayOrder() != null ? a.getDisplayOrder() : 0,
-                                b.getDisplayOrder() != null ? b.getDisplayOrder() : 0))
-                        .map(photo -> {
-                            // Return photo URL pointing to the photo endpoint if binary data exists
-                            // Use full API path - frontend can use this directly
-                            String photoUrl = photo.getImageData() != null && photo.getImageData().length > 0
-                                    ? "/api/publications/photos/" + photo.getId() + "/image"
-                                    : (photo.getFileUrl() != null ? photo.getFileUrl() : "");
-                            
-                            String thumbUrl = photo.getThumbnailData() != null && photo.getThumbnailData().length > 0
-                                    ? "/api/publications/photos/" + photo.getId() + "/thumbnail"
-                                    : (photo.getThumbnailUrl() != null ? photo.getThumbnailUrl() : photoUrl);
-                            
-                            return PhotoResponse.builder()
-                                    .id(photo.getId())
-                                    .fileUrl(photoUrl)
-                                    .thumbnailUrl(thumbUrl)
-                                    .fileName(photo.getFileName())
-                                    .isCover(photo.getIsCover())
-                                    .displayOrder(photo.getDisplayOrder())
-                                    .build();
-                        })
-                        .collect(Collectors.toList())
-                : List.of();
+        List<PhotoResponse> photos = photoMetadata.stream()
+                .sorted((a, b) -> Integer.compare(
+                        a.getDisplayOrder() != null ? a.getDisplayOrder() : 0,
+                        b.getDisplayOrder() != null ? b.getDisplayOrder() : 0))
+                .map(photo -> {
+                    // Return photo URL pointing to the photo endpoint if the content is stored here
+                    // (in the blob store, or not yet moved out of the database), versioned by its
+                    // content hash. Use full API path - frontend can use this directly
+                    boolean stored = photo.isStored();
+                    String photoUrl = stored
+                            ? PhotoBlobService.photoUrl(photo.getId(), false, photo.getImageKey())
+                            : photo.getFileUrl();
+                    
+                    String thumbUrl = stored
+                            ? PhotoBlobService.photoUrl(photo.getId(), true,
+                                    photo.hasThumbnail() ? photo.getThumbnailKey() : photo.getImageKey())
+                            : (photo.getThumbnailUrl() != null ? photo.getThumbnailUrl() : photoUrl);
+                    
+                    return PhotoResponse.builder()
+                            .id(photo.getId())
+                            .fileUrl(photoUrl)
+                            .thumbnailUrl(thumbUrl)
+                            .fileName(photo.getFileName())
+                            .isCover(photo.getIsCover())
+                            .displayOrder(photo.getDisplayOrder())
+                            .contentType(photo.getContentType())
+                            .sizeBytes(photo.getSizeBytes())
+                            .hasThumbnail(photo.hasThumbnail())
+                            .build();
+                })
+                .collect(Collectors.toList());
 
         return PublicationResponse.builder()
                 .id(publication.getId())
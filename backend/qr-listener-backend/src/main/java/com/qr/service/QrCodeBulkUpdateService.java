@@ -0,0 +1,236 @@
+package com.qr.service;
+
+import com.qr.dto.BulkUpdateJobResponse;
+import com.qr.dto.BulkUpdateRequest;
+import com.qr.dto.QrCodeKey;
+import com.qr.dto.QrCodeSearchRequest;
+import com.qr.event.QrCodesBulkUpdatedEvent;
+import com.qr.repository.ApplicationRepository;
+import com.qr.repository.QrCodeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retargets, activates/deactivates or reassigns many QR codes at once.
+ *
+ * A job first resolves the affected codes (an explicit QR ID list or a search filter), then
+ * applies the change as one UPDATE ... WHERE id IN (...) per chunk, each chunk in its own
+ * transaction so a large job neither holds long locks nor loses finished chunks when it fails.
+ * Jobs run one at a time in the background and report progress until they are evicted after
+ * {@code qr.bulk.retention}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QrCodeBulkUpdateService {
+
+    private final QrCodeRepository qrCodeRepository;
+    private final ApplicationRepository applicationRepository;
+    private final QrImageCache qrImageCache;
+    private final QrCodeStorageService qrCodeStorageService;
+    private final QrCodeVersionCache qrCodeVersionCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${qr.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${qr.bulk.max-codes:500000}")
+    private int maxCodes;
+
+    @Value("${qr.bulk.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${qr.bulk.retention:1h}")
+    private Duration retention;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("qr-bulk-"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Validates the request and queues it.
+     *
+     * @throws IllegalArgumentException if the request selects no codes, changes nothing or names
+     *                                  an unknown application
+     * @throws IllegalStateException    if too many jobs are already queued
+     */
+    public BulkUpdateJobResponse submit(BulkUpdateRequest request) {
+        validate(request);
+        pruneFinishedJobs();
+
+        Job job = new Job(UUID.randomUUID().toString(), request);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new IllegalStateException("Too many bulk update jobs queued", e);
+        }
+        log.info("Queued bulk update job {}", job.id);
+        return job.toResponse();
+    }
+
+    public BulkUpdateJobResponse getJob(String jobId) {
+        Job job = jobs.get(jobId);
+        return job != null ? job.toResponse() : null;
+    }
+
+    private void validate(BulkUpdateRequest request) {
+        boolean byQrIds = request.getQrIds() != null && !request.getQrIds().isEmpty();
+        if (byQrIds == (request.getFilter() != null)) {
+            throw new IllegalArgumentException("Exactly one of qrIds or filter is required");
+        }
+        if (request.getTargetUrl() == null && request.getIsActive() == null && request.getApplicationId() == null) {
+            throw new IllegalArgumentException("Nothing to change: set targetUrl, isActive or applicationId");
+        }
+        if (request.getTargetUrl() != null && request.getTargetUrl().isBlank()) {
+            throw new IllegalArgumentException("Target URL must not be blank");
+        }
+        if (request.getApplicationId() != null && !applicationRepository.existsById(request.getApplicationId())) {
+            throw new IllegalArgumentException("Application not found: " + request.getApplicationId());
+        }
+    }
+
+    private void run(Job job) {
+        job.status = "RUNNING";
+        job.startedAt = LocalDateTime.now();
+        long started = System.nanoTime();
+        BulkUpdateRequest request = job.request;
+        try {
+            List<QrCodeKey> keys = resolve(request);
+            job.total = keys.size();
+
+            for (int from = 0; from < keys.size(); from += chunkSize) {
+                List<QrCodeKey> chunk = keys.subList(from, Math.min(from + chunkSize, keys.size()));
+                List<Long> ids = new ArrayList<>(chunk.size());
+                List<String> qrIds = new ArrayList<>(chunk.size());
+                for (QrCodeKey key : chunk) {
+                    ids.add(key.getId());
+                    qrIds.add(key.getQrId());
+                }
+
+                Integer updated = transactionTemplate.execute(status -> {
+                    int count = qrCodeRepository.bulkUpdate(ids, request.getTargetUrl(), request.getIsActive(),
+                            request.getApplicationId(), LocalDateTime.now());
+                    eventPublisher.publishEvent(new QrCodesBulkUpdatedEvent(ids, qrIds));
+                    return count;
+                });
+
+                for (String qrId : qrIds) {
+                    qrCodeVersionCache.evict(qrId);
+                    if (Boolean.FALSE.equals(request.getIsActive())) {
+                        qrImageCache.evict(qrId);
+                        qrCodeStorageService.deleteQrCodeImages(qrId);
+                    }
+                }
+                job.updated.addAndGet(updated != null ? updated : 0);
+                job.processed.addAndGet(chunk.size());
+                job.qrIds.addAll(qrIds);
+            }
+            job.status = "COMPLETED";
+        } catch (RuntimeException e) {
+            // Chunks committed so far stay applied; qrIds lists exactly those
+            log.error("Bulk update job {} failed after {} codes", job.id, job.processed.get(), e);
+            job.error = e.getMessage();
+            job.status = "FAILED";
+        } finally {
+            job.durationMs = (System.nanoTime() - started) / 1_000_000;
+            job.finishedAt = LocalDateTime.now();
+        }
+        log.info("Bulk update job {} {}: {} of {} codes updated in {} ms",
+                job.id, job.status, job.updated.get(), job.total, job.durationMs);
+    }
+
+    private List<QrCodeKey> resolve(BulkUpdateRequest request) {
+        if (request.getFilter() == null) {
+            // Postgres caps bind parameters at 32767, so look the IDs up in chunks
+            List<String> qrIds = new ArrayList<>(new LinkedHashSet<>(request.getQrIds()));
+            List<QrCodeKey> keys = new ArrayList<>(qrIds.size());
+            for (int from = 0; from < qrIds.size(); from += chunkSize) {
+                keys.addAll(qrCodeRepository.findKeysByQrIdIn(qrIds.subList(from, Math.min(from + chunkSize, qrIds.size()))));
+            }
+            return keys;
+        }
+
+        // Resolved up front: the update itself may change which codes match the filter
+        QrCodeSearchRequest filter = request.getFilter();
+        List<QrCodeKey> keys = qrCodeRepository.findKeys(filter, maxCodes + 1);
+        if (keys.size() > maxCodes) {
+            throw new IllegalArgumentException("Filter matches more than " + maxCodes + " QR codes");
+        }
+        return keys;
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    private static final class Job {
+        final String id;
+        final BulkUpdateRequest request;
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong updated = new AtomicLong();
+        // Written by the job thread only; read once finishedAt is set
+        final List<String> qrIds = new ArrayList<>();
+        volatile String status = "QUEUED";
+        volatile long total;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile Long durationMs;
+        volatile String error;
+
+        Job(String id, BulkUpdateRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+
+        BulkUpdateJobResponse toResponse() {
+            boolean finished = finishedAt != null;
+            return BulkUpdateJobResponse.builder()
+                    .jobId(id)
+                    .status(status)
+                    .total(total)
+                    .processed(processed.get())
+                    .updated(updated.get())
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .durationMs(durationMs)
+                    .error(error)
+                    .qrIds(finished ? List.copyOf(qrIds) : null)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.qr.service;
+
+import com.qr.dto.QrCodeSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the newest-first listing of QR codes: the (createdAt, id) of a boundary row plus
+ * the direction to read in. Clients see it as an opaque URL-safe string.
+ */
+final class QrCodeCursor {
+
+    final boolean forward;
+    final LocalDateTime createdAt;
+    final long id;
+
+    private QrCodeCursor(boolean forward, LocalDateTime createdAt, long id) {
+        this.forward = forward;
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Cursor for the rows after (older than) the given one.
+     */
+    static String next(QrCodeSummary last) {
+        return encode("n", last);
+    }
+
+    /**
+     * Cursor for the rows before (newer than) the given one.
+     */
+    static String previous(QrCodeSummary first) {
+        return encode("p", first);
+    }
+
+    /**
+     * Position after the given row, for reading on without a round trip through a client.
+     */
+    static QrCodeCursor after(QrCodeSummary last) {
+        return new QrCodeCursor(true, last.getCreatedAt(), last.getId());
+    }
+
+    private static String encode(String direction, QrCodeSummary qrCode) {
+        String value = direction + "|" + qrCode.getCreatedAt() + "|" + qrCode.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static QrCodeCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|");
+            if (parts.length != 3 || !(parts[0].equals("n") || parts[0].equals("p"))) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new QrCodeCursor(parts[0].equals("n"), LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
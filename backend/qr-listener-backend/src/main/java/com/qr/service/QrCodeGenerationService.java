@@ -1,26 +1,40 @@
 package com.qr.service;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 import com.qr.dto.QrGenerationRequest;
 import com.qr.dto.QrGenerationResponse;
 import com.qr.dto.QrCodeStyle;
+import com.qr.dto.QrCodeSummary;
 import com.qr.entity.QrCode;
+import com.qr.event.QrCodeCreatedEvent;
+import com.qr.event.QrCodeUpdatedEvent;
 import com.qr.repository.QrCodeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.time.ZoneOffset;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +42,19 @@ import java.util.UUID;
 public class QrCodeGenerationService {
 
     private final QrCodeRepository qrCodeRepository;
+    private final QrIdAllocator qrIdAllocator;
+    private final QrImageCache qrImageCache;
+    private final QrCodeStorageService qrCodeStorageService;
+    private final QrCodeVersionCache qrCodeVersionCache;
+    private final QrCodeStreamingRenderer qrCodeStreamingRenderer;
+    private final SingleFlightExecutor singleFlightExecutor;
+    private final QrLogoService qrLogoService;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    // Logo edge length as a percentage of the symbol; H recovers up to ~30% damaged codewords
+    private static final int DEFAULT_LOGO_PERCENT = 20;
+    private static final int MIN_LOGO_PERCENT = 5;
+    private static final int MAX_LOGO_PERCENT = 25;
     
     @Value("${qr.redirect.base-url:http://graceshoppee.tech:8080}")
     private String redirectBaseUrl;
@@ -53,6 +80,11 @@ public class QrCodeGenerationService {
         
         log.info("Successfully generated QR code: {} -> {}", qrId, request.getTargetUrl());
         
+        // Delivered after commit, so pre-rendering never sees an uncommitted row
+        eventPublisher.publishEvent(new QrCodeCreatedEvent(savedQrCode.getId(), qrId, new QrCodeSummary(
+            savedQrCode.getId(), qrId, savedQrCode.getTargetUrl(), savedQrCode.getDescription(),
+            savedQrCode.getCreatedBy(), savedQrCode.getCreatedAt(), savedQrCode.getUpdatedAt(), savedQrCode.getIsActive())));
+        
         return QrGenerationResponse.builder()
             .id(savedQrCode.getId())
             .qrId(qrId)
@@ -64,16 +96,131 @@ public class QrCodeGenerationService {
             .build();
     }
 
-    @Cacheable(value = "qrCodes", key = "#qrId + '_' + #style.hashCode()")
-    public byte[] generateQrCodeImage(String qrId, QrCodeStyle style) {
-        log.debug("Generating QR code image for ID: {} with style: {}", qrId, style);
+    public Resource generateQrCodeImage(String qrId, QrCodeStyle requestedStyle) {
+        QrCodeStyle style = resolveStyle(requestedStyle);
+        String cacheKey = QrImageCache.key(qrId, style);
+        byte[] cached = qrImageCache.get(cacheKey);
+        if (cached != null) {
+            return new ByteArrayResource(cached);
+        }
         
-        // Verify QR code exists in database
-        QrCode qrCode = qrCodeRepository.findByQrIdAndIsActiveTrue(qrId)
-            .orElseThrow(() -> new RuntimeException("QR code not found: " + qrId));
+        // Disk hits are streamed from the file, without promoting the bytes onto the heap
+        Resource stored = qrCodeStorageService.getQrCodeImage(qrId, imageVariant(style));
+        if (stored != null) {
+            return stored;
+        }
+        
+        // Concurrent misses for the same image share a single lookup and render
+        byte[] image = singleFlightExecutor.execute("image:" + cacheKey, () -> {
+            byte[] rendered = qrImageCache.get(cacheKey);
+            if (rendered != null) {
+                return rendered;
+            }
+            
+            log.debug("Generating QR code image for ID: {} with style: {}", qrId, style);
+            
+            // Verify QR code exists (in the version cache, or else in the database)
+            resolveVersion(qrId);
+            
+            // Generate QR code image on-the-fly
+            rendered = createQrCodeImage(qrId, style);
+            qrImageCache.put(cacheKey, rendered);
+            qrCodeStorageService.saveQrCodeImage(qrId, imageVariant(style), rendered);
+            return rendered;
+        });
+        return new ByteArrayResource(image);
+    }
+
+    /**
+     * Renders an image for a QR code that is known to exist (e.g. right after creation) straight
+     * into the image cache and disk storage, skipping the database lookup.
+     */
+    public void preRenderQrCodeImage(String qrId, QrCodeStyle requestedStyle) {
+        QrCodeStyle style = resolveStyle(requestedStyle);
+        String cacheKey = QrImageCache.key(qrId, style);
+        if (!qrImageCache.contains(cacheKey)) {
+            byte[] image = createQrCodeImage(qrId, style);
+            qrImageCache.put(cacheKey, image);
+            qrCodeStorageService.saveQrCodeImage(qrId, imageVariant(style), image);
+        }
+    }
+
+    /**
+     * Renders the image of an active QR code without reading or filling the image caches, for
+     * one-off renders such as scan verification that must not displace the working set.
+     */
+    public byte[] renderQrCodeImage(String qrId, QrCodeStyle requestedStyle) {
+        QrCodeStyle style = resolveStyle(requestedStyle);
+        resolveVersion(qrId);
+        return createQrCodeImage(qrId, style);
+    }
+
+    /**
+     * Writes the image as a PNG straight to the given stream, one scanline at a time. Used for
+     * print sizes where a full BitMatrix and BufferedImage would not fit in memory; the result is
+     * not cached.
+     */
+    public void streamQrCodeImage(String qrId, QrCodeStyle style, OutputStream outputStream) throws IOException {
+        resolveVersion(qrId);
+        
+        log.debug("Streaming QR code image for ID: {} with size: {}", qrId, style.getSize());
+        qrCodeStreamingRenderer.writePng(buildRedirectUrl(qrId), style.getSize(),
+            errorCorrection(style), margin(style), outputStream);
+    }
+
+    /**
+     * Strong ETag for an image: qrId, a hash of the normalized style and redirect base URL (which
+     * together determine the bytes), and the code's version. Answered from the version cache when
+     * possible, so revalidations need neither the database nor a render.
+     */
+    public String getImageETag(String qrId, QrCodeStyle requestedStyle) {
+        QrCodeStyle style = resolveStyle(requestedStyle);
+        long version = resolveVersion(qrId);
+        String styleHash = Integer.toHexString(imageVariant(style).hashCode());
+        return "\"" + qrId + "-" + styleHash + "-" + Long.toString(version, 36) + "\"";
+    }
+
+    /**
+     * What determines the bytes of a QR code's image besides its qrId: the normalized style and
+     * the redirect base URL encoded in the symbol. Stored images and ETags are keyed by it, so a
+     * changed base URL invalidates both.
+     */
+    private String imageVariant(QrCodeStyle style) {
+        return style.cacheKey() + "|" + redirectBaseUrl;
+    }
+
+    /**
+     * Pins a requested logo to the currently registered version, so cache keys and ETags change
+     * when the logo does. A logo always forces error correction H to survive the covered modules.
+     */
+    private QrCodeStyle resolveStyle(QrCodeStyle style) {
+        if (style.getLogo() == null) {
+            return style;
+        }
         
-        // Generate QR code image on-the-fly
-        return createQrCodeImage(qrCode.getQrId(), style);
+        return style.toBuilder()
+            .logo(qrLogoService.resolveLogoKey(style.getLogo()))
+            .errorCorrection("H")
+            .logoSize(Math.max(MIN_LOGO_PERCENT, Math.min(MAX_LOGO_PERCENT,
+                style.getLogoSize() != null ? style.getLogoSize() : DEFAULT_LOGO_PERCENT)))
+            .build();
+    }
+
+    private long resolveVersion(String qrId) {
+        Long version = qrCodeVersionCache.get(qrId);
+        if (version != null) {
+            return version;
+        }
+        
+        return singleFlightExecutor.execute("version:" + qrId, () -> {
+            QrCode qrCode = qrCodeRepository.findByQrIdAndIsActiveTrue(qrId)
+                .orElseThrow(() -> new RuntimeException("QR code not found: " + qrId));
+            
+            LocalDateTime modifiedAt = qrCode.getUpdatedAt() != null ? qrCode.getUpdatedAt() : qrCode.getCreatedAt();
+            long resolved = modifiedAt != null ? modifiedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+            qrCodeVersionCache.put(qrId, resolved);
+            return resolved;
+        });
     }
 
     public String getQrCodeImageUrl(String qrId, QrCodeStyle style) {
@@ -97,30 +244,32 @@ public class QrCodeGenerationService {
         // Mark as inactive in database (NO FILE DELETION NEEDED)
         qrCode.setIsActive(false);
         qrCodeRepository.save(qrCode);
+        eventPublisher.publishEvent(new QrCodeUpdatedEvent(qrCode.getId(), qrId, true));
         
         log.info("Successfully deleted QR code: {}", qrId);
         return true;
     }
 
-    private String generateUniqueQrId(String prefix) {
-        String qrId;
-        int attempts = 0;
-        int maxAttempts = 10;
-        
-        do {
-            String suffix = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-            qrId = (prefix != null ? prefix + "-" : "") + suffix;
-            attempts++;
-        } while (qrCodeRepository.existsByQrId(qrId) && attempts < maxAttempts);
-        
-        if (attempts >= maxAttempts) {
-            throw new RuntimeException("Failed to generate unique QR ID after " + maxAttempts + " attempts");
+    /**
+     * Drops the cached version, and for deactivated codes the rendered images, once the change
+     * is committed; evicting earlier would let a concurrent request re-cache the old state.
+     */
+    @TransactionalEventListener
+    public void onQrCodeUpdated(QrCodeUpdatedEvent event) {
+        qrCodeVersionCache.evict(event.getQrId());
+        if (event.isDeactivated()) {
+            qrImageCache.evict(event.getQrId());
+            qrCodeStorageService.deleteQrCodeImages(event.getQrId());
         }
-        
-        return qrId;
     }
 
-    private byte[] createQrCodeImage(String qrId, QrCodeStyle style) {
+    private String generateUniqueQrId(String prefix) {
+        // Suffixes come from a leased block, so no existence check against the database is needed
+        String suffix = qrIdAllocator.nextSuffix();
+        return (prefix != null ? prefix + "-" : "") + suffix;
+    }
+
+    byte[] createQrCodeImage(String qrId, QrCodeStyle style) {
         try {
             QRCodeWriter qrCodeWriter = new QRCodeWriter();
             
@@ -128,12 +277,17 @@ public class QrCodeGenerationService {
             // Format: {base-url}/api/qr/redirect?qr_id={qrId}
             String redirectUrl = buildRedirectUrl(qrId);
             
+            if (style.getLogo() != null) {
+                return createBrandedQrCodeImage(qrCodeWriter, redirectUrl, style);
+            }
+            
             // The QR code contains the full redirect URL so scanners can redirect properly
             BitMatrix bitMatrix = qrCodeWriter.encode(
                 redirectUrl,             // ← Full redirect URL goes in the QR code
                 BarcodeFormat.QR_CODE, 
                 style.getSize(), 
-                style.getSize()
+                style.getSize(),
+                encodeHints(style)
             );
             
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
@@ -147,7 +301,61 @@ public class QrCodeGenerationService {
         }
     }
     
-    private String buildRedirectUrl(String qrId) {
+    private byte[] createBrandedQrCodeImage(QRCodeWriter qrCodeWriter, String redirectUrl, QrCodeStyle style)
+            throws WriterException, IOException {
+        BitMatrix bitMatrix = qrCodeWriter.encode(
+            redirectUrl,
+            BarcodeFormat.QR_CODE,
+            style.getSize(),
+            style.getSize(),
+            encodeHints(style)
+        );
+        // The plain symbol is a 1-bit image; composite on an RGB canvas so the logo keeps its colours
+        BufferedImage image = new BufferedImage(bitMatrix.getWidth(), bitMatrix.getHeight(), BufferedImage.TYPE_INT_RGB);
+        
+        // Size the logo against the symbol itself, not the quiet zone around it
+        int[] symbol = bitMatrix.getEnclosingRectangle();
+        int logoBox = symbol[2] * style.getLogoSize() / 100;
+        BufferedImage logo = qrLogoService.getScaledLogo(style.getLogo(), logoBox);
+        
+        int centerX = symbol[0] + symbol[2] / 2;
+        int centerY = symbol[1] + symbol[3] / 2;
+        int border = Math.max(2, logoBox / 10);
+        
+        Graphics2D graphics = image.createGraphics();
+        graphics.drawImage(MatrixToImageWriter.toBufferedImage(bitMatrix), 0, 0, null);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(centerX - logo.getWidth() / 2 - border, centerY - logo.getHeight() / 2 - border,
+            logo.getWidth() + border * 2, logo.getHeight() + border * 2);
+        graphics.drawImage(logo, centerX - logo.getWidth() / 2, centerY - logo.getHeight() / 2, null);
+        graphics.dispose();
+        
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, style.getFormat(), outputStream);
+        return outputStream.toByteArray();
+    }
+    
+    /**
+     * Error correction and quiet zone of the style; both are part of its cache key, so every
+     * renderer has to apply them.
+     */
+    private static Map<EncodeHintType, Object> encodeHints(QrCodeStyle style) {
+        return Map.of(
+            EncodeHintType.ERROR_CORRECTION, errorCorrection(style),
+            EncodeHintType.MARGIN, margin(style));
+    }
+    
+    private static int margin(QrCodeStyle style) {
+        return style.getMargin() != null ? style.getMargin() : 4;
+    }
+    
+    private static ErrorCorrectionLevel errorCorrection(QrCodeStyle style) {
+        return style.getErrorCorrection() != null
+            ? ErrorCorrectionLevel.valueOf(style.getErrorCorrection().toUpperCase())
+            : ErrorCorrectionLevel.M;
+    }
+    
+    String buildRedirectUrl(String qrId) {
         // Get base URL from Spring configuration
         String baseUrl = redirectBaseUrl;
         
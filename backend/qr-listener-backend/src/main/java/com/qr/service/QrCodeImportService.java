@@ -0,0 +1,260 @@
+package com.qr.service;
+
+import com.qr.dto.QrCodeImportError;
+import com.qr.dto.QrCodeImportResponse;
+import com.qr.event.QrCodesImportedEvent;
+import com.qr.repository.ApplicationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Imports (qrId, targetUrl, description) rows from CSV, for customers migrating their existing
+ * codes from another vendor.
+ *
+ * The upload is parsed one record at a time and valid rows are streamed through COPY into a
+ * temporary staging table, so heap use does not depend on the file size. A single
+ * INSERT ... SELECT ... ON CONFLICT then merges the staging table into qr_codes. Everything runs
+ * in one transaction: a failed import leaves no rows behind. Rejected rows are handed to the
+ * caller as they are found.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QrCodeImportService {
+
+    private static final int MAX_TARGET_URL_LENGTH = 500;
+    private static final int MAX_DESCRIPTION_LENGTH = 1000;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CREATE_STAGING = "CREATE TEMP TABLE qr_import_staging ("
+            + "line bigint, qr_id varchar(100), target_url varchar(500), description text) ON COMMIT DROP";
+    private static final String COPY_STAGING = "COPY qr_import_staging (line, qr_id, target_url, description) "
+            + "FROM STDIN WITH (FORMAT csv)";
+    // The last row wins when a QR ID repeats within the file
+    private static final String MERGE = "WITH merged AS ("
+            + "INSERT INTO qr_codes (qr_id, target_url, description, created_by, application_id, is_active, created_at, updated_at) "
+            + "SELECT DISTINCT ON (qr_id) qr_id, target_url, description, ?, ?, true, ?, ? "
+            + "FROM qr_import_staging ORDER BY qr_id, line DESC "
+            + "ON CONFLICT (qr_id) DO %s "
+            + "RETURNING (xmax = 0) AS inserted) "
+            + "SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted) FROM merged";
+    private static final String ON_CONFLICT_UPDATE = "UPDATE SET target_url = EXCLUDED.target_url, "
+            + "description = COALESCE(EXCLUDED.description, qr_codes.description), "
+            + "application_id = COALESCE(EXCLUDED.application_id, qr_codes.application_id), "
+            + "updated_at = EXCLUDED.updated_at";
+
+    public enum OnConflict { UPDATE, SKIP }
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationRepository applicationRepository;
+    private final QrCodeVersionCache qrCodeVersionCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${qr.import.max-rows:5000000}")
+    private long maxRows;
+
+    /**
+     * Checks the import options before the upload is processed.
+     *
+     * @throws IllegalArgumentException if createdBy is missing or too long, or the application does not exist
+     */
+    public void validateOptions(String createdBy, Long applicationId) {
+        if (createdBy == null || createdBy.isBlank() || createdBy.length() > 100) {
+            throw new IllegalArgumentException("createdBy is required and must not exceed 100 characters");
+        }
+        if (applicationId != null && !applicationRepository.existsById(applicationId)) {
+            throw new IllegalArgumentException("Application not found: " + applicationId);
+        }
+    }
+
+    /**
+     * Imports the CSV. Columns are qrId, targetUrl and an optional description; a first row
+     * starting with "id" or "qr_id" is taken as a header.
+     */
+    public QrCodeImportResponse importCsv(InputStream csv, String createdBy, Long applicationId,
+                                          OnConflict onConflict, Consumer<QrCodeImportError> rejected) {
+        long started = System.nanoTime();
+        long[] counts = new long[3]; // rows, rejected, staged
+        try {
+            long[] merged = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute(CREATE_STAGING);
+                copyToStaging(csv, rejected, counts);
+
+                LocalDateTime now = LocalDateTime.now();
+                String sql = String.format(MERGE, onConflict == OnConflict.UPDATE ? ON_CONFLICT_UPDATE : "NOTHING");
+                long[] result = jdbcTemplate.queryForObject(sql,
+                        (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)},
+                        createdBy, applicationId, Timestamp.valueOf(now), Timestamp.valueOf(now));
+                eventPublisher.publishEvent(new QrCodesImportedEvent(result[0], result[1]));
+                return result;
+            });
+            if (merged[1] > 0) {
+                // Versions of updated codes changed; which ones is not worth finding out
+                qrCodeVersionCache.clear();
+            }
+
+            QrCodeImportResponse response = summary("COMPLETED", counts, started);
+            response.setInserted(merged[0]);
+            response.setUpdated(merged[1]);
+            response.setSkipped(counts[2] - merged[0] - merged[1]);
+            log.info("Imported {} CSV rows ({} inserted, {} updated, {} skipped, {} rejected) in {} ms, {} rows/s",
+                    counts[0], merged[0], merged[1], response.getSkipped(), counts[1],
+                    response.getDurationMs(), response.getRowsPerSecond());
+            return response;
+        } catch (RuntimeException e) {
+            log.error("CSV import failed after {} rows", counts[0], e);
+            QrCodeImportResponse response = summary("FAILED", counts, started);
+            response.setError(e.getMessage());
+            return response;
+        }
+    }
+
+    private void copyToStaging(InputStream csv, Consumer<QrCodeImportError> rejected, long[] counts) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PGCopyOutputStream copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_STAGING, COPY_BUFFER_SIZE);
+             Writer out = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), COPY_BUFFER_SIZE);
+             Reader in = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8), COPY_BUFFER_SIZE)) {
+
+            // Longer fields are rejected anyway; the cap keeps a malformed file from filling the heap
+            QrCsvReader reader = new QrCsvReader(in, MAX_DESCRIPTION_LENGTH);
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                if (reader.recordLine() == 1 && isHeader(fields)) {
+                    continue;
+                }
+                if (++counts[0] > maxRows) {
+                    throw new IllegalArgumentException("The file has more than " + maxRows + " rows");
+                }
+
+                String error = validate(fields);
+                if (error != null) {
+                    counts[1]++;
+                    String qrId = fields.get(0).trim();
+                    rejected.accept(new QrCodeImportError(reader.recordLine(), qrId.isEmpty() ? null : qrId, error));
+                    continue;
+                }
+
+                String description = fields.size() > 2 ? fields.get(2).trim() : "";
+                out.write(Long.toString(reader.recordLine()));
+                out.write(',');
+                writeQuoted(out, fields.get(0).trim());
+                out.write(',');
+                writeQuoted(out, fields.get(1).trim());
+                out.write(',');
+                // Unquoted empty is NULL in COPY's CSV format
+                if (!description.isEmpty()) {
+                    writeQuoted(out, description);
+                }
+                out.write('\n');
+                counts[2]++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the CSV or copy it to the database", e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not start COPY", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static boolean isHeader(List<String> fields) {
+        String first = fields.get(0).trim().toLowerCase(Locale.ROOT);
+        return first.equals("id") || first.equals("qr_id") || first.equals("qrid");
+    }
+
+    private static String validate(List<String> fields) {
+        if (fields.size() < 2 || fields.size() > 3) {
+            return "Expected 2 or 3 columns (qrId, targetUrl, description), found " + fields.size();
+        }
+        String qrId = fields.get(0).trim();
+        if (qrId.isEmpty()) {
+            return "QR ID is required";
+        }
+        if (qrId.length() > QrIdFormat.MAX_LENGTH) {
+            return "QR ID must not exceed " + QrIdFormat.MAX_LENGTH + " characters";
+        }
+        if (!QrIdFormat.isValid(qrId)) {
+            return "QR ID may only contain letters, digits, '.', '_', '~' and '-'";
+        }
+        if (QrIdFormat.isAllocatorFormat(qrId)) {
+            // The allocator may issue this very ID later; imported codes must stay out of its space
+            return "QR ID has the format of generated IDs (prefix and 8-character suffix)";
+        }
+
+        String targetUrl = fields.get(1).trim();
+        if (targetUrl.isEmpty()) {
+            return "Target URL is required";
+        }
+        if (targetUrl.length() > MAX_TARGET_URL_LENGTH) {
+            return "Target URL must not exceed " + MAX_TARGET_URL_LENGTH + " characters";
+        }
+        try {
+            URI uri = new URI(targetUrl);
+            String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+            if (!(scheme.equals("http") || scheme.equals("https")) || uri.getHost() == null) {
+                return "Target URL must be an absolute http(s) URL";
+            }
+        } catch (URISyntaxException e) {
+            return "Target URL is not a valid URL";
+        }
+
+        if (fields.size() > 2 && fields.get(2).trim().length() > MAX_DESCRIPTION_LENGTH) {
+            return "Description must not exceed " + MAX_DESCRIPTION_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static void writeQuoted(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static QrCodeImportResponse summary(String status, long[] counts, long started) {
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        return QrCodeImportResponse.builder()
+                .status(status)
+                .rows(counts[0])
+                .rejected(counts[1])
+                .durationMs(durationMs)
+                .rowsPerSecond(durationMs > 0 ? counts[0] * 1000 / durationMs : counts[0])
+                .build();
+    }
+}
@@ -2,9 +2,12 @@ package com.qr.service;
 
 import com.qr.dto.*;
 import com.qr.entity.QrCode;
+import com.qr.event.QrCodeUpdatedEvent;
 import com.qr.repository.QrCodeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +15,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,7 +25,12 @@ import java.util.stream.Collectors;
 @Slf4j
 public class QrCodeManagementService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final QrCodeRepository qrCodeRepository;
+    private final QrCodeSearchService qrCodeSearchService;
+    private final QrCodeRecentFeed qrCodeRecentFeed;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public PagedResponse<QrCodeListResponse> getAllQrCodes(int page, int size, String sortBy, String sortDirection) {
@@ -30,7 +40,7 @@ public class QrCodeManagementService {
         Sort sort = Sort.by(Sort.Direction.fromString(sortDirection), sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<QrCode> qrCodePage = qrCodeRepository.findByIsActiveTrueOrderByCreatedAtDesc(pageable);
+        Page<QrCodeSummary> qrCodePage = qrCodeSearchService.search(new QrCodeSearchRequest(), pageable);
         
         List<QrCodeListResponse> content = qrCodePage.getContent().stream()
                 .map(this::mapToQrCodeListResponse)
@@ -55,22 +65,18 @@ public class QrCodeManagementService {
 
         int page = searchRequest.getPage() != null ? searchRequest.getPage() : 0;
         int size = searchRequest.getSize() != null ? searchRequest.getSize() : 10;
-        String sortBy = searchRequest.getSortBy() != null ? searchRequest.getSortBy() : "createdAt";
         String sortDirection = searchRequest.getSortDirection() != null ? searchRequest.getSortDirection() : "desc";
 
-        Sort sort = Sort.by(Sort.Direction.fromString(sortDirection), sortBy);
-        Pageable pageable = PageRequest.of(page, size, sort);
-
-        Page<QrCode> qrCodePage;
-        
-        if (searchRequest.getSearch() != null && !searchRequest.getSearch().trim().isEmpty()) {
-            qrCodePage = qrCodeRepository.searchActiveQrCodes(searchRequest.getSearch(), pageable);
-        } else if (searchRequest.getCreatedBy() != null && !searchRequest.getCreatedBy().trim().isEmpty()) {
-            qrCodePage = qrCodeRepository.findByCreatedByAndIsActiveTrue(searchRequest.getCreatedBy(), pageable);
+        // Unsorted means relevance for text searches and newest first otherwise
+        Pageable pageable;
+        if (searchRequest.getSortBy() == null || "relevance".equals(searchRequest.getSortBy())) {
+            pageable = PageRequest.of(page, size);
         } else {
-            qrCodePage = qrCodeRepository.findByIsActiveTrueOrderByCreatedAtDesc(pageable);
+            pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.fromString(sortDirection), searchRequest.getSortBy()));
         }
 
+        Page<QrCodeSummary> qrCodePage = qrCodeSearchService.search(searchRequest, pageable);
+
         List<QrCodeListResponse> content = qrCodePage.getContent().stream()
                 .map(this::mapToQrCodeListResponse)
                 .collect(Collectors.toList());
@@ -88,6 +94,60 @@ public class QrCodeManagementService {
                 .build();
     }
 
+    /**
+     * Newest-first listing of active QR codes using keyset pagination: every page costs the same
+     * however deep it is. A null cursor starts at the newest code; the total is only counted on request.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<QrCodeListResponse> getQrCodesByCursor(String cursor, int size, boolean includeTotal) {
+        log.info("Fetching QR codes - cursor: {}, size: {}, includeTotal: {}", cursor, size, includeTotal);
+
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_PAGE_SIZE + ": " + size);
+        }
+
+        // One extra row tells whether there is another page in the reading direction
+        Limit limit = Limit.of(size + 1);
+        QrCodeCursor position = cursor != null && !cursor.isEmpty() ? QrCodeCursor.decode(cursor) : null;
+        List<QrCodeSummary> rows;
+        boolean hasNext;
+        boolean hasPrevious;
+        if (position == null) {
+            rows = new ArrayList<>(qrCodeRepository.findActiveNewest(limit));
+            hasNext = rows.size() > size;
+            hasPrevious = false;
+        } else if (position.forward) {
+            rows = new ArrayList<>(qrCodeRepository.findActiveOlderThan(position.createdAt, position.id, limit));
+            hasNext = rows.size() > size;
+            hasPrevious = true;
+        } else {
+            rows = new ArrayList<>(qrCodeRepository.findActiveNewerThan(position.createdAt, position.id, limit));
+            hasPrevious = rows.size() > size;
+            hasNext = true;
+        }
+        if (rows.size() > size) {
+            rows.remove(size);
+        }
+        if (position != null && !position.forward) {
+            // Read oldest-first from the cursor; the page itself is newest-first
+            Collections.reverse(rows);
+        }
+
+        List<QrCodeListResponse> content = rows.stream()
+                .map(this::mapToQrCodeListResponse)
+                .collect(Collectors.toList());
+
+        return CursorPageResponse.<QrCodeListResponse>builder()
+                .content(content)
+                .size(size)
+                .nextCursor(hasNext && !rows.isEmpty() ? QrCodeCursor.next(rows.get(rows.size() - 1)) : null)
+                .prevCursor(hasPrevious && !rows.isEmpty() ? QrCodeCursor.previous(rows.get(0)) : null)
+                .hasNext(hasNext && !rows.isEmpty())
+                .hasPrevious(hasPrevious && !rows.isEmpty())
+                .totalElements(includeTotal ? qrCodeRepository.countActiveQrCodes() : null)
+                .build();
+    }
+
     @Transactional(readOnly = true)
     public QrCodeListResponse getQrCodeById(Long id) {
         log.info("Fetching QR code by ID: {}", id);
@@ -135,6 +195,8 @@ public class QrCodeManagementService {
         }
         
         QrCode updatedQrCode = qrCodeRepository.save(qrCode);
+        eventPublisher.publishEvent(new QrCodeUpdatedEvent(updatedQrCode.getId(), updatedQrCode.getQrId(),
+                !updatedQrCode.getIsActive()));
         
         log.info("Successfully updated QR code: {}", updatedQrCode.getQrId());
         
@@ -155,31 +217,26 @@ public class QrCodeManagementService {
         
         qrCode.setIsActive(false);
         qrCodeRepository.save(qrCode);
+        eventPublisher.publishEvent(new QrCodeUpdatedEvent(qrCode.getId(), qrCode.getQrId(), true));
         
         log.info("Successfully deleted QR code: {}", qrCode.getQrId());
         return true;
     }
 
-    @Transactional(readOnly = true)
-    public long getTotalQrCodesCount() {
-        return qrCodeRepository.countActiveQrCodes();
-    }
-
     @Transactional(readOnly = true)
     public List<QrCodeListResponse> getRecentQrCodes(int limit) {
         log.info("Fetching recent QR codes with limit: {}", limit);
         
-        List<QrCode> recentQrCodes = qrCodeRepository.findByIsActiveTrueOrderByCreatedAtDesc()
-                .stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ": " + limit);
+        }
         
-        return recentQrCodes.stream()
+        return qrCodeRecentFeed.recent(limit).stream()
                 .map(this::mapToQrCodeListResponse)
                 .collect(Collectors.toList());
     }
 
-    private QrCodeListResponse mapToQrCodeListResponse(QrCode qrCode) {
+    QrCodeListResponse mapToQrCodeListResponse(QrCodeSummary qrCode) {
         return QrCodeListResponse.builder()
                 .id(qrCode.getId())
                 .qrId(qrCode.getQrId())
@@ -193,4 +250,10 @@ public class QrCodeManagementService {
                 .downloadUrl("/api/qr/" + qrCode.getQrId() + "/download")
                 .build();
     }
+
+    QrCodeListResponse mapToQrCodeListResponse(QrCode qrCode) {
+        return mapToQrCodeListResponse(new QrCodeSummary(qrCode.getId(), qrCode.getQrId(), qrCode.getTargetUrl(),
+                qrCode.getDescription(), qrCode.getCreatedBy(), qrCode.getCreatedAt(), qrCode.getUpdatedAt(),
+                qrCode.getIsActive()));
+    }
 }
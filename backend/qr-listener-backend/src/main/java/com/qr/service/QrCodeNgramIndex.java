@@ -0,0 +1,368 @@
+package com.qr.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * In-memory trigram inverted index over the QR ID and description of active QR codes, used for
+ * substring search where the database has no pg_trgm.
+ *
+ * Every indexed version of a code gets a new dense document number, so posting lists stay sorted
+ * and can be intersected by merging; replaced or removed documents are only marked dead. A query
+ * intersects the postings of its trigrams and then checks each candidate for the real substring.
+ */
+final class QrCodeNgramIndex {
+
+    enum Order { RELEVANCE, CREATED_AT, QR_ID, DESCRIPTION }
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IntList> postings = new HashMap<>();
+    private final Map<Long, Integer> documentsById = new HashMap<>();
+    private final BitSet live = new BitSet();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private String[] qrIds = new String[INITIAL_CAPACITY];
+    private String[] descriptions = new String[INITIAL_CAPACITY];
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    private int documentCount;
+
+    static final class Result {
+        final List<Long> ids;
+        final long total;
+
+        Result(List<Long> ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+    }
+
+    /**
+     * Adds or replaces the indexed version of a QR code.
+     */
+    void upsert(long id, String qrId, String description, long createdAtMillis) {
+        String qrIdText = qrId.toLowerCase(Locale.ROOT);
+        String descriptionText = description != null ? description.toLowerCase(Locale.ROOT) : "";
+        Set<String> grams = trigrams(qrIdText);
+        grams.addAll(trigrams(descriptionText));
+
+        lock.writeLock().lock();
+        try {
+            Integer previous = documentsById.get(id);
+            if (previous != null) {
+                live.clear(previous);
+            }
+            if (documentCount - documentsById.size() > Math.max(documentsById.size(), INITIAL_CAPACITY)) {
+                compact();
+            }
+
+            int document = documentCount++;
+            if (document == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                qrIds = Arrays.copyOf(qrIds, capacity);
+                descriptions = Arrays.copyOf(descriptions, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+            }
+            ids[document] = id;
+            qrIds[document] = qrIdText;
+            descriptions[document] = descriptionText;
+            createdAt[document] = createdAtMillis;
+            live.set(document);
+            documentsById.put(id, document);
+
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, key -> new IntList()).add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer document = documentsById.remove(id);
+            if (document != null) {
+                live.clear(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Renumbers the live documents and rebuilds the postings once dead versions outnumber them.
+     */
+    private void compact() {
+        long[] oldIds = ids;
+        String[] oldQrIds = qrIds;
+        String[] oldDescriptions = descriptions;
+        long[] oldCreatedAt = createdAt;
+        int[] survivors = live.stream().toArray();
+
+        int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, survivors.length)) * 2);
+        ids = new long[capacity];
+        qrIds = new String[capacity];
+        descriptions = new String[capacity];
+        createdAt = new long[capacity];
+        postings.clear();
+        documentsById.clear();
+        live.clear();
+        documentCount = 0;
+
+        for (int old : survivors) {
+            int document = documentCount++;
+            ids[document] = oldIds[old];
+            qrIds[document] = oldQrIds[old];
+            descriptions[document] = oldDescriptions[old];
+            createdAt[document] = oldCreatedAt[old];
+            live.set(document);
+            documentsById.put(ids[document], document);
+
+            Set<String> grams = trigrams(qrIds[document]);
+            grams.addAll(trigrams(descriptions[document]));
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, key -> new IntList()).add(document);
+            }
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documentsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns one page of the ids of codes whose QR ID or description contains the term
+     * (case-insensitively), in the given order, plus the total number of matches.
+     */
+    Result search(String term, Order order, boolean ascending, int offset, int limit) {
+        String needle = term.toLowerCase(Locale.ROOT);
+
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidates(needle);
+            int[] matches = new int[candidates.length];
+            int count = 0;
+            for (int document : candidates) {
+                if (live.get(document)
+                        && (qrIds[document].contains(needle) || descriptions[document].contains(needle))) {
+                    matches[count++] = document;
+                }
+            }
+            if (offset >= count || limit <= 0) {
+                return new Result(List.of(), count);
+            }
+
+            // Only the first offset + limit matches are ever ordered, through a bounded heap
+            int wanted = (int) Math.min(count, (long) offset + limit);
+            int[] top = selectTop(matches, count, wanted, comparator(needle, matches, count, order, ascending));
+
+            List<Long> page = new ArrayList<>(wanted - offset);
+            for (int i = offset; i < wanted; i++) {
+                page.add(ids[matches[top[i]]]);
+            }
+            return new Result(page, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] candidates(String needle) {
+        Set<String> grams = trigrams(needle);
+        if (grams.isEmpty()) {
+            // Too short for trigrams: every live document is a candidate
+            return live.stream().toArray();
+        }
+
+        List<IntList> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            IntList list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] result = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Compares positions in the matches array.
+     */
+    private IntBinaryOperator comparator(String needle, int[] matches, int count, Order order, boolean ascending) {
+        IntBinaryOperator newestFirst = (a, b) -> {
+            int result = Long.compare(createdAt[matches[b]], createdAt[matches[a]]);
+            return result != 0 ? result : Long.compare(ids[matches[b]], ids[matches[a]]);
+        };
+        IntBinaryOperator comparator;
+        switch (order) {
+            case RELEVANCE:
+                // Relevance is always best first; scores are computed once per match
+                double[] scores = new double[count];
+                for (int i = 0; i < count; i++) {
+                    scores[i] = relevance(needle, matches[i]);
+                }
+                return (a, b) -> {
+                    int result = Double.compare(scores[b], scores[a]);
+                    return result != 0 ? result : newestFirst.applyAsInt(a, b);
+                };
+            case QR_ID:
+                comparator = (a, b) -> qrIds[matches[a]].compareTo(qrIds[matches[b]]);
+                break;
+            case DESCRIPTION:
+                comparator = (a, b) -> descriptions[matches[a]].compareTo(descriptions[matches[b]]);
+                break;
+            default:
+                comparator = (a, b) -> -newestFirst.applyAsInt(a, b);
+                break;
+        }
+        IntBinaryOperator directed = comparator;
+        return (a, b) -> {
+            int result = ascending ? directed.applyAsInt(a, b) : directed.applyAsInt(b, a);
+            return result != 0 ? result : newestFirst.applyAsInt(a, b);
+        };
+    }
+
+    /**
+     * Returns the positions of the first {@code wanted} matches in order, keeping only that many
+     * in a max-heap instead of sorting every match.
+     */
+    private static int[] selectTop(int[] matches, int count, int wanted, IntBinaryOperator comparator) {
+        int[] heap = new int[wanted];
+        int size = 0;
+        for (int position = 0; position < count; position++) {
+            if (size < wanted) {
+                heap[size] = position;
+                siftUp(heap, size++, comparator);
+            } else if (comparator.applyAsInt(position, heap[0]) < 0) {
+                heap[0] = position;
+                siftDown(heap, size, comparator);
+            }
+        }
+        // Pop the worst remaining into the back until the heap is empty
+        for (int last = size - 1; last > 0; last--) {
+            int worst = heap[0];
+            heap[0] = heap[last];
+            heap[last] = worst;
+            siftDown(heap, last, comparator);
+        }
+        return heap;
+    }
+
+    private static void siftUp(int[] heap, int index, IntBinaryOperator comparator) {
+        int value = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (comparator.applyAsInt(value, heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    private static void siftDown(int[] heap, int size, IntBinaryOperator comparator) {
+        int value = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && comparator.applyAsInt(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (comparator.applyAsInt(value, heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+
+    /**
+     * Share of the best matching field covered by the term, with a bonus for matches at the start
+     * of the field: an exact QR ID match ranks above a word buried in a long description.
+     */
+    private double relevance(String needle, int document) {
+        return Math.max(coverage(needle, qrIds[document]), coverage(needle, descriptions[document]));
+    }
+
+    private static double coverage(String needle, String text) {
+        int index = text.indexOf(needle);
+        if (index < 0) {
+            return 0;
+        }
+        double score = (double) needle.length() / text.length();
+        return index == 0 ? score + 1 : score;
+    }
+
+    static Set<String> trigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static int[] intersect(int[] left, IntList right) {
+        int[] result = new int[Math.min(left.length, right.size)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.size) {
+            int a = left[i];
+            int b = right.values[j];
+            if (a == b) {
+                result[count++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Growable, ascending list of document numbers.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
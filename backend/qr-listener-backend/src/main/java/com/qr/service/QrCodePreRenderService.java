@@ -0,0 +1,124 @@
+package com.qr.service;
+
+import com.qr.dto.QrCodeStyle;
+import com.qr.event.QrCodeCreatedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the commonly requested image variants of a freshly created QR code on a background
+ * pool, so the first dashboard load after a bulk creation is served from the image cache instead
+ * of rendering on request threads.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QrCodePreRenderService {
+
+    private final QrCodeGenerationService qrCodeGenerationService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${qr.prerender.enabled:false}")
+    private boolean enabled;
+
+    @Value("${qr.prerender.sizes:256,512}")
+    private List<Integer> sizes;
+
+    @Value("${qr.prerender.presets:small,large,highContrast}")
+    private List<String> presets;
+
+    @Value("${qr.prerender.threads:2}")
+    private int threads;
+
+    @Value("${qr.prerender.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private final List<QrCodeStyle> styles = new ArrayList<>();
+    private ThreadPoolExecutor executor;
+    private Timer lagTimer;
+    private Counter rejectedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            log.info("QR pre-rendering is disabled");
+            return;
+        }
+
+        // Same styles the image endpoint builds for ?size= and ?preset=, so the cache keys line up
+        for (Integer size : sizes) {
+            styles.add(QrCodeStyle.builder().size(size).format("PNG").build());
+        }
+        for (String preset : presets) {
+            styles.add(QrCodeStyle.preset(preset));
+        }
+
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("qr-prerender-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        lagTimer = Timer.builder("qr.prerender.lag")
+                .description("Time from QR code commit until all pre-rendered variants are cached")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("qr.prerender.rejected")
+                .description("Pre-render jobs dropped because the queue was full")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("qr.prerender.failed").register(meterRegistry);
+        Gauge.builder("qr.prerender.queue.size", executor, e -> e.getQueue().size()).register(meterRegistry);
+
+        log.info("QR pre-rendering enabled for {} styles with {} threads", styles.size(), threads);
+    }
+
+    @TransactionalEventListener
+    public void onQrCodeCreated(QrCodeCreatedEvent event) {
+        if (executor == null) {
+            return;
+        }
+
+        long committedAt = System.nanoTime();
+        try {
+            executor.execute(() -> preRender(event.getQrId(), committedAt));
+        } catch (RejectedExecutionException e) {
+            // Dropping is safe: the image endpoint still renders lazily on a cache miss
+            rejectedCounter.increment();
+            log.warn("Pre-render queue full, skipping QR code: {}", event.getQrId());
+        }
+    }
+
+    private void preRender(String qrId, long committedAt) {
+        try {
+            for (QrCodeStyle style : styles) {
+                qrCodeGenerationService.preRenderQrCodeImage(qrId, style);
+            }
+            lagTimer.record(System.nanoTime() - committedAt, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.error("Failed to pre-render QR code: {}", qrId, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
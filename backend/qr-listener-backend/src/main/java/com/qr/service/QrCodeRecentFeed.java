@@ -0,0 +1,127 @@
+package com.qr.service;
+
+import com.qr.dto.QrCodeSummary;
+import com.qr.event.QrCodeCreatedEvent;
+import com.qr.event.QrCodeUpdatedEvent;
+import com.qr.event.QrCodesBulkUpdatedEvent;
+import com.qr.event.QrCodesImportedEvent;
+import com.qr.repository.QrCodeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The newest active QR codes, for the dashboard's recent list.
+ *
+ * Keeps a ring of the latest {@code qr.recent.capacity} codes, loaded with one bounded query on
+ * first read and then extended from creation events, which carry the new row, so most reads and
+ * all creations need no database access. Updates and deletes
+ * drop the ring, and it expires after {@code qr.recent.ttl} so codes created by other instances
+ * show up too.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QrCodeRecentFeed {
+
+    private static final Comparator<QrCodeSummary> NEWEST_FIRST = Comparator.comparing(QrCodeSummary::getCreatedAt)
+            .thenComparing(QrCodeSummary::getId)
+            .reversed();
+
+    private final QrCodeRepository qrCodeRepository;
+
+    @Value("${qr.recent.capacity:50}")
+    private int capacity;
+
+    @Value("${qr.recent.ttl:30s}")
+    private Duration ttl;
+
+    private final Object lock = new Object();
+    // Newest first; null until loaded or after an invalidation
+    private List<QrCodeSummary> latest;
+    private long loadedAt;
+    // Bumped by every event, so a load that raced with one is not kept
+    private long version;
+
+    /**
+     * Returns up to {@code limit} of the newest active codes, newest first.
+     */
+    public List<QrCodeSummary> recent(int limit) {
+        if (limit > capacity) {
+            return qrCodeRepository.findActiveNewest(Limit.of(limit));
+        }
+
+        long loadVersion;
+        synchronized (lock) {
+            if (latest != null && System.nanoTime() - loadedAt < ttl.toNanos()) {
+                return List.copyOf(latest.subList(0, Math.min(limit, latest.size())));
+            }
+            loadVersion = version;
+        }
+
+        List<QrCodeSummary> loaded = qrCodeRepository.findActiveNewest(Limit.of(capacity));
+        synchronized (lock) {
+            if (version == loadVersion) {
+                latest = new ArrayList<>(loaded);
+                loadedAt = System.nanoTime();
+            }
+        }
+        return loaded.subList(0, Math.min(limit, loaded.size()));
+    }
+
+    @TransactionalEventListener
+    public void onQrCodeCreated(QrCodeCreatedEvent event) {
+        QrCodeSummary qrCode = event.getSummary();
+        synchronized (lock) {
+            version++;
+            if (latest == null || qrCode == null || !qrCode.getIsActive()) {
+                return;
+            }
+            // Transactions can commit out of creation order, so insert in place rather than at the front
+            int index = 0;
+            while (index < latest.size() && NEWEST_FIRST.compare(latest.get(index), qrCode) < 0) {
+                index++;
+            }
+            if (index < capacity) {
+                latest.add(index, qrCode);
+                if (latest.size() > capacity) {
+                    latest.remove(latest.size() - 1);
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onQrCodeUpdated(QrCodeUpdatedEvent event) {
+        synchronized (lock) {
+            version++;
+            // A deleted code leaves a gap only the database can fill
+            latest = null;
+        }
+    }
+
+    @TransactionalEventListener
+    public void onQrCodesBulkUpdated(QrCodesBulkUpdatedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener
+    public void onQrCodesImported(QrCodesImportedEvent event) {
+        invalidate();
+    }
+
+    private void invalidate() {
+        synchronized (lock) {
+            version++;
+            latest = null;
+        }
+    }
+}
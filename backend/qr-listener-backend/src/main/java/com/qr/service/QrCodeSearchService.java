@@ -0,0 +1,264 @@
+package com.qr.service;
+
+import com.qr.dto.QrCodeSearchRequest;
+import com.qr.dto.QrCodeSummary;
+import com.qr.event.QrCodeCreatedEvent;
+import com.qr.event.QrCodeUpdatedEvent;
+import com.qr.event.QrCodesBulkUpdatedEvent;
+import com.qr.event.QrCodesImportedEvent;
+import com.qr.repository.QrCodeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Substring search over QR IDs and descriptions of active QR codes.
+ *
+ * With pg_trgm available, GIN trigram indexes on lower(qr_id) and lower(description) serve the
+ * LIKE '%term%' predicates and results are ranked by word similarity. Without it, an in-memory
+ * trigram index is loaded at startup and kept in sync from create/update events. Until either is
+ * ready (or with mode "like") the plain LIKE query is used. Searches combined with other filters
+ * always go to the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QrCodeSearchService {
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final Set<String> SORTABLE = Set.of(
+            "id", "qrId", "targetUrl", "description", "createdBy", "createdAt", "updatedAt");
+
+    enum Mode { TRIGRAM, MEMORY, LIKE }
+
+    private final QrCodeRepository qrCodeRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // auto, trigram, memory or like
+    @Value("${qr.search.mode:auto}")
+    private String configuredMode;
+
+    private final QrCodeNgramIndex index = new QrCodeNgramIndex();
+    private volatile Mode mode = Mode.LIKE;
+    private volatile boolean indexLoaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void init() {
+        String requested = configuredMode.toLowerCase(Locale.ROOT);
+        if (requested.equals("like")) {
+            log.info("QR code search uses plain LIKE queries");
+            return;
+        }
+
+        if (!requested.equals("memory") && hasTrigramIndexes()) {
+            mode = Mode.TRIGRAM;
+            log.info("QR code search uses pg_trgm indexes");
+            return;
+        }
+        if (requested.equals("trigram")) {
+            log.error("pg_trgm is not available; QR code search falls back to plain LIKE queries");
+            return;
+        }
+
+        mode = Mode.MEMORY;
+        // Loading 1M rows takes a while; LIKE serves searches in the meantime
+        new CustomizableThreadFactory("qr-search-index-").newThread(this::loadIndex).start();
+    }
+
+    /**
+     * Codes matching every filter of the request, with the search term matched as a substring of the
+     * QR ID or description. An unsorted pageable returns the best matches first when there is a term.
+     */
+    public Page<QrCodeSummary> search(QrCodeSearchRequest filter, Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot sort by: " + order.getProperty());
+            }
+        }
+        String term = filter.getSearch() != null ? filter.getSearch().trim() : "";
+
+        // The in-memory index only knows active codes and their text, so it serves plain term searches
+        if (mode == Mode.MEMORY && indexLoaded && !term.isEmpty() && isTermOnly(filter)) {
+            Page<QrCodeSummary> page = searchIndex(term, pageable);
+            if (page != null) {
+                return page;
+            }
+        }
+
+        // With pg_trgm the LIKE predicates are index scans and can be ranked by similarity
+        return qrCodeRepository.findSummaries(filter, pageable, mode == Mode.TRIGRAM);
+    }
+
+    private static boolean isTermOnly(QrCodeSearchRequest filter) {
+        return (filter.getIsActive() == null || filter.getIsActive())
+                && (filter.getCreatedBy() == null || filter.getCreatedBy().trim().isEmpty())
+                && filter.getApplicationId() == null
+                && filter.getCreatedFrom() == null
+                && filter.getCreatedTo() == null;
+    }
+
+    private Page<QrCodeSummary> searchIndex(String term, Pageable pageable) {
+        QrCodeNgramIndex.Order order = QrCodeNgramIndex.Order.RELEVANCE;
+        boolean ascending = false;
+        Sort.Order sortOrder = pageable.getSort().stream().findFirst().orElse(null);
+        if (sortOrder != null) {
+            switch (sortOrder.getProperty()) {
+                case "createdAt":
+                    order = QrCodeNgramIndex.Order.CREATED_AT;
+                    break;
+                case "qrId":
+                    order = QrCodeNgramIndex.Order.QR_ID;
+                    break;
+                case "description":
+                    order = QrCodeNgramIndex.Order.DESCRIPTION;
+                    break;
+                default:
+                    // Not kept in the index; let the database sort
+                    return null;
+            }
+            ascending = sortOrder.isAscending();
+        }
+
+        QrCodeNgramIndex.Result result = index.search(term, order, ascending,
+                (int) pageable.getOffset(), pageable.getPageSize());
+
+        Map<Long, QrCodeSummary> byId = new HashMap<>();
+        for (QrCodeSummary qrCode : qrCodeRepository.findSummariesByIdIn(result.ids)) {
+            byId.put(qrCode.getId(), qrCode);
+        }
+        List<QrCodeSummary> content = new ArrayList<>(result.ids.size());
+        for (Long id : result.ids) {
+            QrCodeSummary qrCode = byId.get(id);
+            // Skip rows changed since they were indexed; the update event is on its way
+            if (qrCode != null && qrCode.getIsActive()) {
+                content.add(qrCode);
+            }
+        }
+        return new PageImpl<>(content, pageable, result.total);
+    }
+
+    @TransactionalEventListener
+    public void onQrCodeCreated(QrCodeCreatedEvent event) {
+        refresh(event.getId());
+    }
+
+    @TransactionalEventListener
+    public void onQrCodeUpdated(QrCodeUpdatedEvent event) {
+        refresh(event.getId());
+    }
+
+    @TransactionalEventListener
+    public void onQrCodesBulkUpdated(QrCodesBulkUpdatedEvent event) {
+        if (mode != Mode.MEMORY) {
+            return;
+        }
+        try {
+            // One query per chunk rather than a findById per code
+            Set<Long> stale = new HashSet<>(event.getIds());
+            for (QrCodeSummary qrCode : qrCodeRepository.findSummariesByIdIn(event.getIds())) {
+                if (qrCode.getIsActive()) {
+                    stale.remove(qrCode.getId());
+                    long createdAt = qrCode.getCreatedAt() != null
+                            ? qrCode.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+                    index.upsert(qrCode.getId(), qrCode.getQrId(), qrCode.getDescription(), createdAt);
+                }
+            }
+            stale.forEach(index::remove);
+        } catch (RuntimeException e) {
+            log.error("Failed to update search index for {} bulk-updated QR codes", event.getIds().size(), e);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onQrCodesImported(QrCodesImportedEvent event) {
+        if (mode != Mode.MEMORY || event.getInserted() + event.getUpdated() == 0) {
+            return;
+        }
+        // Too many rows to patch one by one; reloading upserts every active code, the index stays usable meanwhile
+        new CustomizableThreadFactory("qr-search-index-").newThread(this::loadIndex).start();
+    }
+
+    private void refresh(Long id) {
+        if (mode != Mode.MEMORY) {
+            return;
+        }
+        try {
+            // Re-read the committed row, so the index never holds uncommitted state
+            qrCodeRepository.findById(id).ifPresentOrElse(qrCode -> {
+                if (qrCode.getIsActive()) {
+                    long createdAt = qrCode.getCreatedAt() != null
+                            ? qrCode.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+                    index.upsert(qrCode.getId(), qrCode.getQrId(), qrCode.getDescription(), createdAt);
+                } else {
+                    index.remove(qrCode.getId());
+                }
+            }, () -> index.remove(id));
+        } catch (RuntimeException e) {
+            log.error("Failed to update search index for QR code: {}", id, e);
+        }
+    }
+
+    // Created by migration V3 where pg_trgm is available
+    private boolean hasTrigramIndexes() {
+        try {
+            Integer found = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_indexes "
+                    + "WHERE schemaname = current_schema() AND tablename = 'qr_codes' "
+                    + "AND indexname IN ('idx_qr_codes_qr_id_trgm', 'idx_qr_codes_description_trgm')", Integer.class);
+            return found != null && found == 2;
+        } catch (DataAccessException e) {
+            log.warn("Could not look up pg_trgm indexes: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void loadIndex() {
+        long started = System.nanoTime();
+        try {
+            // Keyset pagination by id: constant cost per batch however far into the table
+            long lastId = 0;
+            while (true) {
+                List<Long> batch = jdbcTemplate.query(
+                        "SELECT id, qr_id, description, created_at FROM qr_codes "
+                                + "WHERE is_active = true AND id > ? ORDER BY id LIMIT ?",
+                        (rs, rowNum) -> {
+                            Timestamp createdAt = rs.getTimestamp("created_at");
+                            long id = rs.getLong("id");
+                            index.upsert(id, rs.getString("qr_id"), rs.getString("description"),
+                                    createdAt != null ? createdAt.toLocalDateTime().toInstant(ZoneOffset.UTC).toEpochMilli() : 0L);
+                            return id;
+                        },
+                        lastId, LOAD_BATCH_SIZE);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1);
+            }
+            indexLoaded = true;
+            log.info("Loaded {} QR codes into the in-memory search index in {} ms",
+                    index.size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Failed to load the in-memory search index; search stays on LIKE queries", e);
+        }
+    }
+}
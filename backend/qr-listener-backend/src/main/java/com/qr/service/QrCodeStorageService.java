@@ -1,143 +1,244 @@
 package com.qr.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+/**
+ * Content-addressed on-disk cache for rendered images.
+ *
+ * Entries are addressed by a hash of (owner, variant) - for QR codes the qrId and the normalized
+ * style - and laid out as {@code <namespace>/<aa>/<bb>/<ownerHash>-<variantHash>}, so all variants
+ * of one owner share a directory and can be dropped together. Files are written atomically and
+ * evicted least-recently-used once the total size exceeds the configured budget. The index is
+ * rebuilt from disk at startup, so cached images survive restarts.
+ */
 @Service
 @Slf4j
 public class QrCodeStorageService {
 
-    @Value("${qr.storage.type:local}")
-    private String storageType;
+    public static final String NAMESPACE_QR = "qr";
 
-    @Value("${qr.storage.path:./storage/qr-codes}")
-    private String storagePath;
+    private static final String TEMP_SUFFIX = ".tmp";
 
-    @Value("${qr.storage.base-url:http://localhost:8082/api/qr/images}")
-    private String baseUrl;
+    private final Path root;
+    private final long maxBytes;
 
-    public String saveQrCode(String qrId, byte[] qrImageData) {
-        log.info("Saving QR code image for ID: {}", qrId);
-        
-        String fileName = generateFileName(qrId);
-        String filePath = buildFilePath(fileName);
-        
-        try {
-            switch (storageType) {
-                case "local":
-                    return saveToLocalFileSystem(filePath, qrImageData);
-                case "s3":
-                    return saveToS3(fileName, qrImageData);
-                case "database":
-                    return saveToDatabase(qrId, qrImageData);
-                default:
-                    throw new IllegalArgumentException("Unsupported storage type: " + storageType);
+    // Access-ordered: iteration starts at the least recently used file
+    private final LinkedHashMap<Path, Long> index = new LinkedHashMap<>(1024, 0.75f, true);
+    private long currentBytes;
+
+    public QrCodeStorageService(
+            @Value("${qr.storage.path:./storage/qr-codes}") String storagePath,
+            @Value("${qr.storage.max-size:1GB}") DataSize maxSize,
+            MeterRegistry meterRegistry) {
+        this.root = Paths.get(storagePath).toAbsolutePath().normalize();
+        this.maxBytes = maxSize.toBytes();
+        Gauge.builder("qr.storage.bytes", this, QrCodeStorageService::currentBytes).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(root);
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(Files::isRegularFile).forEach(files::add);
+        }
+
+        List<Map.Entry<Path, BasicFileAttributes>> entries = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                // Left behind by a write interrupted before its atomic move
+                Files.deleteIfExists(file);
+                continue;
             }
-        } catch (Exception e) {
-            log.error("Failed to save QR code image for ID: {}", qrId, e);
-            throw new RuntimeException("Failed to save QR code image", e);
+            entries.add(Map.entry(file, Files.readAttributes(file, BasicFileAttributes.class)));
         }
+
+        // Rebuild the LRU order from modification times, oldest first
+        entries.sort(Comparator.comparing(e -> e.getValue().lastModifiedTime()));
+        List<Path> evicted;
+        synchronized (this) {
+            for (Map.Entry<Path, BasicFileAttributes> entry : entries) {
+                index.put(entry.getKey(), entry.getValue().size());
+                currentBytes += entry.getValue().size();
+            }
+            evicted = evictIfNeeded();
+        }
+        deleteFiles(evicted);
+
+        log.info("QR image storage at {} holds {} files ({} bytes)", root, index.size(), currentBytes);
     }
 
-    public byte[] getQrCodeImage(String qrId) {
-        log.debug("Retrieving QR code image for ID: {}", qrId);
-        
-        String fileName = generateFileName(qrId);
-        String filePath = buildFilePath(fileName);
-        
-        try {
-            Path path = Paths.get(storagePath, filePath);
-            if (Files.exists(path)) {
-                return Files.readAllBytes(path);
-            } else {
-                log.warn("QR code image not found for ID: {}", qrId);
+    /**
+     * @param variant everything besides the qrId the image's bytes depend on (style, base URL)
+     */
+    public Resource getQrCodeImage(String qrId, String variant) {
+        return get(NAMESPACE_QR, qrId, variant);
+    }
+
+    public void saveQrCodeImage(String qrId, String variant, byte[] imageData) {
+        save(NAMESPACE_QR, qrId, variant, imageData);
+    }
+
+    public void deleteQrCodeImages(String qrId) {
+        delete(NAMESPACE_QR, qrId);
+    }
+
+    /**
+     * Returns the stored entry as a file resource, or null when it is not cached. The bytes are
+     * never loaded onto the heap here: the file is only opened when the response is written, each
+     * read opens its own stream (so range requests can read it more than once), and the resource
+     * exposes the file itself for containers that can send it directly. The lookup marks the
+     * entry most recently used, so an eviction would have to cycle through the whole budget
+     * before the response is written to unlink it.
+     */
+    public Resource get(String namespace, String owner, String variant) {
+        Path path = resolve(namespace, owner, variant);
+        synchronized (this) {
+            Long size = index.get(path);
+            if (size == null) {
+                return null;
+            }
+            if (!Files.isRegularFile(path)) {
+                // Unlinked by an eviction racing a rewrite of the same entry
+                index.remove(path);
+                currentBytes -= size;
                 return null;
             }
-        } catch (IOException e) {
-            log.error("Failed to read QR code image for ID: {}", qrId, e);
-            throw new RuntimeException("Failed to read QR code image", e);
         }
+        return new FileSystemResource(path);
     }
 
-    public String getQrCodeImageUrl(String qrId) {
-        String fileName = generateFileName(qrId);
-        return baseUrl + "/" + fileName;
-    }
+    public void save(String namespace, String owner, String variant, byte[] data) {
+        if (data.length > maxBytes) {
+            return;
+        }
 
-    public boolean deleteQrCodeImage(String qrId) {
-        log.info("Deleting QR code image for ID: {}", qrId);
-        
-        String fileName = generateFileName(qrId);
-        String filePath = buildFilePath(fileName);
-        
+        Path path = resolve(namespace, owner, variant);
         try {
-            Path path = Paths.get(storagePath, filePath);
-            if (Files.exists(path)) {
-                Files.delete(path);
-                log.info("Successfully deleted QR code image for ID: {}", qrId);
-                return true;
-            } else {
-                log.warn("QR code image not found for deletion: {}", qrId);
-                return false;
+            Files.createDirectories(path.getParent());
+
+            // Write next to the target and rename, so readers never see a partial file
+            Path temp = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+            Files.write(temp, data);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Failed to store image {}/{} ({})", namespace, owner, variant, e);
+            return;
+        }
+
+        List<Path> evicted;
+        synchronized (this) {
+            Long previous = index.put(path, (long) data.length);
+            if (previous != null) {
+                currentBytes -= previous;
+            }
+            currentBytes += data.length;
+            evicted = evictIfNeeded();
+        }
+        deleteFiles(evicted);
+    }
+
+    /**
+     * Removes every stored variant of the given owner.
+     */
+    public void delete(String namespace, String owner) {
+        String ownerHash = hash(owner);
+        Path directory = shardDirectory(namespace, ownerHash);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, ownerHash + "-*")) {
+            for (Path path : stream) {
+                Files.deleteIfExists(path);
+                synchronized (this) {
+                    Long size = index.remove(path);
+                    if (size != null) {
+                        currentBytes -= size;
+                    }
+                }
             }
         } catch (IOException e) {
-            log.error("Failed to delete QR code image for ID: {}", qrId, e);
-            return false;
+            log.error("Failed to delete stored images for {}/{}", namespace, owner, e);
         }
     }
 
-    private String generateFileName(String qrId) {
-        return qrId + ".png";
+    /**
+     * Drops least recently used entries from the index until it fits the budget again and
+     * returns their files, which the caller deletes after leaving the monitor.
+     */
+    private List<Path> evictIfNeeded() {
+        List<Path> evicted = new ArrayList<>();
+        Iterator<Map.Entry<Path, Long>> eldest = index.entrySet().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<Path, Long> entry = eldest.next();
+            evicted.add(entry.getKey());
+            currentBytes -= entry.getValue();
+            eldest.remove();
+        }
+        return evicted;
     }
 
-    private String buildFilePath(String fileName) {
-        LocalDate now = LocalDate.now();
-        return String.format("%d/%02d/%s", 
-            now.getYear(), 
-            now.getMonthValue(), 
-            fileName);
+    private void deleteFiles(List<Path> paths) {
+        for (Path path : paths) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Failed to evict stored image: {}", path, e);
+            }
+        }
     }
 
-    private String saveToLocalFileSystem(String filePath, byte[] qrImageData) throws IOException {
-        Path fullPath = Paths.get(storagePath, filePath);
-        
-        // Create directory if it doesn't exist
-        Files.createDirectories(fullPath.getParent());
-        
-        // Write file
-        Files.write(fullPath, qrImageData);
-        
-        log.info("QR code image saved to: {}", fullPath);
-        return baseUrl + "/" + filePath;
+    private Path resolve(String namespace, String owner, String variant) {
+        String ownerHash = hash(owner);
+        return shardDirectory(namespace, ownerHash).resolve(ownerHash + "-" + hash(variant));
     }
 
-    private String saveToS3(String fileName, byte[] qrImageData) {
-        // TODO: Implement S3 storage
-        log.warn("S3 storage not implemented yet, falling back to local storage");
-        try {
-            return saveToLocalFileSystem(fileName, qrImageData);
-        } catch (IOException e) {
-            log.error("Failed to save to local filesystem", e);
-            return null;
-        }
+    private Path shardDirectory(String namespace, String ownerHash) {
+        return root.resolve(namespace)
+                .resolve(ownerHash.substring(0, 2))
+                .resolve(ownerHash.substring(2, 4));
     }
 
-    private String saveToDatabase(String qrId, byte[] qrImageData) {
-        // TODO: Implement database storage
-        log.warn("Database storage not implemented yet, falling back to local storage");
+    private static String hash(String value) {
         try {
-            return saveToLocalFileSystem(qrId + ".png", qrImageData);
-        } catch (IOException e) {
-            log.error("Failed to save to local filesystem", e);
-            return null;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
+
+    private synchronized double currentBytes() {
+        return currentBytes;
+    }
 }
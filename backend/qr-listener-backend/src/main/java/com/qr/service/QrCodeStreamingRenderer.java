@@ -0,0 +1,175 @@
+package com.qr.service;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Renders QR codes as 1-bit grayscale PNGs one scanline at a time.
+ *
+ * Only the module matrix (a few thousand cells) and a single output scanline are held in memory,
+ * so peak memory does not depend on the requested size. The layout matches ZXing's
+ * {@code QRCodeWriter} for the same error correction and quiet zone, so large images rendered
+ * here look the same as the ones rendered through the regular path.
+ */
+@Component
+public class QrCodeStreamingRenderer {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IDAT_CHUNK_SIZE = 64 * 1024;
+
+    public void writePng(String contents, int size, ErrorCorrectionLevel errorCorrection, int quietZone,
+                         OutputStream out) throws IOException {
+        ByteMatrix modules;
+        try {
+            modules = Encoder.encode(contents, errorCorrection).getMatrix();
+        } catch (WriterException e) {
+            throw new IOException("Failed to encode QR code", e);
+        }
+
+        int inputWidth = modules.getWidth();
+        int qrWidth = inputWidth + quietZone * 2;
+        int outputWidth = Math.max(size, qrWidth);
+        int multiple = outputWidth / qrWidth;
+        int padding = (outputWidth - inputWidth * multiple) / 2;
+
+        out.write(PNG_SIGNATURE);
+        writeHeader(out, outputWidth);
+
+        // Scanline layout: one filter byte (0 = none) followed by the packed 1-bit pixels, 1 = white
+        int rowBytes = 1 + (outputWidth + 7) / 8;
+        byte[] blankRow = new byte[rowBytes];
+        Arrays.fill(blankRow, 1, rowBytes, (byte) 0xFF);
+        byte[] moduleRow = new byte[rowBytes];
+        int builtModuleRow = -1;
+
+        IdatOutputStream idat = new IdatOutputStream(out);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream deflated = new DeflaterOutputStream(idat, deflater, 8192)) {
+            for (int y = 0; y < outputWidth; y++) {
+                int moduleY = y - padding;
+                if (moduleY < 0 || moduleY >= inputWidth * multiple) {
+                    deflated.write(blankRow);
+                    continue;
+                }
+
+                // Consecutive output rows of the same module row share one scanline
+                int matrixY = moduleY / multiple;
+                if (matrixY != builtModuleRow) {
+                    buildRow(modules, matrixY, multiple, padding, moduleRow);
+                    builtModuleRow = matrixY;
+                }
+                deflated.write(moduleRow);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        writeChunk(out, "IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    private static void buildRow(ByteMatrix modules, int matrixY, int multiple, int padding, byte[] row) {
+        Arrays.fill(row, 1, row.length, (byte) 0xFF);
+        for (int matrixX = 0; matrixX < modules.getWidth(); matrixX++) {
+            if (modules.get(matrixX, matrixY) != 1) {
+                continue;
+            }
+            int start = padding + matrixX * multiple;
+            for (int x = start; x < start + multiple; x++) {
+                row[1 + (x >> 3)] &= (byte) ~(0x80 >>> (x & 7));
+            }
+        }
+    }
+
+    private static void writeHeader(OutputStream out, int width) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        writeInt(header, width);
+        writeInt(header, width);
+        header.write(1); // bit depth
+        header.write(0); // color type: grayscale
+        header.write(0); // compression: deflate
+        header.write(0); // filter method
+        header.write(0); // interlace: none
+        writeChunk(out, "IHDR", header.toByteArray(), header.size());
+    }
+
+    private static void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+
+        writeInt(out, length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    /**
+     * Splits the compressed stream into fixed-size IDAT chunks as it is produced.
+     */
+    private static final class IdatOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[IDAT_CHUNK_SIZE];
+        private int count;
+
+        private IdatOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flushChunk();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        // Closing emits the last chunk but leaves the response stream open for IEND
+        @Override
+        public void close() throws IOException {
+            if (count > 0) {
+                flushChunk();
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            writeChunk(out, "IDAT", buffer, count);
+            count = 0;
+        }
+    }
+}
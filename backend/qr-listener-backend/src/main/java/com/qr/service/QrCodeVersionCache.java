@@ -0,0 +1,59 @@
+package com.qr.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the version (last modification time) of recently seen active QR codes, so image
+ * revalidations can be answered without going to the database. An entry means "active at this
+ * version"; it is dropped after commit whenever the code is modified or deactivated, and expires
+ * after {@code qr.version-cache.ttl} so changes made on other instances are picked up too.
+ */
+@Component
+public class QrCodeVersionCache {
+
+    private final Map<String, Entry> versions;
+    private final long ttlNanos;
+
+    public QrCodeVersionCache(@Value("${qr.version-cache.max-entries:100000}") int maxEntries,
+                              @Value("${qr.version-cache.ttl:60s}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.versions = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized Long get(String qrId) {
+        Entry entry = versions.get(qrId);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.loadedAt() >= ttlNanos) {
+            versions.remove(qrId);
+            return null;
+        }
+        return entry.version();
+    }
+
+    public synchronized void put(String qrId, long version) {
+        versions.put(qrId, new Entry(version, System.nanoTime()));
+    }
+
+    public synchronized void evict(String qrId) {
+        versions.remove(qrId);
+    }
+
+    public synchronized void clear() {
+        versions.clear();
+    }
+
+    private record Entry(long version, long loadedAt) {
+    }
+}
@@ -0,0 +1,118 @@
+package com.qr.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental RFC 4180 CSV reader: one record at a time, quoted fields may contain commas,
+ * quotes ("") and line breaks. Fields longer than {@code maxFieldLength} are cut one character
+ * past the limit, so an oversized field can still be rejected but never fills the heap.
+ */
+final class QrCsvReader {
+
+    private final Reader reader;
+    private final int maxFieldLength;
+    private final StringBuilder field = new StringBuilder();
+    private long line = 1;
+    private long recordLine;
+    private int pushedBack = -2;
+
+    QrCsvReader(Reader reader, int maxFieldLength) {
+        this.reader = reader;
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    /**
+     * Line number the record last returned by {@link #next()} started on.
+     */
+    long recordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Returns the fields of the next record, or null at the end of input. Empty lines are skipped.
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            c = skipLineBreak(c);
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>(4);
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    // Unterminated quote: take what there is
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                fields.add(field.toString());
+                if (c != -1) {
+                    pushBack(skipLineBreak(c));
+                }
+                return fields;
+            } else {
+                append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private void append(char c) {
+        if (field.length() <= maxFieldLength) {
+            field.append(c);
+        }
+    }
+
+    // Consumes \n, \r or \r\n and returns the character after it
+    private int skipLineBreak(int c) throws IOException {
+        line++;
+        int following = read();
+        if (c == '\r' && following == '\n') {
+            following = read();
+        }
+        return following;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void pushBack(int c) {
+        pushedBack = c;
+    }
+}
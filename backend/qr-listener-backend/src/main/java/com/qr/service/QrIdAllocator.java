@@ -0,0 +1,154 @@
+package com.qr.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Allocates QR ID suffixes without touching the database per ID.
+ *
+ * Numeric ranges are leased in blocks from a Postgres sequence (safe across instances, since
+ * nextval is never handed out twice) and every counter value is mapped through a keyed Feistel
+ * permutation over the 8-character base-36 space, so consecutive IDs do not look sequential.
+ * The permutation is a bijection, which makes the suffixes unique by construction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QrIdAllocator {
+
+    static final int SUFFIX_LENGTH = 8;
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String SEQUENCE_NAME = "qr_id_block_seq";
+    private static final int ROUNDS = 6;
+
+    // 36^4: each Feistel half holds four base-36 digits, so the full domain is exactly 36^8
+    private static final long HALF_DOMAIN = 1_679_616L;
+    private static final long DOMAIN = HALF_DOMAIN * HALF_DOMAIN;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${qr.id.block-size:1000}")
+    private int blockSize;
+
+    // Changing the secret after IDs have been issued re-shuffles the mapping; keep it stable
+    @Value("${qr.id.secret:}")
+    private String secret;
+
+    private long[] roundKeys;
+    private long next;
+    private long limit;
+
+    @PostConstruct
+    void init() {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("qr.id.secret is not set; provide it through QR_ID_SECRET");
+        }
+        roundKeys = deriveRoundKeys(secret);
+
+        // The sequence is created by migration V9. The ranges must follow the sequence's real
+        // increment, not the configured one, otherwise a changed block size would let two
+        // instances lease overlapping ranges
+        Long increment = jdbcTemplate.queryForObject(
+                "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?",
+                Long.class, SEQUENCE_NAME);
+        if (increment != null && increment != blockSize) {
+            log.warn("Sequence {} increments by {}, ignoring configured block size {}",
+                    SEQUENCE_NAME, increment, blockSize);
+            blockSize = increment.intValue();
+        }
+    }
+
+    /**
+     * Returns the next 8-character [A-Z0-9] suffix. Suffixes are unique across all prefixes.
+     */
+    public synchronized String nextSuffix() {
+        while (true) {
+            if (next >= limit) {
+                leaseBlock();
+            }
+            String suffix = encode(permute(next++));
+            // Legacy IDs used the first 8 hex digits of a UUID; skipping the all-hex images keeps
+            // the new IDs disjoint from them (about 0.2% of the space)
+            if (!isHexOnly(suffix)) {
+                return suffix;
+            }
+        }
+    }
+
+    private void leaseBlock() {
+        Long start = jdbcTemplate.queryForObject("SELECT nextval('" + SEQUENCE_NAME + "')", Long.class);
+        if (start == null || start + blockSize > DOMAIN) {
+            throw new IllegalStateException("QR ID space exhausted");
+        }
+        next = start;
+        limit = start + blockSize;
+        log.debug("Leased QR ID block [{}, {})", next, limit);
+    }
+
+    long permute(long value) {
+        return permute(value, roundKeys, HALF_DOMAIN);
+    }
+
+    static long permute(long value, long[] roundKeys, long halfDomain) {
+        long left = value / halfDomain;
+        long right = value % halfDomain;
+        for (long key : roundKeys) {
+            long mixed = (left + Math.floorMod(mix(right ^ key), halfDomain)) % halfDomain;
+            left = right;
+            right = mixed;
+        }
+        return left * halfDomain + right;
+    }
+
+    static String encode(long value) {
+        char[] chars = new char[SUFFIX_LENGTH];
+        for (int i = SUFFIX_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (value % 36));
+            value /= 36;
+        }
+        return new String(chars);
+    }
+
+    static boolean isHexOnly(String suffix) {
+        for (int i = 0; i < suffix.length(); i++) {
+            char c = suffix.charAt(i);
+            if (c > 'F') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long[] deriveRoundKeys(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long seed = buffer.getLong() ^ buffer.getLong() ^ buffer.getLong() ^ buffer.getLong();
+            long[] keys = new long[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++) {
+                seed += 0x9E3779B97F4A7C15L;
+                keys[i] = mix(seed);
+            }
+            return keys;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
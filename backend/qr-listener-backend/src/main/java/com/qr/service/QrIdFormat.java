@@ -0,0 +1,39 @@
+package com.qr.service;
+
+import java.util.regex.Pattern;
+
+/**
+ * The QR ID format shared by everything that creates or resolves QR codes: generated IDs
+ * ({@code [PREFIX-]SUFFIX}), IDs imported from other vendors, and the redirect endpoint, so no
+ * code can be created that the redirect would refuse.
+ */
+public final class QrIdFormat {
+
+    public static final int MAX_LENGTH = 100;
+
+    // Characters that need no escaping in a URL or query string
+    public static final String PATTERN = "[A-Za-z0-9._~-]{1," + MAX_LENGTH + "}";
+
+    // Generated IDs are the prefix, '-' and an allocated suffix, within MAX_LENGTH
+    public static final String PREFIX_PATTERN = "[A-Za-z0-9._~-]{0,20}";
+
+    private static final Pattern ID = Pattern.compile(PATTERN);
+    private static final Pattern ALLOCATED = Pattern.compile("(?:.*-)?([0-9A-Z]{" + QrIdAllocator.SUFFIX_LENGTH + "})");
+
+    private QrIdFormat() {
+    }
+
+    public static boolean isValid(String qrId) {
+        return qrId != null && ID.matcher(qrId).matches();
+    }
+
+    /**
+     * Whether the ID has the shape of one {@link QrIdAllocator} issues: an optional prefix and
+     * an 8-character [0-9A-Z] suffix that is not all hex digits (those are legacy IDs, which the
+     * allocator skips). Such IDs may still be issued later, so they cannot be created otherwise.
+     */
+    public static boolean isAllocatorFormat(String qrId) {
+        var matcher = ALLOCATED.matcher(qrId);
+        return matcher.matches() && !QrIdAllocator.isHexOnly(matcher.group(1));
+    }
+}
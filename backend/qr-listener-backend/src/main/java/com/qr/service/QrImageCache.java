@@ -0,0 +1,84 @@
+package com.qr.service;
+
+import com.qr.dto.QrCodeStyle;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory LRU cache of rendered QR images, bounded by the total number of image bytes held.
+ */
+@Component
+@Slf4j
+public class QrImageCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+
+    public QrImageCache(@Value("${qr.image-cache.max-size:64MB}") DataSize maxSize, MeterRegistry meterRegistry) {
+        this.maxBytes = maxSize.toBytes();
+        Gauge.builder("qr.image.cache.bytes", this, QrImageCache::currentBytes).register(meterRegistry);
+        Gauge.builder("qr.image.cache.entries", this, QrImageCache::size).register(meterRegistry);
+    }
+
+    public static String key(String qrId, QrCodeStyle style) {
+        return qrId + "#" + style.cacheKey();
+    }
+
+    public synchronized byte[] get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized void put(String key, byte[] image) {
+        if (image.length > maxBytes) {
+            return;
+        }
+        byte[] previous = entries.put(key, image);
+        if (previous != null) {
+            currentBytes -= previous.length;
+        }
+        currentBytes += image.length;
+
+        Iterator<byte[]> eldest = entries.values().iterator();
+        while (currentBytes > maxBytes && eldest.hasNext()) {
+            currentBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Drops every cached rendering of the given QR code, whatever its style.
+     */
+    public synchronized void evict(String qrId) {
+        String prefix = qrId + "#";
+        Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, byte[]> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                currentBytes -= entry.getValue().length;
+                iterator.remove();
+            }
+        }
+        log.debug("Evicted cached images for QR ID: {}", qrId);
+    }
+
+    private synchronized double currentBytes() {
+        return currentBytes;
+    }
+
+    private synchronized double size() {
+        return entries.size();
+    }
+}
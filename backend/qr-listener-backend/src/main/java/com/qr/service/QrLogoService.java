@@ -0,0 +1,249 @@
+package com.qr.service;
+
+import com.qr.entity.ApplicationLogo;
+import com.qr.event.ApplicationLogoRegisteredEvent;
+import com.qr.repository.ApplicationLogoRepository;
+import com.qr.repository.ApplicationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logos registered per application, kept ready to blit: each logo is decoded once and scaled
+ * once per pixel size in use, and the scaled rasters are held in a byte-bounded LRU cache.
+ *
+ * Logos are identified by "applicationId:version", so re-registering a logo changes every
+ * cache key (and ETag) derived from it instead of requiring invalidation. Only the version lookup
+ * is cached against change: it is dropped once a registration commits and expires after
+ * {@code qr.logo.version-ttl}, so logos registered on other instances are picked up too.
+ */
+@Service
+@Slf4j
+public class QrLogoService {
+
+    private final ApplicationRepository applicationRepository;
+    private final ApplicationLogoRepository applicationLogoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long maxScaledBytes;
+    private final int maxSources;
+    private final int maxDimension;
+    private final long versionTtlNanos;
+
+    private final Map<Long, LogoVersion> versions = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, BufferedImage> sources = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, BufferedImage> scaled = new LinkedHashMap<>(64, 0.75f, true);
+    private long scaledBytes;
+
+    private final Counter scaledHits;
+    private final Counter scaledMisses;
+
+    public QrLogoService(ApplicationRepository applicationRepository,
+                         ApplicationLogoRepository applicationLogoRepository,
+                         ApplicationEventPublisher eventPublisher,
+                         @Value("${qr.logo.cache.max-size:16MB}") DataSize maxScaledSize,
+                         @Value("${qr.logo.cache.max-sources:32}") int maxSources,
+                         @Value("${qr.logo.max-dimension:2048}") int maxDimension,
+                         @Value("${qr.logo.version-ttl:60s}") Duration versionTtl,
+                         MeterRegistry meterRegistry) {
+        this.applicationRepository = applicationRepository;
+        this.applicationLogoRepository = applicationLogoRepository;
+        this.eventPublisher = eventPublisher;
+        this.maxScaledBytes = maxScaledSize.toBytes();
+        this.maxSources = maxSources;
+        this.maxDimension = maxDimension;
+        this.versionTtlNanos = versionTtl.toNanos();
+        this.scaledHits = Counter.builder("qr.logo.cache.hits").register(meterRegistry);
+        this.scaledMisses = Counter.builder("qr.logo.cache.misses").register(meterRegistry);
+    }
+
+    @Transactional
+    public boolean registerLogo(Long applicationId, byte[] imageData, String contentType) {
+        log.info("Registering logo for application: {} ({} bytes)", applicationId, imageData.length);
+
+        if (!applicationRepository.existsById(applicationId)) {
+            log.warn("Application not found: {}", applicationId);
+            return false;
+        }
+
+        // Reject anything we could not blit later
+        decode(imageData);
+
+        ApplicationLogo logo = applicationLogoRepository.findById(applicationId)
+                .orElseGet(() -> ApplicationLogo.builder().applicationId(applicationId).build());
+        logo.setImageData(imageData);
+        logo.setContentType(contentType);
+        applicationLogoRepository.save(logo);
+
+        eventPublisher.publishEvent(new ApplicationLogoRegisteredEvent(applicationId));
+        return true;
+    }
+
+    @TransactionalEventListener
+    public void onLogoRegistered(ApplicationLogoRegisteredEvent event) {
+        versions.remove(event.getApplicationId());
+    }
+
+    /**
+     * Resolves the logo parameter (an application id) to the key of the currently registered logo.
+     *
+     * @throws IllegalArgumentException if the parameter is not an application id or the
+     *                                  application has no logo
+     */
+    public String resolveLogoKey(String logo) {
+        Long applicationId = Long.valueOf(logo);
+        LogoVersion cached = versions.get(applicationId);
+        if (cached != null && System.nanoTime() - cached.loadedAt() < versionTtlNanos) {
+            return applicationId + ":" + cached.version();
+        }
+
+        LocalDateTime updatedAt = applicationLogoRepository.findUpdatedAtByApplicationId(applicationId)
+                .orElseThrow(() -> new IllegalArgumentException("No logo registered for application: " + applicationId));
+        long version = updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+        versions.put(applicationId, new LogoVersion(version, System.nanoTime()));
+        return applicationId + ":" + version;
+    }
+
+    /**
+     * Returns the logo scaled to fit a square of the given size, decoding and scaling only on a
+     * cache miss. The returned image is shared and must not be modified.
+     */
+    public BufferedImage getScaledLogo(String logoKey, int pixelSize) {
+        String scaledKey = logoKey + "@" + pixelSize;
+        synchronized (this) {
+            BufferedImage cached = scaled.get(scaledKey);
+            if (cached != null) {
+                scaledHits.increment();
+                return cached;
+            }
+        }
+        scaledMisses.increment();
+
+        BufferedImage result = scale(getSource(logoKey), pixelSize);
+        long bytes = (long) result.getWidth() * result.getHeight() * 4;
+
+        synchronized (this) {
+            BufferedImage previous = scaled.put(scaledKey, result);
+            if (previous != null) {
+                scaledBytes -= (long) previous.getWidth() * previous.getHeight() * 4;
+            }
+            scaledBytes += bytes;
+
+            Iterator<BufferedImage> eldest = scaled.values().iterator();
+            while (scaledBytes > maxScaledBytes && eldest.hasNext()) {
+                BufferedImage evicted = eldest.next();
+                scaledBytes -= (long) evicted.getWidth() * evicted.getHeight() * 4;
+                eldest.remove();
+            }
+        }
+        return result;
+    }
+
+    private BufferedImage getSource(String logoKey) {
+        synchronized (this) {
+            BufferedImage cached = sources.get(logoKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Long applicationId = Long.valueOf(logoKey.substring(0, logoKey.indexOf(':')));
+        ApplicationLogo logo = applicationLogoRepository.findById(applicationId)
+                .orElseThrow(() -> new IllegalArgumentException("No logo registered for application: " + applicationId));
+        BufferedImage decoded = decode(logo.getImageData());
+
+        synchronized (this) {
+            sources.put(logoKey, decoded);
+            if (sources.size() > maxSources) {
+                Iterator<String> eldest = sources.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * Decodes a logo, reading its dimensions from the header first so an image that would
+     * expand to an oversized raster is rejected before any pixels are allocated.
+     */
+    private BufferedImage decode(byte[] imageData) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageData))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported logo image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width > maxDimension || height > maxDimension) {
+                    throw new IllegalArgumentException("Logo of " + width + "x" + height
+                            + " exceeds " + maxDimension + " pixels per side");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Failed to decode logo image", e);
+        }
+    }
+
+    /**
+     * Fits the image into a square box, halving step by step before the final resize so that
+     * large sources keep their detail under bilinear filtering.
+     */
+    private static BufferedImage scale(BufferedImage source, int box) {
+        double ratio = Math.min((double) box / source.getWidth(), (double) box / source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            if (width < targetWidth * 2 || height < targetHeight * 2) {
+                width = targetWidth;
+                height = targetHeight;
+            }
+
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, width, height, null);
+            graphics.dispose();
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private record LogoVersion(long version, long loadedAt) {
+    }
+}
@@ -0,0 +1,471 @@
+package com.qr.service;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.qr.dto.PrintSheetRequest;
+import com.qr.dto.QrCodeSearchRequest;
+import com.qr.dto.QrCodeStyle;
+import com.qr.dto.QrCodeSummary;
+import com.qr.repository.QrCodeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Lays out QR labels (symbol, QR ID and description) on A4 or Letter pages and streams them as a
+ * PDF. Symbols are drawn as vector rectangles, one per run of dark modules, so they print sharply
+ * at any resolution.
+ *
+ * Codes are fetched in chunks and pages are rendered on a shared pool while earlier pages are
+ * written, with a bounded number of pages in flight, so memory stays flat however large the job.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QrPrintSheetService {
+
+    // Preset sizes are in pixels; they are printed at 300 dpi
+    private static final double POINTS_PER_PIXEL = 72.0 / 300.0;
+    private static final double PAGE_MARGIN = 36;
+    private static final double GUTTER = 9;
+    private static final double MIN_LABEL_WIDTH = 66;
+    private static final double ID_FONT_SIZE = 7;
+    private static final double DESCRIPTION_FONT_SIZE = 6;
+    // Rough average Helvetica glyph width, used to truncate descriptions to the label width
+    private static final double AVERAGE_GLYPH_WIDTH = 0.5;
+    private static final int FETCH_SIZE = 1000;
+    // Typographic quotes, dashes, euro sign etc. that WinAnsiEncoding places in 0x80-0x9F
+    private static final Map<Character, Integer> WIN_ANSI_EXTRAS = winAnsiExtras();
+
+    private final QrCodeRepository qrCodeRepository;
+    private final QrCodeGenerationService qrCodeGenerationService;
+
+    @Value("${qr.print.threads:0}")
+    private int threads;
+
+    @Value("${qr.print.max-labels:50000}")
+    private int maxLabels;
+
+    private ExecutorService executor;
+    private int maxPagesInFlight;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("qr-print-"));
+        maxPagesInFlight = poolSize * 2;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Checks the request up front, so invalid and oversized jobs are rejected before the response starts.
+     */
+    public void validate(PrintSheetRequest request) {
+        layout(request);
+
+        long labels;
+        if (request.getQrIds() != null && !request.getQrIds().isEmpty()) {
+            labels = request.getQrIds().size();
+        } else {
+            QrCodeSearchRequest filter = request.getFilter();
+            boolean newestFirst = (filter.getSortBy() == null || "createdAt".equals(filter.getSortBy()))
+                    && (filter.getSortDirection() == null || "desc".equalsIgnoreCase(filter.getSortDirection()));
+            if (!newestFirst) {
+                throw new IllegalArgumentException("Print sheets from a filter are laid out newest first; "
+                        + "cannot sort by " + filter.getSortBy() + " " + filter.getSortDirection());
+            }
+            labels = qrCodeRepository.countMatching(filter);
+        }
+        if (labels > maxLabels) {
+            throw new IllegalArgumentException("Print sheet of " + labels + " labels exceeds the limit of " + maxLabels);
+        }
+    }
+
+    public void writePrintSheet(PrintSheetRequest request, OutputStream outputStream) throws IOException {
+        SheetLayout layout = layout(request);
+        long started = System.nanoTime();
+
+        PdfStreamWriter pdf = new PdfStreamWriter(outputStream);
+        int catalog = pdf.reserve();
+        int pageTree = pdf.reserve();
+        int regularFont = pdf.reserve();
+        int boldFont = pdf.reserve();
+        pdf.writeObject(catalog, "<< /Type /Catalog /Pages " + pageTree + " 0 R >>");
+        pdf.writeObject(regularFont, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>");
+        pdf.writeObject(boldFont, "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding /WinAnsiEncoding >>");
+        String pageDictionary = "/Type /Page /Parent " + pageTree + " 0 R"
+                + " /MediaBox [0 0 " + format(layout.getPageWidth()) + " " + format(layout.getPageHeight()) + "]"
+                + " /Resources << /Font << /F1 " + regularFont + " 0 R /F2 " + boldFont + " 0 R >> >>";
+
+        List<Integer> pages = new ArrayList<>();
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        int labelCount = 0;
+        boolean truncated;
+        try {
+            Iterator<QrCodeSummary> codes = codes(request);
+            List<Label> pageLabels = new ArrayList<>(layout.getLabelsPerPage());
+            while (codes.hasNext() && labelCount < maxLabels) {
+                QrCodeSummary qrCode = codes.next();
+                pageLabels.add(new Label(qrCode.getQrId(), layout.isIncludeDescription() ? qrCode.getDescription() : null));
+                labelCount++;
+
+                if (pageLabels.size() == layout.getLabelsPerPage()) {
+                    List<Label> labels = pageLabels;
+                    pending.add(executor.submit(() -> renderPage(labels, layout)));
+                    pageLabels = new ArrayList<>(layout.getLabelsPerPage());
+                    writeCompletedPages(pdf, pending, maxPagesInFlight, pageDictionary, pages);
+                }
+            }
+            truncated = codes.hasNext();
+            if (!pageLabels.isEmpty()) {
+                List<Label> labels = pageLabels;
+                pending.add(executor.submit(() -> renderPage(labels, layout)));
+            }
+            writeCompletedPages(pdf, pending, 0, pageDictionary, pages);
+        } finally {
+            // Client went away or rendering failed: don't leave pages rendering for nobody
+            pending.forEach(future -> future.cancel(true));
+        }
+
+        if (truncated) {
+            log.warn("Print sheet truncated at {} labels", maxLabels);
+        }
+
+        StringBuilder kids = new StringBuilder(pages.size() * 8);
+        for (Integer page : pages) {
+            kids.append(page).append(" 0 R ");
+        }
+        pdf.writeObject(pageTree, "<< /Type /Pages /Count " + pages.size() + " /Kids [" + kids + "] >>");
+        pdf.finish(catalog);
+
+        log.info("Generated print sheet with {} labels on {} pages in {} ms",
+                labelCount, pages.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Writes finished pages in order until no more than the given number are still in flight.
+     */
+    private void writeCompletedPages(PdfStreamWriter pdf, Deque<Future<byte[]>> pending, int maxPending,
+                                     String pageDictionary, List<Integer> pages) throws IOException {
+        while (pending.size() > maxPending) {
+            byte[] content = await(pending.peek());
+            pending.poll();
+
+            int contents = pdf.reserve();
+            int page = pdf.reserve();
+            pdf.writeStream(contents, "/Filter /FlateDecode", content);
+            pdf.writeObject(page, "<< " + pageDictionary + " /Contents " + contents + " 0 R >>");
+            pages.add(page);
+        }
+    }
+
+    private static byte[] await(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to render print sheet page", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering print sheet");
+        }
+    }
+
+    private byte[] renderPage(List<Label> labels, SheetLayout layout) throws IOException {
+        StringBuilder content = new StringBuilder(labels.size() * 4096);
+        content.append("0 g\n");
+        for (int i = 0; i < labels.size(); i++) {
+            int column = i % layout.getColumns();
+            int row = i / layout.getColumns();
+            double left = PAGE_MARGIN + column * layout.getCellWidth();
+            double top = layout.getPageHeight() - PAGE_MARGIN - row * layout.getCellHeight();
+            appendLabel(content, labels.get(i), left, top, layout);
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length() / 4);
+        Deflater deflater = new Deflater();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+            out.write(content.toString().getBytes(StandardCharsets.ISO_8859_1));
+        } finally {
+            deflater.end();
+        }
+        return compressed.toByteArray();
+    }
+
+    private void appendLabel(StringBuilder content, Label label, double left, double top, SheetLayout layout) {
+        ByteMatrix matrix;
+        try {
+            matrix = Encoder.encode(qrCodeGenerationService.buildRedirectUrl(label.getQrId()),
+                    layout.getErrorCorrection()).getMatrix();
+        } catch (WriterException e) {
+            throw new RuntimeException("Failed to encode QR code: " + label.getQrId(), e);
+        }
+
+        int width = matrix.getWidth();
+        double moduleSize = layout.getSymbolSize() / (width + layout.getQuietZone() * 2);
+        double quietZone = layout.getQuietZone() * moduleSize;
+
+        // Switch to module space (origin at the top-left module, y pointing down) so every
+        // rectangle is a few small integers
+        content.append("q ").append(format(moduleSize)).append(" 0 0 ").append(format(-moduleSize)).append(' ')
+                .append(format(left + quietZone)).append(' ').append(format(top - quietZone)).append(" cm\n");
+        for (int y = 0; y < width; y++) {
+            int x = 0;
+            while (x < width) {
+                if (matrix.get(x, y) != 1) {
+                    x++;
+                    continue;
+                }
+                int start = x;
+                while (x < width && matrix.get(x, y) == 1) {
+                    x++;
+                }
+                content.append(start).append(' ').append(y).append(' ').append(x - start).append(" 1 re\n");
+            }
+        }
+        content.append("f Q\n");
+
+        double baseline = top - layout.getSymbolSize() - 2 - ID_FONT_SIZE;
+        appendText(content, "/F2", ID_FONT_SIZE, left, baseline, label.getQrId());
+        if (label.getDescription() != null && !label.getDescription().isBlank()) {
+            int maxChars = (int) (layout.getLabelWidth() / (DESCRIPTION_FONT_SIZE * AVERAGE_GLYPH_WIDTH));
+            String description = label.getDescription().strip();
+            if (description.length() > maxChars) {
+                description = description.substring(0, Math.max(0, maxChars - 3)) + "...";
+            }
+            appendText(content, "/F1", DESCRIPTION_FONT_SIZE, left, baseline - DESCRIPTION_FONT_SIZE - 1.5, description);
+        }
+    }
+
+    private static void appendText(StringBuilder content, String font, double fontSize, double x, double y, String text) {
+        content.append("BT ").append(font).append(' ').append(format(fontSize)).append(" Tf ")
+                .append(format(x)).append(' ').append(format(y)).append(" Td (");
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '(' || c == ')' || c == '\\') {
+                content.append('\\').append(c);
+            } else if (c >= 0x20 && c < 0x7F) {
+                content.append(c);
+            } else if (c >= 0xA0 && c <= 0xFF) {
+                // Latin-1 matches WinAnsiEncoding in this range; escaped to keep the stream ASCII
+                content.append('\\').append(Integer.toOctalString(c));
+            } else if (WIN_ANSI_EXTRAS.containsKey(c)) {
+                content.append('\\').append(Integer.toOctalString(WIN_ANSI_EXTRAS.get(c)));
+            } else if (Character.isWhitespace(c)) {
+                content.append(' ');
+            } else {
+                content.append('?');
+            }
+        }
+        content.append(") Tj ET\n");
+    }
+
+    // Thousandths of a point are far below printer resolution
+    private static String format(double value) {
+        long thousandths = Math.round(value * 1000);
+        StringBuilder text = new StringBuilder(12);
+        if (thousandths < 0) {
+            text.append('-');
+            thousandths = -thousandths;
+        }
+        text.append(thousandths / 1000);
+        long fraction = thousandths % 1000;
+        if (fraction != 0) {
+            String digits = Long.toString(1000 + fraction).substring(1);
+            int end = digits.length();
+            while (digits.charAt(end - 1) == '0') {
+                end--;
+            }
+            text.append('.').append(digits, 0, end);
+        }
+        return text.toString();
+    }
+
+    private static Map<Character, Integer> winAnsiExtras() {
+        Map<Character, Integer> extras = new HashMap<>();
+        Charset windows1252 = Charset.forName("windows-1252");
+        for (int code = 0x80; code <= 0x9F; code++) {
+            char c = new String(new byte[]{(byte) code}, windows1252).charAt(0);
+            if (c != '\uFFFD') {
+                extras.put(c, code);
+            }
+        }
+        return extras;
+    }
+
+    private Iterator<QrCodeSummary> codes(PrintSheetRequest request) {
+        if (request.getQrIds() != null && !request.getQrIds().isEmpty()) {
+            List<String> qrIds = request.getQrIds();
+            return new ChunkIterator(chunk -> {
+                int from = chunk * FETCH_SIZE;
+                if (from >= qrIds.size()) {
+                    return null;
+                }
+                List<String> ids = qrIds.subList(from, Math.min(from + FETCH_SIZE, qrIds.size()));
+                Map<String, QrCodeSummary> found = new HashMap<>();
+                for (QrCodeSummary qrCode : qrCodeRepository.findActiveSummariesByQrIdIn(ids)) {
+                    found.put(qrCode.getQrId(), qrCode);
+                }
+                // Keep the requested order; unknown or inactive IDs are skipped
+                List<QrCodeSummary> codes = new ArrayList<>(ids.size());
+                for (String id : ids) {
+                    QrCodeSummary qrCode = found.get(id);
+                    if (qrCode != null) {
+                        codes.add(qrCode);
+                    }
+                }
+                return codes;
+            });
+        }
+
+        // Keyset pages in QrCodeCursor order: each fetch costs the same however deep into the matches
+        QrCodeSearchRequest filter = request.getFilter();
+        QrCodeCursor[] position = {null};
+        return new ChunkIterator(chunk -> {
+            if (chunk > 0 && position[0] == null) {
+                return null;
+            }
+            List<QrCodeSummary> codes = position[0] == null
+                    ? qrCodeRepository.findSummariesOlderThan(filter, null, null, FETCH_SIZE)
+                    : qrCodeRepository.findSummariesOlderThan(filter, position[0].createdAt, position[0].id, FETCH_SIZE);
+            position[0] = codes.size() == FETCH_SIZE ? QrCodeCursor.after(codes.get(codes.size() - 1)) : null;
+            return codes;
+        });
+    }
+
+    private SheetLayout layout(PrintSheetRequest request) {
+        boolean hasIds = request.getQrIds() != null && !request.getQrIds().isEmpty();
+        if (!hasIds && request.getFilter() == null) {
+            throw new IllegalArgumentException("Either qrIds or filter is required");
+        }
+
+        QrCodeStyle style = QrCodeStyle.preset(request.getPreset() != null ? request.getPreset() : "default");
+        String paper = request.getPaper() != null ? request.getPaper().toUpperCase() : "A4";
+        double pageWidth;
+        double pageHeight;
+        switch (paper) {
+            case "A4":
+                pageWidth = 595.28;
+                pageHeight = 841.89;
+                break;
+            case "LETTER":
+                pageWidth = 612;
+                pageHeight = 792;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown paper size: " + request.getPaper());
+        }
+
+        boolean includeDescription = !Boolean.FALSE.equals(request.getIncludeDescription());
+        double symbolSize = style.getSize() * POINTS_PER_PIXEL;
+        double labelWidth = Math.max(symbolSize, MIN_LABEL_WIDTH);
+        double textHeight = 2 + ID_FONT_SIZE + (includeDescription ? DESCRIPTION_FONT_SIZE + 1.5 : 0) + 2;
+        double cellWidth = labelWidth + GUTTER;
+        double cellHeight = symbolSize + textHeight + GUTTER;
+        int columns = (int) ((pageWidth - PAGE_MARGIN * 2 + GUTTER) / cellWidth);
+        int rows = (int) ((pageHeight - PAGE_MARGIN * 2 + GUTTER) / cellHeight);
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException("Preset " + request.getPreset() + " does not fit on " + paper);
+        }
+
+        return new SheetLayout(pageWidth, pageHeight, columns, rows, symbolSize, labelWidth, cellWidth, cellHeight,
+                ErrorCorrectionLevel.valueOf(style.getErrorCorrection()), style.getMargin(), includeDescription);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class SheetLayout {
+        double pageWidth;
+        double pageHeight;
+        int columns;
+        int rows;
+        double symbolSize;
+        double labelWidth;
+        double cellWidth;
+        double cellHeight;
+        ErrorCorrectionLevel errorCorrection;
+        int quietZone;
+        boolean includeDescription;
+
+        int getLabelsPerPage() {
+            return columns * rows;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Label {
+        String qrId;
+        String description;
+    }
+
+    /**
+     * Iterates over chunks fetched on demand; the fetch function returns null when there are no more.
+     */
+    private static class ChunkIterator implements Iterator<QrCodeSummary> {
+
+        private final IntFunction<List<QrCodeSummary>> fetch;
+        private Iterator<QrCodeSummary> current = Collections.emptyIterator();
+        private int nextChunk;
+        private boolean done;
+
+        private ChunkIterator(IntFunction<List<QrCodeSummary>> fetch) {
+            this.fetch = fetch;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && !done) {
+                List<QrCodeSummary> chunk = fetch.apply(nextChunk++);
+                if (chunk == null) {
+                    done = true;
+                } else {
+                    current = chunk.iterator();
+                }
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public QrCodeSummary next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.qr.service;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.ChecksumException;
+import com.google.zxing.FormatException;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Result;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.qr.dto.QrCodeStyle;
+import com.qr.dto.ScanVerificationRequest;
+import com.qr.dto.ScanVerificationResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that generated images actually scan: each code is rendered by the regular renderer
+ * (logos included) and decoded with ZXing's reader, and the decoded text must equal the code's
+ * redirect URL. Images are rendered fresh and never cached, so a large job neither serves stale
+ * bytes nor evicts the images real requests use.
+ *
+ * Work runs on a bounded pool sized to the cores; when its queue is full the submitting request
+ * thread decodes images itself, so a large batch cannot queue up unbounded work.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QrScanVerificationService {
+
+    private static final Set<String> ERROR_CORRECTION_LEVELS = Set.of("L", "M", "Q", "H");
+
+    private final QrCodeGenerationService qrCodeGenerationService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${qr.verify.threads:0}")
+    private int threads;
+
+    @Value("${qr.verify.max-reported-failures:1000}")
+    private int maxReportedFailures;
+
+    @Value("${qr.render.streaming-threshold:2048}")
+    private int maxSize;
+
+    private ThreadPoolExecutor executor;
+    private Timer imageTimer;
+    private Counter passedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(poolSize * 4), new CustomizableThreadFactory("qr-verify-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        imageTimer = Timer.builder("qr.verify.image")
+                .description("Time to render and decode one image during scan verification")
+                .register(meterRegistry);
+        passedCounter = Counter.builder("qr.verify.passed").register(meterRegistry);
+        failedCounter = Counter.builder("qr.verify.failed").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Resolves the styles to verify, rejecting ones the regular image path cannot render and
+     * attributes the renderer does not apply, which verification could say nothing about.
+     */
+    public List<QrCodeStyle> resolveStyles(ScanVerificationRequest request) {
+        if (request.getStyles() == null || request.getStyles().isEmpty()) {
+            return List.of(QrCodeStyle.defaultStyle());
+        }
+
+        List<QrCodeStyle> styles = new ArrayList<>(request.getStyles().size());
+        for (QrCodeStyle requested : request.getStyles()) {
+            QrCodeStyle defaults = QrCodeStyle.defaultStyle();
+            QrCodeStyle style = requested.toBuilder()
+                    .size(requested.getSize() != null ? requested.getSize() : defaults.getSize())
+                    .format(requested.getFormat() != null ? requested.getFormat() : defaults.getFormat())
+                    .errorCorrection(requested.getErrorCorrection() != null ? requested.getErrorCorrection() : defaults.getErrorCorrection())
+                    .margin(requested.getMargin() != null ? requested.getMargin() : defaults.getMargin())
+                    .build();
+            if (style.getSize() < 1 || style.getSize() > maxSize) {
+                throw new IllegalArgumentException("Size must be between 1 and " + maxSize + ": " + style.getSize());
+            }
+            if (!ERROR_CORRECTION_LEVELS.contains(style.getErrorCorrection().toUpperCase())) {
+                throw new IllegalArgumentException("Error correction must be L, M, Q or H: " + style.getErrorCorrection());
+            }
+            if (style.getMargin() < 0) {
+                throw new IllegalArgumentException("Margin must not be negative: " + style.getMargin());
+            }
+            // Codes are always rendered black on white
+            if (!isColour(style.getForeground(), "#000000") || !isColour(style.getBackground(), "#FFFFFF")) {
+                throw new IllegalArgumentException("Only black on white is rendered: "
+                        + style.getForeground() + " on " + style.getBackground());
+            }
+            if (style.getLogo() != null && !style.getLogo().matches("\\d+")) {
+                throw new IllegalArgumentException("Logo must be an application id: " + style.getLogo());
+            }
+            styles.add(style);
+        }
+        return styles;
+    }
+
+    private static boolean isColour(String requested, String rendered) {
+        return requested == null || requested.equalsIgnoreCase(rendered);
+    }
+
+    public ScanVerificationResponse verify(ScanVerificationRequest request) {
+        List<QrCodeStyle> styles = resolveStyles(request);
+        int total = request.getQrIds().size() * styles.size();
+        log.info("Verifying {} QR codes in {} styles", request.getQrIds().size(), styles.size());
+
+        AtomicLong passed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicInteger reported = new AtomicInteger();
+        ConcurrentLinkedQueue<ScanVerificationResponse.Failure> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(total);
+
+        long started = System.nanoTime();
+        for (String qrId : request.getQrIds()) {
+            for (QrCodeStyle style : styles) {
+                executor.execute(() -> {
+                    try {
+                        ScanVerificationResponse.Failure failure = imageTimer.record(() -> verifyImage(qrId, style));
+                        if (failure == null) {
+                            passed.incrementAndGet();
+                            passedCounter.increment();
+                        } else {
+                            failed.incrementAndGet();
+                            failedCounter.increment();
+                            // Counts stay exact; only the detail list is capped
+                            if (reported.incrementAndGet() <= maxReportedFailures) {
+                                failures.add(failure);
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while verifying QR codes", e);
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        double imagesPerSecond = total / Math.max(elapsedNanos / 1e9, 1e-9);
+        log.info("Verified {} images in {} ms ({} images/s): {} passed, {} failed",
+                total, elapsedNanos / 1_000_000, Math.round(imagesPerSecond), passed.get(), failed.get());
+
+        return ScanVerificationResponse.builder()
+                .verified(total)
+                .passed(passed.get())
+                .failed(failed.get())
+                .durationMs(elapsedNanos / 1_000_000)
+                .imagesPerSecond(Math.round(imagesPerSecond * 10) / 10.0)
+                .failures(new ArrayList<>(failures))
+                .build();
+    }
+
+    /**
+     * Returns null if the image decodes to the expected URL, or a description of what went wrong.
+     */
+    private ScanVerificationResponse.Failure verifyImage(String qrId, QrCodeStyle style) {
+        ScanVerificationResponse.Failure.FailureBuilder failure = ScanVerificationResponse.Failure.builder()
+                .qrId(qrId)
+                .style(style.cacheKey());
+
+        BufferedImage image;
+        try {
+            image = ImageIO.read(new ByteArrayInputStream(qrCodeGenerationService.renderQrCodeImage(qrId, style)));
+        } catch (IOException | RuntimeException e) {
+            return failure.reason("Render failed: " + e.getMessage()).build();
+        }
+        if (image == null) {
+            return failure.reason("Unreadable image format: " + style.getFormat()).build();
+        }
+
+        Result result;
+        try {
+            // No TRY_HARDER: a phone camera gets no second chances either
+            BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)));
+            result = new QRCodeReader().decode(bitmap);
+        } catch (NotFoundException e) {
+            return failure.reason("No QR code found in image").build();
+        } catch (ChecksumException | FormatException e) {
+            return failure.reason("QR code could not be decoded: " + e.getClass().getSimpleName()).build();
+        }
+
+        String expected = qrCodeGenerationService.buildRedirectUrl(qrId);
+        if (!expected.equals(result.getText())) {
+            return failure.reason("Decoded content does not match the redirect URL")
+                    .decodedText(result.getText())
+                    .build();
+        }
+        return null;
+    }
+}
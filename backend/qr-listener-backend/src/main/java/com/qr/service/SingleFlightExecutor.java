@@ -0,0 +1,83 @@
+package com.qr.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the work on its own thread,
+ * later callers wait for that result instead of repeating it. Failures are propagated to every
+ * waiting caller, and the key is released as soon as the work finishes, so nothing is cached here.
+ */
+@Component
+@Slf4j
+public class SingleFlightExecutor {
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Duration timeout;
+    private final Counter coalescedCounter;
+    private final Counter timeoutCounter;
+
+    public SingleFlightExecutor(@Value("${qr.render.coalesce-timeout:10s}") Duration timeout,
+                                MeterRegistry meterRegistry) {
+        this.timeout = timeout;
+        this.coalescedCounter = Counter.builder("qr.render.coalesced")
+                .description("Calls that shared an in-flight result instead of doing the work themselves")
+                .register(meterRegistry);
+        this.timeoutCounter = Counter.builder("qr.render.coalesce.timeouts").register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Supplier<T> work) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            coalescedCounter.increment();
+            return (T) await(key, existing);
+        }
+
+        try {
+            T result = work.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private Object await(String key, CompletableFuture<Object> future) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (TimeoutException e) {
+            timeoutCounter.increment();
+            log.warn("Timed out after {} waiting for in-flight work: {}", timeout, key);
+            throw new RuntimeException("Timed out waiting for in-flight work: " + key, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for in-flight work: " + key, e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+-- The schema as Hibernate's ddl-auto created it up to this release. Databases that already have
+-- these tables are baselined at version 1 (spring.flyway.baseline-on-migrate) and skip this script.
+
+CREATE TABLE applications (
+    id            BIGSERIAL    PRIMARY KEY,
+    name          VARCHAR(100) NOT NULL,
+    base_url      VARCHAR(255) NOT NULL,
+    description   TEXT,
+    contact_email VARCHAR(100),
+    created_at    TIMESTAMP    NOT NULL,
+    updated_at    TIMESTAMP,
+    is_active     BOOLEAN      NOT NULL
+);
+
+CREATE TABLE qr_codes (
+    id             BIGSERIAL    PRIMARY KEY,
+    qr_id          VARCHAR(100) NOT NULL CONSTRAINT uk_qr_codes_qr_id UNIQUE,
+    target_url     VARCHAR(500) NOT NULL,
+    application_id BIGINT       CONSTRAINT fk_qr_codes_application REFERENCES applications (id),
+    description    TEXT,
+    created_at     TIMESTAMP    NOT NULL,
+    updated_at     TIMESTAMP,
+    created_by     VARCHAR(100),
+    is_active      BOOLEAN      NOT NULL
+);
+
+CREATE TABLE qr_redirect_logs (
+    id            BIGSERIAL    PRIMARY KEY,
+    qr_id         VARCHAR(100) NOT NULL,
+    ip_address    VARCHAR(45),
+    user_agent    TEXT,
+    redirect_time TIMESTAMP    NOT NULL,
+    target_url    VARCHAR(500),
+    success       BOOLEAN      NOT NULL
+);
+
+CREATE TABLE publications (
+    id            BIGSERIAL    PRIMARY KEY,
+    content_type  VARCHAR(20)  NOT NULL CHECK (content_type IN ('SINGLE_PERSON', 'COUPLE', 'FAMILY')),
+    primary_names VARCHAR(200) NOT NULL,
+    special_date  TIMESTAMP,
+    slug          VARCHAR(200) NOT NULL CONSTRAINT uk_publications_slug UNIQUE,
+    story         TEXT,
+    tags          TEXT,
+    status        VARCHAR(20)  NOT NULL CHECK (status IN ('DRAFT', 'PUBLISHED', 'SCHEDULED')),
+    scheduled_for TIMESTAMP,
+    view_count    BIGINT,
+    created_by    VARCHAR(100),
+    created_at    TIMESTAMP    NOT NULL,
+    updated_at    TIMESTAMP,
+    published_at  TIMESTAMP
+);
+
+CREATE TABLE publication_photos (
+    id             BIGSERIAL PRIMARY KEY,
+    publication_id BIGINT    NOT NULL CONSTRAINT fk_publication_photos_publication REFERENCES publications (id),
+    file_url       TEXT,
+    thumbnail_url  TEXT,
+    image_data     BYTEA,
+    thumbnail_data BYTEA,
+    file_name      VARCHAR(200),
+    is_cover       BOOLEAN,
+    display_order  INTEGER,
+    created_at     TIMESTAMP NOT NULL
+);
+
@@ -0,0 +1,39 @@
+-- Indexes behind the repository queries. CONCURRENTLY keeps the tables writable while existing
+-- data is indexed, so Flyway runs this script outside a transaction; IF NOT EXISTS skips indexes
+-- that earlier releases created at startup. sql/index-usage-check.sql in qr-listener-benchmarks
+-- asserts that each query can use its index.
+
+-- Listing, keyset pagination, recent codes, date ranges and the active count (active codes only)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_qr_codes_active_created_at_id
+    ON qr_codes (created_at DESC, id DESC) WHERE is_active = true;
+
+-- createdBy and applicationId filters, optionally with a date range, newest first
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_qr_codes_active_created_by
+    ON qr_codes (created_by, created_at DESC, id DESC) WHERE is_active = true;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_qr_codes_active_application
+    ON qr_codes (application_id, created_at DESC, id DESC) WHERE is_active = true;
+
+-- Per-code redirect history and counts; success is included so the count needs no heap access
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_qr_redirect_logs_qr_id_time
+    ON qr_redirect_logs (qr_id, redirect_time) INCLUDE (success);
+
+-- Redirects in a time range
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_qr_redirect_logs_redirect_time
+    ON qr_redirect_logs (redirect_time);
+
+-- Successful and failed redirect counts (total and since a time); a plain boolean index would
+-- not be selective enough to be used
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_qr_redirect_logs_succeeded
+    ON qr_redirect_logs (redirect_time) WHERE success = true;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_qr_redirect_logs_failed
+    ON qr_redirect_logs (redirect_time) WHERE success = false;
+
+-- Loading a publication's photos and the foreign key check when a publication is deleted
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_publication_photos_publication
+    ON publication_photos (publication_id, display_order);
+
+-- Publications filtered by status
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_publications_status_created_at
+    ON publications (status, created_at DESC);
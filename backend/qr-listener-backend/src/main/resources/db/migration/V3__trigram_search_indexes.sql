@@ -0,0 +1,22 @@
+-- Trigram indexes for substring search over QR IDs and descriptions. pg_trgm is optional: where
+-- the extension cannot be created (e.g. missing privileges) the indexes are skipped and
+-- QrCodeSearchService falls back to its in-memory index.
+
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+EXCEPTION WHEN OTHERS THEN
+    RAISE NOTICE 'pg_trgm is not available, skipping trigram indexes: %', SQLERRM;
+END
+$$;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        CREATE INDEX IF NOT EXISTS idx_qr_codes_qr_id_trgm
+            ON qr_codes USING gin (lower(qr_id) gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_qr_codes_description_trgm
+            ON qr_codes USING gin (lower(description) gin_trgm_ops);
+    END IF;
+END
+$$;
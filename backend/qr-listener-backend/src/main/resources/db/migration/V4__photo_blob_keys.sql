@@ -0,0 +1,6 @@
+-- Photo bytes move out of the BYTEA columns into the blob store (BlobStore); rows keep the
+-- SHA-256 keys of their image and thumbnail. PhotoBlobMigration copies existing rows over in
+-- batches and clears image_data, thumbnail_data and inline data: URLs.
+
+ALTER TABLE publication_photos ADD COLUMN image_key VARCHAR(64);
+ALTER TABLE publication_photos ADD COLUMN thumbnail_key VARCHAR(64);
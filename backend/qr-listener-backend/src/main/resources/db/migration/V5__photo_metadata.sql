@@ -0,0 +1,5 @@
+-- Metadata of the stored image, so listings and the photo endpoints never need the blob itself.
+-- PhotoBlobMigration fills both columns for photos stored before this migration.
+
+ALTER TABLE publication_photos ADD COLUMN content_type VARCHAR(50);
+ALTER TABLE publication_photos ADD COLUMN size_bytes BIGINT;
@@ -0,0 +1,14 @@
+-- Downscaled copies of stored photo images, generated in the background by PhotoVariantService.
+-- Keyed by the source blob, so photos with the same content share their variants. Each source
+-- also has a row for itself at its own width, which marks it as processed.
+
+CREATE TABLE photo_variants (
+    source_key VARCHAR(64) NOT NULL,
+    width INTEGER NOT NULL,
+    height INTEGER NOT NULL,
+    blob_key VARCHAR(64) NOT NULL,
+    content_type VARCHAR(50) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (source_key, width)
+);
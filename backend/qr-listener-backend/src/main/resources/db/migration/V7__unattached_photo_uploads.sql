@@ -0,0 +1,6 @@
+-- Photos uploaded through the photo upload endpoint exist before the publication that uses them.
+-- Uploads never attached to a publication are removed by PhotoUploadService after a while.
+
+ALTER TABLE publication_photos ALTER COLUMN publication_id DROP NOT NULL;
+
+CREATE INDEX idx_publication_photos_unattached ON publication_photos (created_at) WHERE publication_id IS NULL;
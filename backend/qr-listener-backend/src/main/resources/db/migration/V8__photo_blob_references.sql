@@ -0,0 +1,20 @@
+-- Reference counts of photo blobs: one per publication_photos.image_key or thumbnail_key that
+-- holds the key. PhotoBlobReferences deletes a blob, with its variants, once its count has been
+-- zero for the grace period.
+
+CREATE TABLE photo_blobs (
+    blob_key VARCHAR(64) PRIMARY KEY,
+    ref_count INTEGER NOT NULL,
+    released_at TIMESTAMP
+);
+
+CREATE INDEX idx_photo_blobs_released ON photo_blobs (released_at) WHERE ref_count = 0;
+
+INSERT INTO photo_blobs (blob_key, ref_count)
+SELECT blob_key, count(*)
+FROM (
+    SELECT image_key AS blob_key FROM publication_photos WHERE image_key IS NOT NULL
+    UNION ALL
+    SELECT thumbnail_key FROM publication_photos WHERE thumbnail_key IS NOT NULL
+) refs
+GROUP BY blob_key;
@@ -0,0 +1,14 @@
+-- Objects earlier releases created at runtime rather than through a migration: the logo table
+-- (ddl-auto update) and the sequence QrIdAllocator leases QR ID suffix blocks from. Databases
+-- baselined at version 1 may or may not have them, hence IF NOT EXISTS.
+
+CREATE TABLE IF NOT EXISTS application_logos (
+    application_id BIGINT      PRIMARY KEY,
+    image_data     BYTEA       NOT NULL,
+    content_type   VARCHAR(50),
+    updated_at     TIMESTAMP
+);
+
+-- The increment is the block size (qr.id.block-size); QrIdAllocator follows the sequence's own
+-- increment if the two differ
+CREATE SEQUENCE IF NOT EXISTS qr_id_block_seq MINVALUE 0 START WITH 0 INCREMENT BY 1000;
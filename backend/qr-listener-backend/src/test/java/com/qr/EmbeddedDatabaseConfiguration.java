@@ -0,0 +1,26 @@
+package com.qr;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+/**
+ * PostgreSQL started from the test JVM, for {@code @DataJpaTest}s that import it with
+ * {@code @AutoConfigureTestDatabase(replace = NONE)}; Flyway then runs the real migrations.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class EmbeddedDatabaseConfiguration {
+
+    @Bean(destroyMethod = "close")
+    EmbeddedPostgres embeddedPostgres() throws IOException {
+        return EmbeddedPostgres.start();
+    }
+
+    @Bean
+    DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+        return embeddedPostgres.getPostgresDatabase();
+    }
+}
@@ -0,0 +1,137 @@
+package com.qr.controller;
+
+import com.qr.dto.QrCodeStyle;
+import com.qr.entity.QrCode;
+import com.qr.event.QrCodeUpdatedEvent;
+import com.qr.repository.QrCodeRepository;
+import com.qr.service.QrCodeGenerationService;
+import com.qr.service.QrCodeStorageService;
+import com.qr.service.QrCodeStreamingRenderer;
+import com.qr.service.QrCodeVersionCache;
+import com.qr.service.QrImageCache;
+import com.qr.service.SingleFlightExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QrGeneratorControllerTest {
+
+    private static final String QR_ID = "ACME-7KQ2M9XZ";
+
+    private QrCodeRepository qrCodeRepository;
+    private QrCodeStorageService qrCodeStorageService;
+    private QrImageCache qrImageCache;
+    private QrCodeGenerationService generationService;
+    private QrGeneratorController controller;
+
+    @BeforeEach
+    void setUp() {
+        qrCodeRepository = mock(QrCodeRepository.class);
+        qrCodeStorageService = mock(QrCodeStorageService.class);
+        qrImageCache = new QrImageCache(DataSize.ofMegabytes(1), new SimpleMeterRegistry());
+        when(qrCodeRepository.findByQrIdAndIsActiveTrue(QR_ID)).thenReturn(Optional.of(QrCode.builder()
+                .id(1L)
+                .qrId(QR_ID)
+                .targetUrl("https://example.com")
+                .isActive(true)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build()));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        generationService = new QrCodeGenerationService(qrCodeRepository, null, qrImageCache, qrCodeStorageService,
+                new QrCodeVersionCache(1000, Duration.ofMinutes(1)), new QrCodeStreamingRenderer(),
+                new SingleFlightExecutor(Duration.ofSeconds(10), meterRegistry), null, null);
+        ReflectionTestUtils.setField(generationService, "redirectBaseUrl", "http://localhost:8080");
+
+        controller = new QrGeneratorController(generationService);
+        ReflectionTestUtils.setField(controller, "streamingThreshold", 2048);
+        ReflectionTestUtils.setField(controller, "maxImageSize", 20000);
+    }
+
+    @Test
+    void revalidationsRenderNothing() {
+        String eTag = image(null).getHeaders().getETag();
+        verify(qrCodeStorageService, times(1)).saveQrCodeImage(anyString(), anyString(), any());
+
+        for (int i = 0; i < 100; i++) {
+            ResponseEntity<?> response = image(eTag);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(response.getBody()).isNull();
+        }
+
+        // The first request looked up, missed and rendered once; revalidations touched nothing
+        verify(qrCodeRepository, times(1)).findByQrIdAndIsActiveTrue(QR_ID);
+        verify(qrCodeStorageService, times(1)).getQrCodeImage(anyString(), anyString());
+        verify(qrCodeStorageService, times(1)).saveQrCodeImage(anyString(), anyString(), any());
+    }
+
+    @Test
+    void committedDeactivationDropsVersionAndImages() {
+        String eTag = image(null).getHeaders().getETag();
+        String cacheKey = QrImageCache.key(QR_ID, QrCodeStyle.builder().size(256).format("PNG").build());
+        assertThat(qrImageCache.contains(cacheKey)).isTrue();
+
+        when(qrCodeRepository.findByQrIdAndIsActiveTrue(QR_ID)).thenReturn(Optional.empty());
+        generationService.onQrCodeUpdated(new QrCodeUpdatedEvent(1L, QR_ID, true));
+
+        verify(qrCodeStorageService).deleteQrCodeImages(QR_ID);
+        assertThat(qrImageCache.contains(cacheKey)).isFalse();
+        assertThatThrownBy(() -> image(eTag)).hasMessageContaining("QR code not found");
+    }
+
+    @Test
+    void expiredVersionsAreLookedUpAgain() {
+        QrCodeVersionCache versionCache = new QrCodeVersionCache(1000, Duration.ZERO);
+        ReflectionTestUtils.setField(generationService, "qrCodeVersionCache", versionCache);
+
+        String eTag = image(null).getHeaders().getETag();
+        assertThat(image(eTag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        // ETag and render of the first request, then the revalidation
+        verify(qrCodeRepository, times(3)).findByQrIdAndIsActiveTrue(QR_ID);
+    }
+
+    @Test
+    void presetRequestsHitThePreRenderedVariants() throws IOException {
+        generationService.preRenderQrCodeImage(QR_ID, QrCodeStyle.preset("large"));
+        generationService.preRenderQrCodeImage(QR_ID, QrCodeStyle.builder().size(512).format("PNG").build());
+
+        byte[] large = body(controller.getQrCodeImage(QR_ID, "large", null, "PNG", null, null, null, null, null));
+        byte[] plain = body(controller.getQrCodeImage(QR_ID, null, 512, "PNG", null, null, null, null, null));
+
+        // Both were served from the image cache, and error correction and margin changed the bytes
+        verify(qrCodeStorageService, times(2)).saveQrCodeImage(anyString(), anyString(), any());
+        verify(qrCodeStorageService, times(0)).getQrCodeImage(anyString(), anyString());
+        assertThat(large).isNotEqualTo(plain);
+        assertThat(controller.getQrCodeImage(QR_ID, "huge", null, "PNG", null, null, null, null, null)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private ResponseEntity<?> image(String ifNoneMatch) {
+        return controller.getQrCodeImage(QR_ID, null, 256, "PNG", null, null, null, null, ifNoneMatch);
+    }
+
+    private static byte[] body(ResponseEntity<?> response) throws IOException {
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return ((Resource) response.getBody()).getContentAsByteArray();
+    }
+}
@@ -0,0 +1,107 @@
+package com.qr.repository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Wraps a data source so that, while {@link #explain} runs, every query the application executes
+ * is first explained on the same connection with the same parameters. The plans therefore see
+ * the transaction's data and settings, and are those of the exact SQL Hibernate generated.
+ */
+class ExplainingDataSource {
+
+    private final DataSource target;
+    private List<String> plans;
+
+    ExplainingDataSource(DataSource target) {
+        this.target = target;
+    }
+
+    DataSource dataSource() {
+        return proxy(DataSource.class, (method, args) -> {
+            Object result = method.invoke(target, args);
+            return result instanceof Connection connection ? connection(connection) : result;
+        });
+    }
+
+    /**
+     * Runs the call and returns the JSON plans of the SELECT statements it executed.
+     */
+    synchronized List<String> explain(Supplier<?> call) {
+        plans = new ArrayList<>();
+        try {
+            call.get();
+            return plans;
+        } finally {
+            plans = null;
+        }
+    }
+
+    private Connection connection(Connection connection) {
+        return proxy(Connection.class, (method, args) -> {
+            Object result = method.invoke(connection, args);
+            if (method.getName().equals("prepareStatement") && isSelect((String) args[0])) {
+                return statement(connection, (String) args[0], (PreparedStatement) result);
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement statement(Connection connection, String sql, PreparedStatement statement) {
+        List<Object[]> parameters = new ArrayList<>();
+        return proxy(PreparedStatement.class, (method, args) -> {
+            if (isParameterSetter(method)) {
+                parameters.add(new Object[] {method, args});
+            } else if (method.getName().equals("executeQuery") && plans != null) {
+                plans.add(plan(connection, sql, parameters));
+            }
+            return method.invoke(statement, args);
+        });
+    }
+
+    private static String plan(Connection connection, String sql, List<Object[]> parameters) throws Exception {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+            for (Object[] parameter : parameters) {
+                ((Method) parameter[0]).invoke(explain, (Object[]) parameter[1]);
+            }
+            try (ResultSet plan = explain.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        }
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select");
+    }
+
+    private static boolean isParameterSetter(Method method) {
+        return method.getName().startsWith("set") && method.getParameterCount() >= 2
+                && method.getParameterTypes()[0] == int.class;
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Exception;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            try {
+                return handler.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, invocationHandler));
+    }
+}
@@ -0,0 +1,199 @@
+package com.qr.repository;
+
+import com.qr.dto.QrCodeSearchRequest;
+import com.qr.entity.Publication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the repository queries are served by the indexes the Flyway migrations create.
+ * Each query runs against the migrated schema and its plan, taken with sequential scans turned
+ * off, must name the expected index; dropping an index or changing a query so that it can no
+ * longer use one fails the test. Whole-table aggregates have no index to use and are not listed.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(RepositoryIndexUsageTest.EmbeddedDatabase.class)
+class RepositoryIndexUsageTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Autowired
+    private ExplainingDataSource explainingDataSource;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private QrCodeRepository qrCodeRepository;
+    @Autowired
+    private QrRedirectLogRepository qrRedirectLogRepository;
+    @Autowired
+    private PublicationRepository publicationRepository;
+    @Autowired
+    private PublicationPhotoRepository publicationPhotoRepository;
+    @Autowired
+    private ApplicationLogoRepository applicationLogoRepository;
+
+    @TestConfiguration
+    static class EmbeddedDatabase {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        ExplainingDataSource explainingDataSource(EmbeddedPostgres embeddedPostgres) {
+            return new ExplainingDataSource(embeddedPostgres.getPostgresDatabase());
+        }
+
+        @Bean
+        DataSource dataSource(ExplainingDataSource explainingDataSource) {
+            return explainingDataSource.dataSource();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO applications (name, base_url, is_active, created_at) "
+                + "SELECT 'App ' || i, 'https://app' || i || '.example.com', true, ? FROM generate_series(1, 20) i", NOW);
+        // 20k codes, a tenth of them inactive, spread over two years
+        jdbcTemplate.update("INSERT INTO qr_codes (qr_id, target_url, application_id, description, created_by, is_active, created_at) "
+                + "SELECT 'AB-' || lpad(i::text, 8, '0'), 'https://example.com/' || i, "
+                + "(SELECT min(id) FROM applications) + i % 20, 'Code ' || i, 'user' || i % 50, i % 10 <> 0, "
+                + "?::timestamp - (i % 730) * interval '1 day' - (i % 86400) * interval '1 second' "
+                + "FROM generate_series(1, 20000) i", NOW);
+        // 20k redirects of 2k codes over a year, 3% failed
+        jdbcTemplate.update("INSERT INTO qr_redirect_logs (qr_id, ip_address, user_agent, redirect_time, target_url, success) "
+                + "SELECT 'AB-' || lpad((i % 2000 + 1)::text, 8, '0'), '10.0.0.1', 'test', "
+                + "?::timestamp - (i % 525600) * interval '1 minute', 'https://example.com/' || i, i % 33 <> 0 "
+                + "FROM generate_series(1, 20000) i", NOW);
+        // 2k publications with five photos each, plus a few uploads not attached to one
+        jdbcTemplate.update("INSERT INTO publications (content_type, primary_names, slug, story, status, view_count, created_by, created_at) "
+                + "SELECT 'COUPLE', 'Names ' || i, 'pub-' || i, 'Story', (ARRAY['DRAFT', 'PUBLISHED', 'SCHEDULED'])[i % 3 + 1], "
+                + "i, 'admin', ?::timestamp - (i % 1000) * interval '1 hour' FROM generate_series(1, 2000) i", NOW);
+        jdbcTemplate.update("INSERT INTO publication_photos (publication_id, file_name, image_key, is_cover, display_order, created_at) "
+                + "SELECT p.id, 'photo' || n || '.jpg', md5(p.id || '-' || n) || md5(n || '-' || p.id), n = 0, n, ? "
+                + "FROM publications p CROSS JOIN generate_series(0, 4) n", NOW);
+        jdbcTemplate.update("INSERT INTO publication_photos (file_name, image_key, created_at) "
+                + "SELECT 'upload' || i || '.jpg', md5('upload-' || i) || md5(i || '-upload'), ?::timestamp - i * interval '1 hour' "
+                + "FROM generate_series(1, 50) i", NOW);
+        jdbcTemplate.update("INSERT INTO application_logos (application_id, image_data, updated_at) "
+                + "SELECT id, '\\x89504e47'::bytea, ? FROM applications", NOW);
+
+        jdbcTemplate.execute("ANALYZE");
+        // Small tables would be scanned anyway; without that option the plan shows which index fits
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+    }
+
+    @Test
+    void activeCodeListingUsesTheNewestFirstIndex() {
+        LocalDateTime cursor = NOW.minusDays(30);
+        String index = "idx_qr_codes_active_created_at_id";
+
+        assertUsesIndex(index, () -> qrCodeRepository.findActiveNewest(Limit.of(20)));
+        assertUsesIndex(index, () -> qrCodeRepository.findActiveOlderThan(cursor, 1000L, Limit.of(20)));
+        assertUsesIndex(index, () -> qrCodeRepository.findActiveNewerThan(cursor, 1000L, Limit.of(20)));
+        assertUsesIndex(index, () -> qrCodeRepository.countActiveQrCodes());
+        assertUsesIndex(index, () -> qrCodeRepository.findSummariesOlderThan(new QrCodeSearchRequest(), cursor, 1000L, 20));
+    }
+
+    @Test
+    void filteredCodeListingUsesTheFilterIndexes() {
+        QrCodeSearchRequest byCreator = QrCodeSearchRequest.builder().createdBy("user7").build();
+        QrCodeSearchRequest byApplication = QrCodeSearchRequest.builder()
+                .applicationId(firstApplicationId())
+                .createdFrom(NOW.minusDays(90))
+                .createdTo(NOW)
+                .build();
+
+        assertUsesIndex("idx_qr_codes_active_created_by",
+                () -> qrCodeRepository.findSummaries(byCreator, PageRequest.of(0, 20), false));
+        assertUsesIndex("idx_qr_codes_active_application",
+                () -> qrCodeRepository.findSummaries(byApplication, PageRequest.of(0, 20), false));
+        assertUsesIndex("idx_qr_codes_active_created_by",
+                () -> qrCodeRepository.findSummariesOlderThan(byCreator, NOW.minusDays(30), 1000L, 20));
+    }
+
+    @Test
+    void codeLookupsUseTheKeys() {
+        List<String> qrIds = List.of("AB-00000001", "AB-00000002", "AB-00000003");
+
+        assertUsesIndex("uk_qr_codes_qr_id", () -> qrCodeRepository.findByQrIdAndIsActiveTrue("AB-00000001"));
+        assertUsesIndex("uk_qr_codes_qr_id", () -> qrCodeRepository.findActiveSummariesByQrIdIn(qrIds));
+        assertUsesIndex("uk_qr_codes_qr_id", () -> qrCodeRepository.findKeysByQrIdIn(qrIds));
+        assertUsesIndex("qr_codes_pkey", () -> qrCodeRepository.findSummariesByIdIn(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void redirectHistoryAndCountsUseTheRedirectIndexes() {
+        String qrId = "AB-00000001";
+
+        assertUsesIndex("idx_qr_redirect_logs_qr_id_time", () -> qrRedirectLogRepository.findByQrIdOrderByRedirectTimeDesc(qrId));
+        assertUsesIndex("idx_qr_redirect_logs_qr_id_time", () -> qrRedirectLogRepository.countByQrIdAndSuccessTrue(qrId));
+        assertUsesIndex("idx_qr_redirect_logs_qr_id_time", () -> qrRedirectLogRepository.countSuccessfulRedirectsByQrId(qrId));
+        assertUsesIndex("idx_qr_redirect_logs_redirect_time",
+                () -> qrRedirectLogRepository.findByRedirectTimeBetween(NOW.minusDays(7), NOW));
+        assertUsesIndex("idx_qr_redirect_logs_succeeded", () -> qrRedirectLogRepository.countBySuccessTrue());
+        assertUsesIndex("idx_qr_redirect_logs_succeeded", () -> qrRedirectLogRepository.countTotalSuccessfulRedirects());
+        assertUsesIndex("idx_qr_redirect_logs_succeeded",
+                () -> qrRedirectLogRepository.countSuccessfulRedirectsSince(NOW.minusDays(1)));
+        assertUsesIndex("idx_qr_redirect_logs_failed", () -> qrRedirectLogRepository.countTotalFailedRedirects());
+    }
+
+    @Test
+    void publicationQueriesUseThePublicationIndexes() {
+        Long publicationId = jdbcTemplate.queryForObject("SELECT min(id) FROM publications", Long.class);
+        PageRequest newestFirst = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+
+        assertUsesIndex("uk_publications_slug", () -> publicationRepository.findBySlug("pub-1"));
+        assertUsesIndex("idx_publications_status_created_at",
+                () -> publicationRepository.findByStatus(Publication.PublicationStatus.PUBLISHED, newestFirst));
+        assertUsesIndex("idx_publications_status_created_at",
+                () -> publicationRepository.countByStatus(Publication.PublicationStatus.PUBLISHED));
+        assertUsesIndex("idx_publication_photos_publication",
+                () -> publicationPhotoRepository.findMetadataByPublicationId(publicationId));
+        assertUsesIndex("idx_publication_photos_publication",
+                () -> publicationPhotoRepository.findMetadataByPublicationIds(List.of(publicationId, publicationId + 1)));
+        assertUsesIndex("idx_publication_photos_unattached",
+                () -> publicationPhotoRepository.findByPublicationIsNullAndCreatedAtBefore(NOW.minusDays(1)));
+        assertUsesIndex("publication_photos_pkey", () -> publicationPhotoRepository.findMetadataById(1L));
+    }
+
+    @Test
+    void logoVersionLookupUsesThePrimaryKey() {
+        assertUsesIndex("application_logos_pkey",
+                () -> applicationLogoRepository.findUpdatedAtByApplicationId(firstApplicationId()));
+    }
+
+    private Long firstApplicationId() {
+        return jdbcTemplate.queryForObject("SELECT min(id) FROM applications", Long.class);
+    }
+
+    private void assertUsesIndex(String index, Supplier<?> query) {
+        List<String> plans = explainingDataSource.explain(query);
+
+        assertThat(plans).as("statements run").isNotEmpty();
+        assertThat(plans).allSatisfy(plan -> assertThat(plan)
+                .contains("\"Index Name\": \"" + index + "\"")
+                .doesNotContain("\"Seq Scan\""));
+    }
+}
@@ -0,0 +1,160 @@
+package com.qr.service;
+
+import com.qr.dto.PublicationStatsResponse;
+import com.qr.dto.QrCodeStatsResponse;
+import com.qr.entity.Publication.PublicationStatus;
+import com.qr.event.QrCodeCreatedEvent;
+import com.qr.event.QrCodeUpdatedEvent;
+import com.qr.event.QrCodesBulkUpdatedEvent;
+import com.qr.event.QrCodesImportedEvent;
+import com.qr.repository.PublicationRepository;
+import com.qr.repository.QrCodeRepository;
+import com.qr.repository.QrRedirectLogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DashboardStatisticsTest {
+
+    private QrCodeRepository qrCodeRepository;
+    private PublicationRepository publicationRepository;
+    private QrRedirectLogRepository qrRedirectLogRepository;
+    private DashboardStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        qrCodeRepository = mock(QrCodeRepository.class);
+        publicationRepository = mock(PublicationRepository.class);
+        qrRedirectLogRepository = mock(QrRedirectLogRepository.class);
+        databaseHolds(10, 2, 40, 7);
+        when(publicationRepository.countAndViewsByStatus()).thenReturn(List.of(
+                new Object[] {PublicationStatus.PUBLISHED, 3L, 100L},
+                new Object[] {PublicationStatus.DRAFT, 2L, 0L}));
+
+        statistics = new DashboardStatistics(qrCodeRepository, publicationRepository, qrRedirectLogRepository);
+        statistics.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void startupLoadsTheCountsOnce() {
+        assertQrCodes(10, 2, 40, 7);
+        PublicationStatsResponse publications = statistics.publicationStats();
+        assertThat(publications.getTotalPublications()).isEqualTo(5);
+        assertThat(publications.getPublished()).isEqualTo(3);
+        assertThat(publications.getDrafts()).isEqualTo(2);
+        assertThat(publications.getScheduled()).isZero();
+        assertThat(publications.getTotalViews()).isEqualTo(100);
+
+        statistics.qrCodeStats();
+        statistics.publicationStats();
+        verify(qrCodeRepository, times(1)).countByActive();
+        verify(publicationRepository, times(1)).countAndViewsByStatus();
+    }
+
+    @Test
+    void committedChangesAreCountedWithoutQueries() {
+        statistics.onQrCodeCreated(new QrCodeCreatedEvent(1L, "NEW-1", null));
+        statistics.onQrCodeCreated(new QrCodeCreatedEvent(2L, "NEW-2", null));
+        statistics.onQrCodeUpdated(new QrCodeUpdatedEvent(1L, "NEW-1", true));
+        statistics.onQrCodeUpdated(new QrCodeUpdatedEvent(2L, "NEW-2", false));
+        statistics.onQrCodesImported(new QrCodesImportedEvent(5, 3));
+        statistics.scanRecorded();
+        statistics.publicationCreated(PublicationStatus.DRAFT);
+        statistics.publicationStatusChanged(PublicationStatus.DRAFT, PublicationStatus.PUBLISHED);
+        statistics.publicationViewed();
+        statistics.publicationDeleted(PublicationStatus.PUBLISHED, 10);
+
+        assertQrCodes(16, 3, 41, 8);
+        PublicationStatsResponse publications = statistics.publicationStats();
+        assertThat(publications.getPublished()).isEqualTo(3);
+        assertThat(publications.getDrafts()).isEqualTo(2);
+        assertThat(publications.getTotalViews()).isEqualTo(91);
+        verify(qrCodeRepository, times(1)).countByActive();
+    }
+
+    @Test
+    void changesApplyOnlyWhenTheirTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        statistics.publicationCreated(PublicationStatus.SCHEDULED);
+        statistics.scanRecorded();
+        assertThat(statistics.publicationStats().getScheduled()).isZero();
+
+        // Rolled back: the synchronizations are dropped without running
+        TransactionSynchronizationManager.clearSynchronization();
+        assertThat(statistics.publicationStats().getScheduled()).isZero();
+        assertQrCodes(10, 2, 40, 7);
+
+        TransactionSynchronizationManager.initSynchronization();
+        statistics.publicationCreated(PublicationStatus.SCHEDULED);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+        assertThat(statistics.publicationStats().getScheduled()).isEqualTo(1);
+    }
+
+    @Test
+    void reconcilingCorrectsDrift() {
+        statistics.onQrCodeCreated(new QrCodeCreatedEvent(1L, "NEW-1", null));
+        statistics.scanRecorded();
+        // Another instance deactivated codes and recorded scans meanwhile
+        databaseHolds(9, 4, 45, 9);
+
+        statistics.reconcile();
+
+        assertQrCodes(9, 4, 45, 9);
+    }
+
+    @Test
+    void bulkUpdatesRecountTheCodesOnTheNextRead() {
+        databaseHolds(6, 6, 40, 7);
+        statistics.onQrCodesBulkUpdated(new QrCodesBulkUpdatedEvent(List.of(1L), List.of("NEW-1")));
+
+        assertQrCodes(6, 6, 40, 7);
+        statistics.qrCodeStats();
+        verify(qrCodeRepository, times(2)).countByActive();
+    }
+
+    @Test
+    void failedReconciliationKeepsTheCounts() {
+        when(qrCodeRepository.countByActive()).thenThrow(new IllegalStateException("database unavailable"));
+        when(qrRedirectLogRepository.countSuccessfulRedirectsSince(any())).thenThrow(new IllegalStateException("database unavailable"));
+
+        statistics.reconcile();
+
+        assertQrCodes(10, 2, 40, 7);
+    }
+
+    private void databaseHolds(long active, long inactive, long scans, long scansToday) {
+        when(qrCodeRepository.countByActive()).thenReturn(List.of(
+                new Object[] {true, active},
+                new Object[] {false, inactive}));
+        when(qrRedirectLogRepository.countTotalSuccessfulRedirects()).thenReturn(scans);
+        when(qrRedirectLogRepository.countSuccessfulRedirectsSince(any())).thenReturn(scansToday);
+    }
+
+    private void assertQrCodes(long active, long inactive, long scans, long scansToday) {
+        QrCodeStatsResponse stats = statistics.qrCodeStats();
+        assertThat(stats.getActiveQrCodes()).isEqualTo(active);
+        assertThat(stats.getInactiveQrCodes()).isEqualTo(inactive);
+        assertThat(stats.getTotalQrCodes()).isEqualTo(active + inactive);
+        assertThat(stats.getTotalScans()).isEqualTo(scans);
+        assertThat(stats.getScansToday()).isEqualTo(scansToday);
+    }
+}
@@ -0,0 +1,247 @@
+package com.qr.service;
+
+import com.qr.EmbeddedDatabaseConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the reference counting against the real photo_blobs table, with committed transactions
+ * on separate connections, so the races between photos being saved and the sweep are the ones
+ * PostgreSQL's row locks decide in production.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PhotoBlobReferences.class, EmbeddedDatabaseConfiguration.class, PhotoBlobReferencesTest.Metrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PhotoBlobReferencesTest {
+
+    private static final String KEY = "a".repeat(64);
+    private static final int CALLERS = 32;
+
+    @Autowired
+    private PhotoBlobReferences references;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @MockBean
+    private BlobStore blobStore;
+    @MockBean
+    private PhotoVariantService photoVariantService;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+    private final AtomicBoolean stored = new AtomicBoolean(true);
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Metrics {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(blobStore.exists(anyString())).thenAnswer(invocation -> stored.get());
+        when(blobStore.delete(KEY)).thenAnswer(invocation -> stored.getAndSet(false));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        jdbcTemplate.update("DELETE FROM photo_blobs");
+    }
+
+    @Test
+    void concurrentReferencesAreAllCounted() throws Exception {
+        references.register(KEY);
+
+        List<Future<Boolean>> acquired = callConcurrently(CALLERS,
+                () -> transactionTemplate.execute(status -> references.acquire(KEY)));
+        // Only the first reference finds the content new
+        assertThat(acquired.stream().filter(this::get).count()).isEqualTo(1);
+        assertThat(refCount()).isEqualTo(CALLERS);
+
+        callConcurrently(CALLERS / 2, () -> {
+            transactionTemplate.executeWithoutResult(status -> references.release(KEY));
+            return true;
+        }).forEach(this::get);
+        assertThat(refCount()).isEqualTo(CALLERS / 2);
+        assertThat(isReleased()).isFalse();
+
+        callConcurrently(CALLERS, () -> {
+            transactionTemplate.executeWithoutResult(status -> references.release(KEY));
+            return true;
+        }).forEach(this::get);
+        // Releases past zero are ignored
+        assertThat(refCount()).isZero();
+        assertThat(isReleased()).isTrue();
+    }
+
+    @Test
+    void photoSavedDuringTheSweepKeepsTheBlob() throws Exception {
+        releasedLongAgo(KEY);
+        CountDownLatch acquired = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        Future<?> saving = pool.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            references.acquire(KEY);
+            acquired.countDown();
+            await(commit);
+        }));
+        await(acquired);
+        // The sweep still sees the committed count of zero, and blocks deleting the row
+        Future<?> sweeping = pool.submit(references::reclaim);
+        awaitLockWaiters();
+        commit.countDown();
+
+        saving.get(10, TimeUnit.SECONDS);
+        sweeping.get(10, TimeUnit.SECONDS);
+        assertThat(refCount()).isEqualTo(1);
+        verify(blobStore, never()).delete(any());
+        verifyNoInteractions(photoVariantService);
+    }
+
+    @Test
+    void photoSavedAfterTheSweepDeletedTheRowFails() throws Exception {
+        releasedLongAgo(KEY);
+        CountDownLatch reclaiming = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        when(photoVariantService.remove(KEY)).thenAnswer(invocation -> {
+            reclaiming.countDown();
+            await(commit);
+            return List.of();
+        });
+
+        Future<?> sweeping = pool.submit(references::reclaim);
+        await(reclaiming);
+        // The row is deleted but not committed: taking a reference waits for the sweep
+        Future<Boolean> saving = pool.submit(() -> transactionTemplate.execute(status -> references.acquire(KEY)));
+        awaitLockWaiters();
+        commit.countDown();
+
+        sweeping.get(10, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> saving.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause().isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("was reclaimed while being stored");
+        // The failed save rolled back, leaving nothing to reclaim
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM photo_blobs", Integer.class)).isZero();
+        verify(blobStore).delete(KEY);
+    }
+
+    @Test
+    void sweepDeletesOnlyBlobsPastTheGraceAndKeepsReferencedVariants() {
+        String recent = "b".repeat(64);
+        String ownVariant = "c".repeat(64);
+        String sharedVariant = "d".repeat(64);
+        releasedLongAgo(KEY);
+        references.register(recent);
+        transactionTemplate.execute(status -> references.acquire(sharedVariant));
+        when(photoVariantService.remove(KEY)).thenReturn(List.of(ownVariant, sharedVariant));
+        double reclaimed = meterRegistry.counter("publication.photo.blobs.reclaimed").count();
+
+        references.reclaim();
+
+        verify(blobStore).delete(KEY);
+        verify(blobStore).delete(ownVariant);
+        verify(blobStore, never()).delete(sharedVariant);
+        verify(blobStore, never()).delete(recent);
+        assertThat(jdbcTemplate.queryForList("SELECT blob_key FROM photo_blobs ORDER BY blob_key", String.class))
+                .containsExactly(recent, sharedVariant);
+        assertThat(meterRegistry.counter("publication.photo.blobs.reclaimed").count()).isEqualTo(reclaimed + 1);
+    }
+
+    private void releasedLongAgo(String key) {
+        jdbcTemplate.update("INSERT INTO photo_blobs (blob_key, ref_count, released_at) "
+                + "VALUES (?, 0, now() - interval '1 day')", key);
+    }
+
+    private Integer refCount() {
+        return jdbcTemplate.queryForObject("SELECT ref_count FROM photo_blobs WHERE blob_key = ?", Integer.class, KEY);
+    }
+
+    private boolean isReleased() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT released_at IS NOT NULL FROM photo_blobs WHERE blob_key = ?", Boolean.class, KEY));
+    }
+
+    private <T> List<Future<T>> callConcurrently(int callers, Callable<T> call) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> results = new ArrayList<>(callers);
+        for (int i = 0; i < callers; i++) {
+            results.add(pool.submit(() -> {
+                await(start);
+                return call.call();
+            }));
+        }
+        start.countDown();
+        return results;
+    }
+
+    private <T> T get(Future<T> result) {
+        try {
+            return result.get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Waits until another connection is blocked on a row lock
+    private void awaitLockWaiters() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (jdbcTemplate.queryForObject("SELECT count(*) FROM pg_stat_activity "
+                + "WHERE datname = current_database() AND wait_event_type = 'Lock'", Integer.class) == 0) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Test latch was never released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.qr.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PhotoBlobServiceTest {
+
+    @Test
+    void sniffsTheAcceptedImageTypes() throws IOException {
+        assertThat(PhotoBlobService.sniffContentType(encode("jpeg"))).isEqualTo(MediaType.IMAGE_JPEG);
+        assertThat(PhotoBlobService.sniffContentType(encode("png"))).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(PhotoBlobService.sniffContentType(encode("gif"))).isEqualTo(MediaType.IMAGE_GIF);
+        assertThat(PhotoBlobService.sniffContentType(ascii("GIF87a\1\0\1\0"))).isEqualTo(MediaType.IMAGE_GIF);
+        assertThat(PhotoBlobService.sniffContentType(ascii("RIFF$\0\0\0WEBPVP8 ")))
+                .isEqualTo(MediaType.parseMediaType("image/webp"));
+    }
+
+    @Test
+    void rejectsEverythingElse() throws IOException {
+        assertThat(PhotoBlobService.sniffContentType(new byte[0])).isNull();
+        // Too short to hold the whole signature
+        assertThat(PhotoBlobService.sniffContentType(Arrays.copyOf(encode("png"), 7))).isNull();
+        assertThat(PhotoBlobService.sniffContentType(new byte[] {(byte) 0xFF, (byte) 0xD8})).isNull();
+        // A RIFF container that is not WebP, e.g. WAV audio
+        assertThat(PhotoBlobService.sniffContentType(ascii("RIFF$\0\0\0WAVEfmt "))).isNull();
+        assertThat(PhotoBlobService.sniffContentType(ascii("<svg xmlns=\"http://www.w3.org/2000/svg\">"))).isNull();
+        assertThat(PhotoBlobService.sniffContentType(ascii("<html><body>not an image"))).isNull();
+        assertThat(PhotoBlobService.sniffContentType(ascii("%PDF-1.7\n"))).isNull();
+    }
+
+    @Test
+    void dataUrlTypesOnlyApplyWhenTheContentIsNotRecognised() throws IOException {
+        byte[] png = encode("png");
+        byte[] unknown = ascii("not an image");
+
+        assertThat(PhotoBlobService.contentType(png, "data:image/jpeg;base64,")).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(PhotoBlobService.contentType(unknown, "data:image/bmp;base64,"))
+                .isEqualTo(MediaType.parseMediaType("image/bmp"));
+        assertThat(PhotoBlobService.contentType(unknown, "data:text/html;base64,")).isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+        assertThat(PhotoBlobService.contentType(unknown, "data:image/*;base64,")).isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+        assertThat(PhotoBlobService.contentType(unknown, "data:;base64,")).isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+        assertThat(PhotoBlobService.contentType(unknown, null)).isEqualTo(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    @Test
+    void uploadsAreCheckedByContentNotByName() throws IOException {
+        PhotoBlobService service = new PhotoBlobService(null, null, null, null, null);
+        ReflectionTestUtils.setField(service, "maxUploadSize", DataSize.ofKilobytes(64));
+        byte[] png = encode("png");
+
+        service.checkUpload(new ByteArrayInputStream(png), png.length, "photo.png");
+        assertThatThrownBy(() -> service.checkUpload(new ByteArrayInputStream(ascii("<html>")), 6, "photo.jpg"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Not a JPEG, PNG, GIF or WebP image: photo.jpg");
+        assertThatThrownBy(() -> service.checkUpload(new ByteArrayInputStream(png), 65 * 1024, "large.png"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("larger than");
+    }
+
+    private static byte[] encode(String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), format, out);
+        return out.toByteArray();
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
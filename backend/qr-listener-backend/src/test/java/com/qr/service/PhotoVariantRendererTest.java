@@ -0,0 +1,127 @@
+package com.qr.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhotoVariantRendererTest {
+
+    private static final int ORIENTATION_TAG = 0x0112;
+    private static final int IMAGE_WIDTH_TAG = 0x0100;
+
+    private final PhotoVariantRenderer renderer = new PhotoVariantRenderer(0.9f, 24_000_000);
+
+    @Test
+    void readsTheOrientationInEitherByteOrder() {
+        for (int orientation = 1; orientation <= 8; orientation++) {
+            assertThat(PhotoVariantRenderer.exifOrientation(exif(ByteOrder.LITTLE_ENDIAN, ORIENTATION_TAG, orientation)))
+                    .isEqualTo(orientation);
+            assertThat(PhotoVariantRenderer.exifOrientation(exif(ByteOrder.BIG_ENDIAN, ORIENTATION_TAG, orientation)))
+                    .isEqualTo(orientation);
+        }
+    }
+
+    @Test
+    void findsTheOrientationAmongOtherTags() {
+        assertThat(PhotoVariantRenderer.exifOrientation(exif(ByteOrder.BIG_ENDIAN, IMAGE_WIDTH_TAG, 640, ORIENTATION_TAG, 8)))
+                .isEqualTo(8);
+    }
+
+    @Test
+    void missingOrInvalidOrientationsAreTakenAsStored() {
+        assertThat(PhotoVariantRenderer.exifOrientation(exif(ByteOrder.LITTLE_ENDIAN, IMAGE_WIDTH_TAG, 640))).isEqualTo(1);
+        assertThat(PhotoVariantRenderer.exifOrientation(exif(ByteOrder.LITTLE_ENDIAN, ORIENTATION_TAG, 0))).isEqualTo(1);
+        assertThat(PhotoVariantRenderer.exifOrientation(exif(ByteOrder.LITTLE_ENDIAN, ORIENTATION_TAG, 9))).isEqualTo(1);
+        assertThat(PhotoVariantRenderer.exifOrientation("XMP\0\0\0\0\0\0\0\0\0\0\0".getBytes())).isEqualTo(1);
+
+        // IFD0 offset pointing past the segment, and an entry count running past it
+        byte[] badOffset = exif(ByteOrder.LITTLE_ENDIAN, ORIENTATION_TAG, 6);
+        ByteBuffer.wrap(badOffset).order(ByteOrder.LITTLE_ENDIAN).putInt(10, 4096);
+        assertThat(PhotoVariantRenderer.exifOrientation(badOffset)).isEqualTo(1);
+        byte[] truncated = exif(ByteOrder.LITTLE_ENDIAN, IMAGE_WIDTH_TAG, 640, ORIENTATION_TAG, 6);
+        assertThat(PhotoVariantRenderer.exifOrientation(Arrays.copyOf(truncated, truncated.length - 12))).isEqualTo(1);
+    }
+
+    @Test
+    void rotatesVariantsOfPhotosTakenSideways() throws IOException {
+        // Stored 80x40, red on the left and blue on the right; orientation 6 displays it rotated clockwise
+        BufferedImage stored = new BufferedImage(80, 40, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = stored.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 40, 40);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(40, 0, 40, 40);
+        graphics.dispose();
+        byte[] jpeg = withExifFirst(stored, exif(ByteOrder.BIG_ENDIAN, ORIENTATION_TAG, 6));
+
+        PhotoVariantRenderer.Rendered rendered;
+        try (ImageInputStream source = ImageIO.createImageInputStream(new ByteArrayInputStream(jpeg))) {
+            rendered = renderer.render(source, List.of(20));
+        }
+
+        assertThat(rendered.getWidth()).isEqualTo(40);
+        assertThat(rendered.getHeight()).isEqualTo(80);
+        PhotoVariantRenderer.Variant variant = rendered.getVariants().get(0);
+        assertThat(variant.getWidth()).isEqualTo(20);
+        assertThat(variant.getHeight()).isEqualTo(40);
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(variant.getContent()));
+        assertThat(image.getWidth()).isEqualTo(20);
+        assertThat(image.getHeight()).isEqualTo(40);
+        assertThat(new Color(image.getRGB(10, 8)).getRed()).isGreaterThan(200);
+        assertThat(new Color(image.getRGB(10, 32)).getBlue()).isGreaterThan(200);
+    }
+
+    /**
+     * An APP1 segment body: "Exif\0\0", a TIFF header and IFD0 with the given (tag, SHORT value) pairs.
+     */
+    private static byte[] exif(ByteOrder order, int... tagsAndValues) {
+        int entries = tagsAndValues.length / 2;
+        ByteBuffer buffer = ByteBuffer.allocate(6 + 8 + 2 + entries * 12 + 4).order(order);
+        buffer.put("Exif\0\0".getBytes());
+        buffer.put(order == ByteOrder.LITTLE_ENDIAN ? (byte) 'I' : (byte) 'M');
+        buffer.put(order == ByteOrder.LITTLE_ENDIAN ? (byte) 'I' : (byte) 'M');
+        buffer.putShort((short) 42);
+        buffer.putInt(8);
+        buffer.putShort((short) entries);
+        for (int i = 0; i < entries; i++) {
+            buffer.putShort((short) tagsAndValues[2 * i]);
+            buffer.putShort((short) 3); // SHORT
+            buffer.putInt(1);
+            buffer.putShort((short) tagsAndValues[2 * i + 1]);
+            buffer.putShort((short) 0);
+        }
+        buffer.putInt(0);
+        return buffer.array();
+    }
+
+    // Phones write the Exif segment ahead of JFIF, which ImageIO's metadata reader rejects
+    private static byte[] withExifFirst(BufferedImage image, byte[] exif) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", encoded);
+        byte[] jpeg = encoded.toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write((exif.length + 2) >> 8);
+        out.write((exif.length + 2) & 0xFF);
+        out.write(exif);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,105 @@
+package com.qr.service;
+
+import com.qr.EmbeddedDatabaseConfiguration;
+import com.qr.dto.PagedResponse;
+import com.qr.dto.PublicationResponse;
+import com.qr.entity.Publication;
+import com.qr.entity.PublicationPhoto;
+import com.qr.repository.PublicationRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({PublicationService.class, EmbeddedDatabaseConfiguration.class})
+class PublicationServiceTest {
+
+    private static final int PHOTOS_PER_PUBLICATION = 3;
+
+    @MockBean
+    private DashboardStatistics dashboardStatistics;
+    @MockBean
+    private PhotoBlobService photoBlobService;
+    @MockBean
+    private PhotoBlobReferences photoBlobReferences;
+
+    @Autowired
+    private PublicationService publicationService;
+    @Autowired
+    private PublicationRepository publicationRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 100; i++) {
+            Publication publication = Publication.builder()
+                    .contentType(Publication.ContentType.COUPLE)
+                    .primaryNames("Publication " + i)
+                    .slug("publication-" + i)
+                    .story("Story " + i)
+                    .status(Publication.PublicationStatus.PUBLISHED)
+                    .createdBy("test")
+                    .viewCount(0L)
+                    .build();
+            List<PublicationPhoto> photos = new ArrayList<>();
+            for (int j = 0; j < PHOTOS_PER_PUBLICATION; j++) {
+                photos.add(PublicationPhoto.builder()
+                        .publication(publication)
+                        .fileName("photo-" + j + ".jpg")
+                        .imageKey(String.format("%064x", i * PHOTOS_PER_PUBLICATION + j))
+                        .contentType("image/jpeg")
+                        .sizeBytes(1024L)
+                        .isCover(j == 0)
+                        .displayOrder(j)
+                        .build());
+            }
+            publication.setPhotos(photos);
+            publicationRepository.save(publication);
+        }
+        // Listings must load from the database, not from the entities just saved
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void listingCostsTheSameStatementsForAnyPageSize() {
+        long small = statementsFor(10);
+        long large = statementsFor(100);
+
+        // The page, its count and the photos of the whole page
+        assertThat(small).isEqualTo(3);
+        assertThat(large).isEqualTo(small);
+    }
+
+    private long statementsFor(int pageSize) {
+        entityManager.clear();
+        statistics.clear();
+
+        PagedResponse<PublicationResponse> page = publicationService.getAllPublications(0, pageSize, "createdAt", "desc");
+
+        assertThat(page.getContent()).hasSize(pageSize)
+                .allSatisfy(publication -> assertThat(publication.getPhotos()).hasSize(PHOTOS_PER_PUBLICATION));
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,95 @@
+package com.qr.service;
+
+import com.qr.dto.QrCodeStyle;
+import com.qr.entity.QrCode;
+import com.qr.repository.QrCodeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QrCodeGenerationServiceTest {
+
+    private static final int CALLERS = 500;
+    private static final List<String> QR_IDS = List.of("ACME-7KQ2M9XZ", "ACME-3PW8R2NV", "ACME-9TX4H6BC", "ACME-5MD7F2QJ");
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+    private QrCodeRepository qrCodeRepository;
+    private QrCodeStorageService qrCodeStorageService;
+    private QrCodeGenerationService generationService;
+
+    @BeforeEach
+    void setUp() {
+        qrCodeRepository = mock(QrCodeRepository.class);
+        for (String qrId : QR_IDS) {
+            when(qrCodeRepository.findByQrIdAndIsActiveTrue(qrId)).thenReturn(Optional.of(QrCode.builder()
+                    .qrId(qrId)
+                    .isActive(true)
+                    .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                    .build()));
+        }
+        qrCodeStorageService = mock(QrCodeStorageService.class);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        generationService = spy(new QrCodeGenerationService(qrCodeRepository, null,
+                new QrImageCache(DataSize.ofMegabytes(1), meterRegistry), qrCodeStorageService,
+                new QrCodeVersionCache(1000, Duration.ofMinutes(1)), new QrCodeStreamingRenderer(),
+                new SingleFlightExecutor(Duration.ofSeconds(30), meterRegistry), null, null));
+        ReflectionTestUtils.setField(generationService, "redirectBaseUrl", "http://localhost:8080");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void burstOfMissesRendersEachImageOnce() throws Exception {
+        QrCodeStyle style = QrCodeStyle.builder().size(512).format("PNG").build();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<byte[]>> results = new ArrayList<>(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            String qrId = QR_IDS.get(i % QR_IDS.size());
+            results.add(pool.submit(() -> {
+                start.await();
+                Resource image = generationService.generateQrCodeImage(qrId, style);
+                return image.getContentAsByteArray();
+            }));
+        }
+        start.countDown();
+
+        for (Future<byte[]> result : results) {
+            assertThat(result.get(30, TimeUnit.SECONDS)).isNotEmpty();
+        }
+        for (String qrId : QR_IDS) {
+            verify(generationService, times(1)).createQrCodeImage(eq(qrId), any());
+            verify(qrCodeRepository, times(1)).findByQrIdAndIsActiveTrue(qrId);
+            verify(qrCodeStorageService, times(1)).saveQrCodeImage(eq(qrId), anyString(), any());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.qr.service;
+
+import com.qr.EmbeddedDatabaseConfiguration;
+import com.qr.dto.QrCodeImportError;
+import com.qr.dto.QrCodeImportResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Imports through COPY into the migrated schema, committing like the endpoint does, so the merge
+ * statement's conflict handling is the one PostgreSQL applies.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({QrCodeImportService.class, EmbeddedDatabaseConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class QrCodeImportServiceTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2023, 1, 1, 12, 0);
+    private static final String CSV = """
+            qr_id,target_url,description
+            LEGACY-1,https://new.example.com/1,
+            NEW-1,https://example.com/a,"first, with a comma"
+            NEW-1,https://example.com/b,"last ""wins""\"
+            bad id,https://example.com/c
+            NEW-2,ftp://example.com/d
+            NEW-3,https://example.com/e
+            ACME-7KQ2M9XZ,https://example.com/f
+            """;
+
+    @Autowired
+    private QrCodeImportService importService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @MockBean
+    private QrCodeVersionCache qrCodeVersionCache;
+
+    private final List<QrCodeImportError> rejected = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO qr_codes (qr_id, target_url, description, created_by, is_active, created_at) "
+                + "VALUES ('LEGACY-1', 'https://old.example.com/1', 'Kept', 'vendor', true, ?)", CREATED);
+        ReflectionTestUtils.setField(importService, "maxRows", 5_000_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM qr_codes");
+    }
+
+    @Test
+    void mergesTheFileIntoExistingCodes() {
+        QrCodeImportResponse response = importCsv(QrCodeImportService.OnConflict.UPDATE);
+
+        assertThat(response.getStatus()).isEqualTo("COMPLETED");
+        assertThat(response.getRows()).isEqualTo(7);
+        assertThat(response.getInserted()).isEqualTo(2);
+        assertThat(response.getUpdated()).isEqualTo(1);
+        // The first NEW-1 row lost to the later one
+        assertThat(response.getSkipped()).isEqualTo(1);
+        assertThat(response.getRejected()).isEqualTo(3);
+        assertThat(rejected).extracting(QrCodeImportError::getLine).containsExactly(5L, 6L, 8L);
+        assertThat(rejected).extracting(QrCodeImportError::getQrId).containsExactly("bad id", "NEW-2", "ACME-7KQ2M9XZ");
+
+        Map<String, Object> legacy = row("LEGACY-1");
+        assertThat(legacy.get("target_url")).isEqualTo("https://new.example.com/1");
+        // An empty description keeps the existing one; the original creator is kept
+        assertThat(legacy.get("description")).isEqualTo("Kept");
+        assertThat(legacy.get("created_by")).isEqualTo("vendor");
+        assertThat(legacy.get("updated_at")).isNotNull();
+
+        Map<String, Object> last = row("NEW-1");
+        assertThat(last.get("target_url")).isEqualTo("https://example.com/b");
+        assertThat(last.get("description")).isEqualTo("last \"wins\"");
+        assertThat(last.get("created_by")).isEqualTo("importer");
+        assertThat(row("NEW-3").get("description")).isNull();
+        verify(qrCodeVersionCache).clear();
+    }
+
+    @Test
+    void skipModeLeavesExistingCodesAlone() {
+        QrCodeImportResponse response = importCsv(QrCodeImportService.OnConflict.SKIP);
+
+        assertThat(response.getInserted()).isEqualTo(2);
+        assertThat(response.getUpdated()).isZero();
+        assertThat(response.getSkipped()).isEqualTo(2);
+        assertThat(row("LEGACY-1").get("target_url")).isEqualTo("https://old.example.com/1");
+        assertThat(row("LEGACY-1").get("updated_at")).isNull();
+        verify(qrCodeVersionCache, never()).clear();
+    }
+
+    @Test
+    void failedImportsLeaveNoRows() {
+        ReflectionTestUtils.setField(importService, "maxRows", 3L);
+
+        QrCodeImportResponse response = importCsv(QrCodeImportService.OnConflict.UPDATE);
+
+        assertThat(response.getStatus()).isEqualTo("FAILED");
+        assertThat(response.getError()).isEqualTo("The file has more than 3 rows");
+        assertThat(jdbcTemplate.queryForList("SELECT qr_id FROM qr_codes", String.class)).containsExactly("LEGACY-1");
+        assertThat(row("LEGACY-1").get("target_url")).isEqualTo("https://old.example.com/1");
+    }
+
+    private QrCodeImportResponse importCsv(QrCodeImportService.OnConflict onConflict) {
+        return importService.importCsv(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)),
+                "importer", null, onConflict, rejected::add);
+    }
+
+    private Map<String, Object> row(String qrId) {
+        return jdbcTemplate.queryForMap("SELECT * FROM qr_codes WHERE qr_id = ?", qrId);
+    }
+}
@@ -0,0 +1,97 @@
+package com.qr.service;
+
+import com.qr.EmbeddedDatabaseConfiguration;
+import com.qr.dto.QrCodeSummary;
+import com.qr.event.QrCodeCreatedEvent;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "qr.recent.capacity=50",
+        "qr.recent.ttl=1h"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({QrCodeRecentFeed.class, EmbeddedDatabaseConfiguration.class})
+class QrCodeRecentFeedTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Autowired
+    private QrCodeRecentFeed feed;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private int rows;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void readsCostOneBoundedQueryHoweverLargeTheTable() {
+        growTo(1_000);
+        long small = statementsFor(() -> assertThat(feed.recent(20)).hasSize(20));
+
+        growTo(50_000);
+        feed.onQrCodesImported(null);
+        long large = statementsFor(() -> assertThat(feed.recent(20)).hasSize(20));
+
+        assertThat(small).isEqualTo(1);
+        assertThat(large).isEqualTo(small);
+        // Later reads are served from the ring
+        assertThat(statementsFor(() -> assertThat(feed.recent(50)).hasSize(50))).isZero();
+    }
+
+    @Test
+    void creationsExtendTheRingWithoutQueries() {
+        growTo(1_000);
+        feed.recent(20);
+
+        QrCodeSummary created = new QrCodeSummary(-1L, "NEW-00000001", "https://example.com/new", null,
+                "test", NOW.plusMinutes(1), null, true);
+        long statements = statementsFor(() -> feed.onQrCodeCreated(new QrCodeCreatedEvent(-1L, created.getQrId(), created)));
+
+        assertThat(statements).isZero();
+        assertThat(statementsFor(() -> assertThat(feed.recent(1)).containsExactly(created))).isZero();
+    }
+
+    @Test
+    void creationsBeforeTheFirstReadCostNothing() {
+        QrCodeSummary created = new QrCodeSummary(-1L, "NEW-00000001", "https://example.com/new", null,
+                "test", NOW, null, true);
+
+        assertThat(statementsFor(() -> feed.onQrCodeCreated(new QrCodeCreatedEvent(-1L, created.getQrId(), created))))
+                .isZero();
+    }
+
+    // Active codes, one a minute back from NOW, with every tenth one inactive
+    private void growTo(int total) {
+        jdbcTemplate.update("INSERT INTO qr_codes (qr_id, target_url, created_by, is_active, created_at) "
+                + "SELECT 'AB-' || lpad(i::text, 8, '0'), 'https://example.com/' || i, 'test', i % 10 <> 0, "
+                + "?::timestamp - i * interval '1 minute' FROM generate_series(?, ?) i", NOW, rows + 1, total);
+        rows = total;
+        jdbcTemplate.execute("ANALYZE qr_codes");
+    }
+
+    private long statementsFor(Runnable call) {
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,60 @@
+package com.qr.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QrCodeStorageServiceTest {
+
+    private static final String QR_ID = "ACME-7KQ2M9XZ";
+    private static final byte[] IMAGE = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3, 4};
+
+    @TempDir
+    Path root;
+
+    private QrCodeStorageService storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new QrCodeStorageService(root.toString(), DataSize.ofBytes(20), new SimpleMeterRegistry());
+        storage.init();
+    }
+
+    @Test
+    void storedImagesAreServedAsFilesThatCanBeReadRepeatedly() throws IOException {
+        storage.saveQrCodeImage(QR_ID, "256|PNG", IMAGE);
+
+        Resource stored = storage.getQrCodeImage(QR_ID, "256|PNG");
+
+        assertThat(stored.isFile()).isTrue();
+        assertThat(stored.contentLength()).isEqualTo(IMAGE.length);
+        // Multi-range responses read the resource once per range
+        assertThat(stored.getContentAsByteArray()).isEqualTo(IMAGE);
+        assertThat(stored.getContentAsByteArray()).isEqualTo(IMAGE);
+        assertThat(storage.getQrCodeImage(QR_ID, "512|PNG")).isNull();
+    }
+
+    @Test
+    void lookupsKeepEntriesAheadOfEviction() {
+        storage.saveQrCodeImage(QR_ID, "a", IMAGE);
+        storage.saveQrCodeImage(QR_ID, "b", IMAGE);
+        assertThat(storage.getQrCodeImage(QR_ID, "a")).isNotNull();
+
+        // The budget holds two images; "b" is now the least recently used
+        storage.saveQrCodeImage(QR_ID, "c", IMAGE);
+
+        assertThat(storage.getQrCodeImage(QR_ID, "a")).isNotNull();
+        assertThat(storage.getQrCodeImage(QR_ID, "b")).isNull();
+
+        storage.deleteQrCodeImages(QR_ID);
+        assertThat(storage.getQrCodeImage(QR_ID, "a")).isNull();
+    }
+}
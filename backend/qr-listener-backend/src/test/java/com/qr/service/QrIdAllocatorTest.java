@@ -0,0 +1,149 @@
+package com.qr.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QrIdAllocatorTest {
+
+    private static final String SECRET = "test-id-secret";
+    private static final long DOMAIN = 2_821_109_907_456L;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+    }
+
+    @Test
+    void permutationIsABijectionOnAReducedDomain() {
+        // Same rounds and keys over two base-36 digits per half, small enough to check every value
+        long halfDomain = 36 * 36;
+        long domain = halfDomain * halfDomain;
+        long[] roundKeys = QrIdAllocator.deriveRoundKeys(SECRET);
+        BitSet seen = new BitSet((int) domain);
+
+        for (long value = 0; value < domain; value++) {
+            long permuted = QrIdAllocator.permute(value, roundKeys, halfDomain);
+            assertThat(permuted).isBetween(0L, domain - 1);
+            assertThat(seen.get((int) permuted)).as("collision at %d", value).isFalse();
+            seen.set((int) permuted);
+        }
+        assertThat(seen.cardinality()).isEqualTo((int) domain);
+    }
+
+    @Test
+    void permutationHasNoCollisionsOverTheFullDomain() {
+        QrIdAllocator allocator = allocator(1000, 0L);
+        Set<Long> seen = new HashSet<>();
+        long stride = DOMAIN / 200_000;
+
+        // The first leased blocks plus values spread over the whole space
+        for (long i = 0; i < 200_000; i++) {
+            for (long value : new long[] {i, 200_000 + i * stride}) {
+                long permuted = allocator.permute(value);
+                assertThat(permuted).isBetween(0L, DOMAIN - 1);
+                assertThat(seen.add(permuted)).as("collision at %d", value).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void leasesANewBlockOnceTheCurrentOneIsUsed() {
+        QrIdAllocator allocator = allocator(3, 0L, 3000L, 6000L);
+        List<String> suffixes = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (long start : new long[] {0L, 3000L}) {
+            for (long value = start; value < start + 3; value++) {
+                String suffix = QrIdAllocator.encode(allocator.permute(value));
+                if (!QrIdAllocator.isHexOnly(suffix)) {
+                    expected.add(suffix);
+                }
+            }
+        }
+
+        for (int i = 0; i < expected.size(); i++) {
+            suffixes.add(allocator.nextSuffix());
+        }
+
+        assertThat(suffixes).containsExactlyElementsOf(expected);
+        verify(jdbcTemplate, times(2)).queryForObject(startsWith("SELECT nextval"), eq(Long.class));
+    }
+
+    @Test
+    void followsTheSequenceIncrementOverTheConfiguredBlockSize() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq("qr_id_block_seq"))).thenReturn(2L);
+        QrIdAllocator allocator = allocator(1000, 0L, 2L);
+
+        for (int i = 0; i < 3; i++) {
+            allocator.nextSuffix();
+        }
+
+        verify(jdbcTemplate, times(2)).queryForObject(startsWith("SELECT nextval"), eq(Long.class));
+    }
+
+    @Test
+    void skipsAllHexSuffixesAcrossABlockBoundary() {
+        long hexValue = firstHexOnlyValue();
+        // A one-value block holding only the hex image forces a second lease
+        QrIdAllocator allocator = allocator(1, hexValue, hexValue + 1);
+
+        String suffix = allocator.nextSuffix();
+
+        assertThat(suffix).isEqualTo(QrIdAllocator.encode(allocator.permute(hexValue + 1)));
+        assertThat(QrIdAllocator.isHexOnly(suffix)).isFalse();
+        verify(jdbcTemplate, times(2)).queryForObject(startsWith("SELECT nextval"), eq(Long.class));
+    }
+
+    @Test
+    void refusesBlocksPastTheEndOfTheSpace() {
+        QrIdAllocator allocator = allocator(1000, DOMAIN - 999);
+
+        assertThatThrownBy(allocator::nextSuffix).hasMessage("QR ID space exhausted");
+    }
+
+    @Test
+    void refusesToStartWithoutASecret() {
+        QrIdAllocator allocator = new QrIdAllocator(jdbcTemplate);
+        ReflectionTestUtils.setField(allocator, "blockSize", 1000);
+        ReflectionTestUtils.setField(allocator, "secret", "");
+
+        assertThatThrownBy(allocator::init).hasMessageContaining("QR_ID_SECRET");
+    }
+
+    private long firstHexOnlyValue() {
+        QrIdAllocator allocator = allocator(1000, 0L);
+        for (long value = 0; ; value++) {
+            if (QrIdAllocator.isHexOnly(QrIdAllocator.encode(allocator.permute(value)))) {
+                return value;
+            }
+        }
+    }
+
+    private QrIdAllocator allocator(int blockSize, Long firstBlock, Long... nextBlocks) {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT nextval"), eq(Long.class))).thenReturn(firstBlock, nextBlocks);
+        QrIdAllocator allocator = new QrIdAllocator(jdbcTemplate);
+        ReflectionTestUtils.setField(allocator, "blockSize", blockSize);
+        ReflectionTestUtils.setField(allocator, "secret", SECRET);
+        allocator.init();
+        return allocator;
+    }
+}
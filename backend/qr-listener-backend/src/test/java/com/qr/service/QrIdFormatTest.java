@@ -0,0 +1,35 @@
+package com.qr.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QrIdFormatTest {
+
+    @Test
+    void acceptsGeneratedAndImportedIds() {
+        assertThat(QrIdFormat.isValid("ACME-7KQ2M9XZ")).isTrue();
+        assertThat(QrIdFormat.isValid("7KQ2M9XZ")).isTrue();
+        assertThat(QrIdFormat.isValid("vendor_code.2019~a")).isTrue();
+        assertThat(QrIdFormat.isValid("has space")).isFalse();
+        assertThat(QrIdFormat.isValid("x".repeat(QrIdFormat.MAX_LENGTH + 1))).isFalse();
+    }
+
+    @Test
+    void reservesTheAllocatorsSuffixSpace() {
+        assertThat(QrIdFormat.isAllocatorFormat("ACME-7KQ2M9XZ")).isTrue();
+        assertThat(QrIdFormat.isAllocatorFormat("7KQ2M9XZ")).isTrue();
+        // All-hex suffixes are legacy IDs the allocator never issues
+        assertThat(QrIdFormat.isAllocatorFormat("ACME-1A2B3C4D")).isFalse();
+        assertThat(QrIdFormat.isAllocatorFormat("ACME-7kq2m9xz")).isFalse();
+        assertThat(QrIdFormat.isAllocatorFormat("vendor-code-42")).isFalse();
+    }
+
+    @Test
+    void allocatedIdsMatchTheSharedFormat() {
+        for (long value = 0; value < 10_000; value += 37) {
+            String id = "ACME-" + QrIdAllocator.encode(value * 1_000_003L);
+            assertThat(QrIdFormat.isValid(id)).isTrue();
+        }
+    }
+}
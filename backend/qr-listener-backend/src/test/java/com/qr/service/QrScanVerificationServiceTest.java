@@ -0,0 +1,104 @@
+package com.qr.service;
+
+import com.qr.dto.QrCodeStyle;
+import com.qr.dto.ScanVerificationRequest;
+import com.qr.dto.ScanVerificationResponse;
+import com.qr.entity.QrCode;
+import com.qr.repository.QrCodeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class QrScanVerificationServiceTest {
+
+    private static final String ACTIVE = "ACME-7KQ2M9XZ";
+    private static final String DEACTIVATED = "ACME-3PW8R2NV";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private QrCodeStorageService qrCodeStorageService;
+    private QrImageCache qrImageCache;
+    private QrScanVerificationService verificationService;
+
+    @BeforeEach
+    void setUp() {
+        QrCodeRepository qrCodeRepository = mock(QrCodeRepository.class);
+        when(qrCodeRepository.findByQrIdAndIsActiveTrue(ACTIVE)).thenReturn(Optional.of(QrCode.builder()
+                .qrId(ACTIVE)
+                .isActive(true)
+                .createdAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build()));
+        when(qrCodeRepository.findByQrIdAndIsActiveTrue(DEACTIVATED)).thenReturn(Optional.empty());
+
+        qrCodeStorageService = mock(QrCodeStorageService.class);
+        qrImageCache = new QrImageCache(DataSize.ofMegabytes(1), meterRegistry);
+        QrCodeGenerationService generationService = new QrCodeGenerationService(qrCodeRepository, null, qrImageCache,
+                qrCodeStorageService, new QrCodeVersionCache(1000, Duration.ofMinutes(1)), new QrCodeStreamingRenderer(),
+                new SingleFlightExecutor(Duration.ofSeconds(10), meterRegistry), null, null);
+        ReflectionTestUtils.setField(generationService, "redirectBaseUrl", "http://localhost:8080");
+
+        verificationService = new QrScanVerificationService(generationService, meterRegistry);
+        ReflectionTestUtils.setField(verificationService, "threads", 2);
+        ReflectionTestUtils.setField(verificationService, "maxReportedFailures", 10);
+        ReflectionTestUtils.setField(verificationService, "maxSize", 2048);
+        verificationService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        verificationService.shutdown();
+    }
+
+    @Test
+    void verifiesEveryStyleWithoutTouchingTheImageCaches() {
+        List<QrCodeStyle> styles = List.of(
+                QrCodeStyle.builder().errorCorrection("L").margin(1).build(),
+                QrCodeStyle.builder().size(512).errorCorrection("H").margin(8).build(),
+                QrCodeStyle.preset("small"));
+
+        ScanVerificationResponse response = verificationService.verify(request(List.of(ACTIVE),
+                styles.toArray(QrCodeStyle[]::new)));
+
+        assertThat(response.getVerified()).isEqualTo(3);
+        assertThat(response.getPassed()).isEqualTo(3);
+        assertThat(styles).noneMatch(style -> qrImageCache.contains(QrImageCache.key(ACTIVE, style)));
+        verifyNoInteractions(qrCodeStorageService);
+    }
+
+    @Test
+    void deactivatedCodesFail() {
+        ScanVerificationResponse response = verificationService.verify(request(List.of(ACTIVE, DEACTIVATED),
+                QrCodeStyle.defaultStyle()));
+
+        assertThat(response.getPassed()).isEqualTo(1);
+        assertThat(response.getFailures()).singleElement()
+                .satisfies(failure -> assertThat(failure.getQrId()).isEqualTo(DEACTIVATED));
+    }
+
+    @Test
+    void stylesTheRendererDoesNotApplyAreRejected() {
+        assertThatThrownBy(() -> verificationService.resolveStyles(request(List.of(ACTIVE),
+                QrCodeStyle.builder().foreground("#FF0000").build())))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> verificationService.resolveStyles(request(List.of(ACTIVE),
+                QrCodeStyle.builder().errorCorrection("X").build())))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ScanVerificationRequest request(List<String> qrIds, QrCodeStyle... styles) {
+        return ScanVerificationRequest.builder().qrIds(qrIds).styles(List.of(styles)).build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.qr.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightExecutorTest {
+
+    private static final int CALLERS = 16;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneExecution() throws Exception {
+        SingleFlightExecutor executor = new SingleFlightExecutor(Duration.ofSeconds(10), meterRegistry);
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently(() -> executor.execute("image:A", () -> {
+            renders.incrementAndGet();
+            await(release);
+            return "rendered";
+        }));
+        awaitWaiters(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("rendered");
+        }
+        assertThat(renders).hasValue(1);
+
+        // Nothing is cached: once finished, the next call does the work again
+        assertThat(executor.execute("image:A", () -> "again")).isEqualTo("again");
+    }
+
+    @Test
+    void waitersGiveUpAfterTheTimeout() throws Exception {
+        SingleFlightExecutor executor = new SingleFlightExecutor(Duration.ofMillis(50), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = pool.submit(() -> executor.execute("image:B", () -> {
+            started.countDown();
+            await(release);
+            return "rendered";
+        }));
+        await(started);
+
+        assertThatThrownBy(() -> executor.execute("image:B", () -> "not run"))
+                .hasMessageContaining("Timed out waiting for in-flight work: image:B");
+        assertThat(meterRegistry.counter("qr.render.coalesce.timeouts").count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("rendered");
+    }
+
+    @Test
+    void failuresReachEveryCaller() throws Exception {
+        SingleFlightExecutor executor = new SingleFlightExecutor(Duration.ofSeconds(10), meterRegistry);
+        IllegalStateException failure = new IllegalStateException("render failed");
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = callConcurrently(() -> executor.execute("image:C", () -> {
+            await(release);
+            throw failure;
+        }));
+        awaitWaiters(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().isSameAs(failure);
+        }
+    }
+
+    private List<Future<String>> callConcurrently(Supplier<String> call) {
+        List<Future<String>> results = new ArrayList<>(CALLERS);
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(pool.submit(call::get));
+        }
+        return results;
+    }
+
+    // Every caller but the one doing the work counts as coalesced before it starts waiting
+    private void awaitWaiters(int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("qr.render.coalesced").count() < waiters) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Test latch was never released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+#!/usr/bin/env python3
+"""Compares a JMH JSON result file against a baseline and flags regressions.
+
+A benchmark regresses when its primary score moves in the bad direction (slower for time modes,
+lower for throughput) by more than the threshold, or when its normalized allocation rate
+(gc.alloc.rate.norm, bytes per operation) grows by more than the threshold.
+
+Exits with status 1 if any regression is found, so it can gate a CI job.
+"""
+
+import argparse
+import json
+import sys
+
+
+def load(path):
+    with open(path) as f:
+        results = json.load(f)
+    return {key(r): r for r in results}
+
+
+def key(result):
+    params = result.get("params") or {}
+    suffix = ",".join(f"{k}={v}" for k, v in sorted(params.items()))
+    return f"{result['benchmark']}({suffix})" if suffix else result["benchmark"]
+
+
+def change(old, new):
+    if old == 0:
+        return 0.0 if new == 0 else float("inf")
+    return (new - old) / old * 100.0
+
+
+def compare(baseline, current, threshold):
+    regressions = []
+    rows = []
+
+    for name, result in sorted(current.items()):
+        base = baseline.get(name)
+        if base is None:
+            rows.append((name, "new", "", ""))
+            continue
+
+        old = base["primaryMetric"]["score"]
+        new = result["primaryMetric"]["score"]
+        unit = result["primaryMetric"]["scoreUnit"]
+        delta = change(old, new)
+        # Throughput modes report ops per time unit, where higher is better
+        worse = -delta if result["mode"] == "thrpt" else delta
+        flag = ""
+        if worse > threshold:
+            flag = "REGRESSION"
+            regressions.append(f"{name}: score {old:.3f} -> {new:.3f} {unit} ({delta:+.1f}%)")
+
+        alloc_old = base.get("secondaryMetrics", {}).get("gc.alloc.rate.norm", {}).get("score")
+        alloc_new = result.get("secondaryMetrics", {}).get("gc.alloc.rate.norm", {}).get("score")
+        alloc = ""
+        if alloc_old is not None and alloc_new is not None:
+            alloc_delta = change(alloc_old, alloc_new)
+            alloc = f"{alloc_new:.0f} B/op ({alloc_delta:+.1f}%)"
+            # Ignore noise on near-zero allocations
+            if alloc_delta > threshold and alloc_new - alloc_old > 64:
+                flag = "REGRESSION"
+                regressions.append(f"{name}: allocation {alloc_old:.0f} -> {alloc_new:.0f} B/op ({alloc_delta:+.1f}%)")
+
+        rows.append((name, f"{new:.3f} {unit} ({delta:+.1f}%)", alloc, flag))
+
+    for name in sorted(set(baseline) - set(current)):
+        rows.append((name, "missing", "", ""))
+
+    width = max((len(r[0]) for r in rows), default=0)
+    for name, score, alloc, flag in rows:
+        print(f"{name:<{width}}  {score:<32} {alloc:<28} {flag}")
+
+    return regressions
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("baseline", help="baseline JMH JSON result file")
+    parser.add_argument("current", help="current JMH JSON result file")
+    parser.add_argument("--threshold", type=float, default=10.0,
+                        help="regression threshold in percent (default: 10)")
+    args = parser.parse_args()
+
+    regressions = compare(load(args.baseline), load(args.current), args.threshold)
+
+    if regressions:
+        print(f"\n❌ {len(regressions)} regression(s) above {args.threshold:g}%:")
+        for regression in regressions:
+            print(f"  - {regression}")
+        sys.exit(1)
+
+    print(f"\n✅ No regressions above {args.threshold:g}%")
+
+
+if __name__ == "__main__":
+    main()
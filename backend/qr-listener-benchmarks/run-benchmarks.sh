@@ -0,0 +1,46 @@
+#!/bin/bash
+
+# Runs the JMH benchmarks with the GC/allocation profiler and writes JSON results.
+# Optionally compares the run against a stored baseline and fails on regressions.
+#
+# Usage: ./run-benchmarks.sh [--baseline FILE] [--threshold PERCENT] [--save-baseline] [JMH args...]
+#   ./run-benchmarks.sh                                  # all benchmarks
+#   ./run-benchmarks.sh QrCodeRenderBenchmark -p size=256
+#   ./run-benchmarks.sh --save-baseline                  # record baseline/jmh-baseline.json
+#   ./run-benchmarks.sh --baseline baseline/jmh-baseline.json --threshold 10
+
+set -e
+
+cd "$(dirname "$0")"
+
+BASELINE=""
+THRESHOLD=10
+SAVE_BASELINE=false
+JMH_ARGS=()
+
+while [ $# -gt 0 ]; do
+    case "$1" in
+        --baseline) BASELINE="$2"; shift 2 ;;
+        --threshold) THRESHOLD="$2"; shift 2 ;;
+        --save-baseline) SAVE_BASELINE=true; shift ;;
+        *) JMH_ARGS+=("$1"); shift ;;
+    esac
+done
+
+RESULT="target/jmh-result.json"
+
+echo "🔨 Building benchmarks..."
+mvn -B -q clean package -DskipTests
+
+echo "⏱️  Running benchmarks..."
+java -jar target/benchmarks.jar -prof gc -rf json -rff "$RESULT" "${JMH_ARGS[@]}"
+
+if [ "$SAVE_BASELINE" = true ]; then
+    mkdir -p baseline
+    cp "$RESULT" baseline/jmh-baseline.json
+    echo "✅ Baseline saved to baseline/jmh-baseline.json"
+fi
+
+if [ -n "$BASELINE" ]; then
+    python3 compare-baseline.py "$BASELINE" "$RESULT" --threshold "$THRESHOLD"
+fi
@@ -0,0 +1,96 @@
+-- Query plans for the combined QR code filters on 1M synthetic rows, without and with the partial
+-- composite indexes from migration V2__hot_path_indexes. The statements mirror the SQL Hibernate
+-- generates for QrCodeRepositoryCustomImpl. Runs in its own schema and drops it at the end.
+--
+-- Usage: psql -h localhost -U qr_user -d qr_listener -f sql/filter-explain.sql
+
+\timing on
+
+DROP SCHEMA IF EXISTS filter_bench CASCADE;
+CREATE SCHEMA filter_bench;
+SET search_path = filter_bench, public;
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm SCHEMA public;
+
+CREATE TABLE qr_codes (
+    id             BIGSERIAL PRIMARY KEY,
+    qr_id          VARCHAR(100) NOT NULL UNIQUE,
+    target_url     VARCHAR(500) NOT NULL,
+    application_id BIGINT,
+    description    TEXT,
+    created_by     VARCHAR(100),
+    is_active      BOOLEAN      NOT NULL,
+    created_at     TIMESTAMP    NOT NULL,
+    updated_at     TIMESTAMP
+);
+
+-- 500 creators, 50 applications (a third of the codes have none), 5% soft-deleted
+INSERT INTO qr_codes (qr_id, target_url, application_id, description, created_by, is_active, created_at, updated_at)
+SELECT 'AB-' || lpad(i::text, 8, '0'),
+       'https://example.com/p/' || i,
+       CASE WHEN i % 3 = 0 THEN NULL ELSE 1 + i % 50 END,
+       (ARRAY['menu', 'summer', 'spring', 'cafe', 'poster'])[1 + i % 5] || ' ' || i,
+       'user' || (i % 500),
+       i % 20 <> 0,
+       TIMESTAMP '2024-01-01' + i * INTERVAL '30 seconds',
+       TIMESTAMP '2024-01-01' + i * INTERVAL '30 seconds'
+FROM generate_series(1, 1000000) AS i;
+
+CREATE INDEX idx_qr_codes_qr_id_trgm ON qr_codes USING gin (lower(qr_id) gin_trgm_ops);
+CREATE INDEX idx_qr_codes_description_trgm ON qr_codes USING gin (lower(description) gin_trgm_ops);
+ANALYZE qr_codes;
+
+-- Before: createdBy, newest first
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, qr_id, target_url, description, created_by, created_at, updated_at, is_active FROM qr_codes
+WHERE is_active AND created_by = 'user42'
+ORDER BY created_at DESC, id DESC OFFSET 0 ROWS FETCH FIRST 20 ROWS ONLY;
+
+-- Before: applicationId with a one-week range
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, qr_id, target_url, description, created_by, created_at, updated_at, is_active FROM qr_codes
+WHERE is_active AND application_id = 7
+  AND created_at >= TIMESTAMP '2024-03-01' AND created_at < TIMESTAMP '2024-03-08'
+ORDER BY created_at DESC, id DESC OFFSET 0 ROWS FETCH FIRST 20 ROWS ONLY;
+
+CREATE INDEX idx_qr_codes_active_created_at_id ON qr_codes (created_at DESC, id DESC) WHERE is_active = true;
+CREATE INDEX idx_qr_codes_active_created_by ON qr_codes (created_by, created_at DESC, id DESC) WHERE is_active = true;
+CREATE INDEX idx_qr_codes_active_application ON qr_codes (application_id, created_at DESC, id DESC) WHERE is_active = true;
+ANALYZE qr_codes;
+
+-- After: createdBy, newest first
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, qr_id, target_url, description, created_by, created_at, updated_at, is_active FROM qr_codes
+WHERE is_active AND created_by = 'user42'
+ORDER BY created_at DESC, id DESC OFFSET 0 ROWS FETCH FIRST 20 ROWS ONLY;
+
+-- After: createdBy with a one-week range
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, qr_id, target_url, description, created_by, created_at, updated_at, is_active FROM qr_codes
+WHERE is_active AND created_by = 'user42'
+  AND created_at >= TIMESTAMP '2024-03-01' AND created_at < TIMESTAMP '2024-03-08'
+ORDER BY created_at DESC, id DESC OFFSET 0 ROWS FETCH FIRST 20 ROWS ONLY;
+
+-- After: applicationId with a one-week range
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, qr_id, target_url, description, created_by, created_at, updated_at, is_active FROM qr_codes
+WHERE is_active AND application_id = 7
+  AND created_at >= TIMESTAMP '2024-03-01' AND created_at < TIMESTAMP '2024-03-08'
+ORDER BY created_at DESC, id DESC OFFSET 0 ROWS FETCH FIRST 20 ROWS ONLY;
+
+-- After: date range only
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, qr_id, target_url, description, created_by, created_at, updated_at, is_active FROM qr_codes
+WHERE is_active AND created_at >= TIMESTAMP '2024-03-01' AND created_at < TIMESTAMP '2024-03-08'
+ORDER BY created_at DESC, id DESC OFFSET 0 ROWS FETCH FIRST 20 ROWS ONLY;
+
+-- After: search term with createdBy, ranked by similarity
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, qr_id, target_url, description, created_by, created_at, updated_at, is_active FROM qr_codes
+WHERE is_active AND (lower(qr_id) LIKE '%cafe 12%' ESCAPE '\' OR lower(description) LIKE '%cafe 12%' ESCAPE '\')
+  AND created_by = 'user3'
+ORDER BY greatest(word_similarity('cafe 12', lower(qr_id)),
+                  word_similarity('cafe 12', coalesce(lower(description), ''))) DESC,
+         created_at DESC, id DESC OFFSET 0 ROWS FETCH FIRST 20 ROWS ONLY;
+
+DROP SCHEMA filter_bench CASCADE;
@@ -0,0 +1,64 @@
+-- Query plans for QR code search on 1M synthetic rows, without and with the pg_trgm indexes
+-- created by QrCodeSearchService. Runs in its own schema and drops it at the end.
+--
+-- Usage: psql -h localhost -U qr_user -d qr_listener -f sql/search-explain.sql
+
+\timing on
+
+DROP SCHEMA IF EXISTS search_bench CASCADE;
+CREATE SCHEMA search_bench;
+SET search_path = search_bench, public;
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm SCHEMA public;
+
+CREATE TABLE qr_codes (
+    id          BIGSERIAL PRIMARY KEY,
+    qr_id       VARCHAR(50)  NOT NULL UNIQUE,
+    description VARCHAR(1000),
+    is_active   BOOLEAN      NOT NULL DEFAULT TRUE,
+    created_at  TIMESTAMP    NOT NULL
+);
+
+INSERT INTO qr_codes (qr_id, description, is_active, created_at)
+SELECT 'AB-' || upper(substr(md5(i::text), 1, 4)) || lpad(i::text, 7, '0'),
+       (ARRAY['menu', 'summer', 'spring', 'cafe', 'latte', 'offer', 'poster', 'table', 'flyer', 'event'])[1 + i % 10]
+           || ' ' || (ARRAY['concert', 'ticket', 'museum', 'guide', 'parking', 'station', 'festival'])[1 + i % 7]
+           || ' ' || i,
+       i % 20 <> 0,
+       TIMESTAMP '2024-01-01' + i * INTERVAL '1 second'
+FROM generate_series(1, 1000000) AS i;
+
+CREATE INDEX idx_qr_codes_created_at ON qr_codes (created_at);
+ANALYZE qr_codes;
+
+-- Before: the query QrCodeRepository.searchActiveQrCodes runs, a sequential scan
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM qr_codes q
+WHERE q.is_active = true
+  AND (lower(q.qr_id) LIKE '%3f2a%' OR lower(q.description) LIKE '%3f2a%')
+ORDER BY q.created_at DESC
+LIMIT 20;
+
+CREATE INDEX idx_qr_codes_qr_id_trgm ON qr_codes USING gin (lower(qr_id) gin_trgm_ops);
+CREATE INDEX idx_qr_codes_description_trgm ON qr_codes USING gin (lower(description) gin_trgm_ops);
+ANALYZE qr_codes;
+
+-- After: the same query, now a bitmap OR of the two trigram indexes
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM qr_codes q
+WHERE q.is_active = true
+  AND (lower(q.qr_id) LIKE '%3f2a%' OR lower(q.description) LIKE '%3f2a%')
+ORDER BY q.created_at DESC
+LIMIT 20;
+
+-- After: relevance-ranked search (QrCodeRepository.searchActiveQrCodesRanked)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM qr_codes q
+WHERE q.is_active = true
+  AND (lower(q.qr_id) LIKE '%museum 12%' OR lower(q.description) LIKE '%museum 12%')
+ORDER BY greatest(word_similarity('museum 12', lower(q.qr_id)),
+                  word_similarity('museum 12', coalesce(lower(q.description), ''))) DESC,
+         q.created_at DESC, q.id DESC
+LIMIT 20;
+
+DROP SCHEMA search_bench CASCADE;
@@ -0,0 +1,96 @@
+package com.qr.redirect;
+
+import com.qr.benchmark.Stubs;
+import com.qr.entity.QrCode;
+import com.qr.redirect.service.QrLoggingService;
+import com.qr.redirect.service.QrRedirectService;
+import com.qr.repository.QrCodeRepository;
+import com.qr.repository.QrRedirectLogRepository;
+import com.qr.service.DashboardStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The redirect path with the database replaced by in-memory stubs: client IP extraction and the
+ * lookup, logging and response building around the repository calls.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QrRedirectBenchmark {
+
+    private static final String QR_ID = "AB-K7M2Q9XZ";
+
+    QrRedirectController directController;
+    QrRedirectController proxiedController;
+    QrRedirectService redirectService;
+
+    @Setup
+    public void setUp() {
+        QrCode qrCode = QrCode.builder()
+                .id(1L)
+                .qrId(QR_ID)
+                .targetUrl("https://example.com/publications/42")
+                .build();
+        QrCodeRepository qrCodeRepository = Stubs.of(QrCodeRepository.class, Map.of(
+                "findByQrIdAndIsActiveTrue", args -> QR_ID.equals(args[0]) ? Optional.of(qrCode) : Optional.empty()));
+        QrRedirectLogRepository logRepository = Stubs.of(QrRedirectLogRepository.class, Map.of(
+                "save", args -> args[0]));
+
+        QrLoggingService loggingService = new QrLoggingService(logRepository, new DashboardStatistics(null, null, null));
+        redirectService = new QrRedirectService(qrCodeRepository);
+
+        MockHttpServletRequest direct = new MockHttpServletRequest("GET", "/api/qr/redirect");
+        direct.setRemoteAddr("203.0.113.7");
+        direct.addHeader("User-Agent", "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X)");
+        directController = new QrRedirectController(redirectService, loggingService, direct);
+
+        MockHttpServletRequest proxied = new MockHttpServletRequest("GET", "/api/qr/redirect");
+        proxied.setRemoteAddr("10.0.0.2");
+        proxied.addHeader("X-Forwarded-For", "203.0.113.7, 198.51.100.1, 10.0.0.1");
+        proxied.addHeader("User-Agent", "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X)");
+        proxiedController = new QrRedirectController(redirectService, loggingService, proxied);
+    }
+
+    @Benchmark
+    public String clientIpDirect() {
+        return directController.getClientIp();
+    }
+
+    @Benchmark
+    public String clientIpForwarded() {
+        return proxiedController.getClientIp();
+    }
+
+    @Benchmark
+    public String lookup() {
+        return redirectService.getRedirectUrl(QR_ID);
+    }
+
+    @Benchmark
+    public ResponseEntity<Void> redirect() {
+        return proxiedController.redirectQr(QR_ID);
+    }
+
+    @Benchmark
+    public ResponseEntity<Void> redirectNotFound() {
+        return proxiedController.redirectQr("AB-00000000");
+    }
+}
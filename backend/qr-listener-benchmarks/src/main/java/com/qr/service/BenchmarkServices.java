@@ -0,0 +1,78 @@
+package com.qr.service;
+
+import com.qr.benchmark.Stubs;
+import com.qr.entity.ApplicationLogo;
+import com.qr.repository.ApplicationLogoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Builds the services under measurement by hand, wiring in only the collaborators the measured
+ * methods actually touch.
+ */
+final class BenchmarkServices {
+
+    static final String BASE_URL = "http://graceshoppee.tech:8080";
+    static final long LOGO_APPLICATION_ID = 7L;
+
+    private BenchmarkServices() {
+    }
+
+    static QrCodeGenerationService generationService(QrLogoService qrLogoService) {
+        QrCodeGenerationService service = new QrCodeGenerationService(
+                null, null, null, null, null, new QrCodeStreamingRenderer(), null, qrLogoService, null);
+        ReflectionTestUtils.setField(service, "redirectBaseUrl", BASE_URL);
+        return service;
+    }
+
+    /**
+     * A logo service backed by a single registered logo, with empty caches.
+     */
+    static QrLogoService logoService(byte[] logoImage) {
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+        ApplicationLogo logo = ApplicationLogo.builder()
+                .applicationId(LOGO_APPLICATION_ID)
+                .imageData(logoImage)
+                .contentType("image/png")
+                .updatedAt(updatedAt)
+                .build();
+        ApplicationLogoRepository repository = Stubs.of(ApplicationLogoRepository.class, Map.of(
+                "findById", args -> Optional.of(logo),
+                "findUpdatedAtByApplicationId", args -> Optional.of(updatedAt)));
+        return new QrLogoService(null, repository, event -> { }, DataSize.ofMegabytes(16), 32, 2048,
+                Duration.ofSeconds(60), new SimpleMeterRegistry());
+    }
+
+    /**
+     * A colourful 800x800 PNG, larger than any logo box so every render has to scale it down.
+     */
+    static byte[] sampleLogo() {
+        BufferedImage image = new BufferedImage(800, 800, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, 800, 800, Color.MAGENTA));
+        graphics.fillOval(0, 0, 800, 800);
+        graphics.dispose();
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "PNG", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.qr.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Photo variant rendering: all widths from one decode, against decoding the source again for
+ * each width. The sizes of the source and of each variant are printed once per trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class PhotoVariantBenchmark {
+
+    private static final List<Integer> WIDTHS = List.of(160, 480, 1080);
+
+    @Param({"2000x1500", "4000x3000"})
+    String source;
+
+    byte[] photo;
+    PhotoVariantRenderer renderer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] dimensions = source.split("x");
+        photo = samplePhoto(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+        renderer = new PhotoVariantRenderer(0.85f, 24_000_000L);
+
+        StringBuilder sizes = new StringBuilder("source " + source + ": " + photo.length + " bytes");
+        for (PhotoVariantRenderer.Variant variant : render().getVariants()) {
+            sizes.append(", ").append(variant.getWidth()).append("w: ").append(variant.getContent().length).append(" bytes");
+        }
+        System.out.println(sizes);
+    }
+
+    @Benchmark
+    public PhotoVariantRenderer.Rendered render() throws IOException {
+        return renderer.render(new MemoryCacheImageInputStream(new ByteArrayInputStream(photo)), WIDTHS);
+    }
+
+    @Benchmark
+    public int decodePerWidth() throws IOException {
+        int bytes = 0;
+        for (Integer width : WIDTHS) {
+            bytes += renderer.render(new MemoryCacheImageInputStream(new ByteArrayInputStream(photo)), List.of(width))
+                    .getVariants().get(0).getContent().length;
+        }
+        return bytes;
+    }
+
+    /**
+     * A JPEG with smooth gradients and sensor-like noise, so it compresses like a photo rather
+     * than like a flat test image.
+     */
+    static byte[] samplePhoto(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, new Color(40, 90, 160), width, height, new Color(230, 180, 90)));
+        graphics.fillRect(0, 0, width, height);
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            graphics.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), 90));
+            int size = width / 8 + random.nextInt(width / 4);
+            graphics.fillOval(random.nextInt(width) - size / 2, random.nextInt(height) - size / 2, size, size);
+        }
+        graphics.dispose();
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(17) - 8;
+                int r = Math.min(255, Math.max(0, ((row[x] >> 16) & 0xFF) + noise));
+                int g = Math.min(255, Math.max(0, ((row[x] >> 8) & 0xFF) + noise));
+                int b = Math.min(255, Math.max(0, (row[x] & 0xFF) + noise));
+                row[x] = (r << 16) | (g << 8) | b;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,60 @@
+package com.qr.service;
+
+import com.qr.dto.QrCodeListResponse;
+import com.qr.dto.QrCodeSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summary to response mapping for a page of QR codes, as done by the admin list and search endpoints.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QrCodeMappingBenchmark {
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    QrCodeManagementService managementService;
+    List<QrCodeSummary> page;
+
+    @Setup
+    public void setUp() {
+        managementService = new QrCodeManagementService(null, null, null, null);
+
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(new QrCodeSummary((long) i, String.format("AB-K7M2%04d", i),
+                    "https://example.com/publications/" + i, "Publication " + i, "admin",
+                    now.minusMinutes(i), now, true));
+        }
+    }
+
+    @Benchmark
+    public List<QrCodeListResponse> mapPage() {
+        List<QrCodeListResponse> responses = new ArrayList<>(page.size());
+        for (QrCodeSummary qrCode : page) {
+            responses.add(managementService.mapToQrCodeListResponse(qrCode));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,149 @@
+package com.qr.service;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.qr.dto.QrCodeStyle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The QR image pipeline, stage by stage (URL, encode, rasterize, PNG write) and end to end,
+ * including the streaming renderer and branded renders with a warm and a cold logo cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class QrCodeRenderBenchmark {
+
+    private static final String QR_ID = "AB-K7M2Q9XZ";
+    // What the generation service encodes the default style with
+    private static final Map<EncodeHintType, Object> HINTS = Map.of(
+            EncodeHintType.ERROR_CORRECTION, ErrorCorrectionLevel.M,
+            EncodeHintType.MARGIN, 4);
+
+    @Param({"256", "1024"})
+    int size;
+
+    byte[] logoImage;
+    QrCodeGenerationService generationService;
+    QrCodeStreamingRenderer streamingRenderer;
+    QrCodeStyle plainStyle;
+    QrCodeStyle brandedStyle;
+    String redirectUrl;
+    BitMatrix bitMatrix;
+    BufferedImage image;
+
+    @Setup(Level.Trial)
+    public void setUp() throws WriterException {
+        logoImage = BenchmarkServices.sampleLogo();
+        QrLogoService logoService = BenchmarkServices.logoService(logoImage);
+        generationService = BenchmarkServices.generationService(logoService);
+        streamingRenderer = new QrCodeStreamingRenderer();
+
+        plainStyle = QrCodeStyle.builder().size(size).build();
+        brandedStyle = brandedStyle(logoService, size);
+
+        redirectUrl = generationService.buildRedirectUrl(QR_ID);
+        bitMatrix = new QRCodeWriter().encode(redirectUrl, BarcodeFormat.QR_CODE, size, size, HINTS);
+        image = MatrixToImageWriter.toBufferedImage(bitMatrix);
+
+        // Fill the logo caches for the warm benchmark
+        generationService.createQrCodeImage(QR_ID, brandedStyle);
+    }
+
+    @Benchmark
+    public String buildRedirectUrl() {
+        return generationService.buildRedirectUrl(QR_ID);
+    }
+
+    @Benchmark
+    public BitMatrix encode() throws WriterException {
+        return new QRCodeWriter().encode(redirectUrl, BarcodeFormat.QR_CODE, size, size, HINTS);
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        return MatrixToImageWriter.toBufferedImage(bitMatrix);
+    }
+
+    @Benchmark
+    public byte[] writePng() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "PNG", out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] createQrCodeImage() {
+        return generationService.createQrCodeImage(QR_ID, plainStyle);
+    }
+
+    @Benchmark
+    public byte[] streamPng() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamingRenderer.writePng(redirectUrl, size, ErrorCorrectionLevel.M, 4, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] brandedWarm() {
+        return generationService.createQrCodeImage(QR_ID, brandedStyle);
+    }
+
+    @Benchmark
+    public byte[] brandedCold(ColdLogo cold) {
+        return cold.generationService.createQrCodeImage(QR_ID, cold.brandedStyle);
+    }
+
+    /**
+     * Fresh logo caches for every invocation, so each branded render decodes and scales the logo.
+     */
+    @State(Scope.Thread)
+    public static class ColdLogo {
+
+        QrCodeGenerationService generationService;
+        QrCodeStyle brandedStyle;
+
+        @Setup(Level.Invocation)
+        public void setUp(QrCodeRenderBenchmark benchmark) {
+            QrLogoService logoService = BenchmarkServices.logoService(benchmark.logoImage);
+            generationService = BenchmarkServices.generationService(logoService);
+            brandedStyle = brandedStyle(logoService, benchmark.size);
+        }
+    }
+
+    // Mirrors what the generation service resolves a branded request to
+    private static QrCodeStyle brandedStyle(QrLogoService logoService, int size) {
+        return QrCodeStyle.builder()
+                .size(size)
+                .errorCorrection("H")
+                .logo(logoService.resolveLogoKey(String.valueOf(BenchmarkServices.LOGO_APPLICATION_ID)))
+                .logoSize(20)
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.qr.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Substring search over the in-memory trigram index against the linear scan that LIKE '%term%'
+ * without an index amounts to, on synthetic QR codes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class QrCodeSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "menu", "summer", "spring", "cafe", "latte", "offer", "poster", "table", "flyer", "event",
+            "concert", "ticket", "museum", "guide", "parking", "station", "festival", "market", "shop", "hotel"
+    };
+    private static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+
+    @Param({"1000000"})
+    int documents;
+
+    // A rare QR ID fragment, a common word and a word combination
+    @Param({"k7m2", "menu", "cafe latte"})
+    String term;
+
+    QrCodeNgramIndex index;
+    String[] qrIds;
+    String[] descriptions;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new QrCodeNgramIndex();
+        qrIds = new String[documents];
+        descriptions = new String[documents];
+        long createdAt = 1_700_000_000_000L;
+        for (int i = 0; i < documents; i++) {
+            StringBuilder qrId = new StringBuilder("AB-");
+            for (int c = 0; c < 8; c++) {
+                qrId.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            qrIds[i] = qrId.toString().toLowerCase(Locale.ROOT);
+            descriptions[i] = description;
+            index.upsert(i + 1, qrId.toString(), description, createdAt + i);
+        }
+    }
+
+    @Benchmark
+    public QrCodeNgramIndex.Result indexedFirstPage() {
+        return index.search(term, QrCodeNgramIndex.Order.CREATED_AT, false, 0, 20);
+    }
+
+    @Benchmark
+    public QrCodeNgramIndex.Result indexedRelevance() {
+        return index.search(term, QrCodeNgramIndex.Order.RELEVANCE, false, 0, 20);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int matches = 0;
+        for (int i = 0; i < documents; i++) {
+            if (qrIds[i].contains(term) || descriptions[i].contains(term)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
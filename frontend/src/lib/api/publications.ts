@@ -1,5 +1,5 @@
 import axios from 'axios'
-import { Publication, PublicationFormData, PublicationStats } from '@/types/publication'
+import { Photo, Publication, PublicationFormData, PublicationStats } from '@/types/publication'
 
 // Use relative URLs when accessed through Nginx (same origin)
 // This avoids CORS issues by using the same port (8080) for both frontend and API
@@ -118,23 +118,40 @@ function mapApiResponseToPublication(response: PublicationApiResponse): Publicat
   }
 }
 
+// Photos picked in the form (a File, no ID yet) are uploaded as multipart files rather than
+// inlined in the publication JSON as base64; the publication then refers to them by ID
+async function uploadPhotos(files: File[]): Promise<Array<{ id: number }>> {
+  const formData = new FormData()
+  files.forEach((file) => formData.append('files', file))
+  const response = await api.post<Array<{ id: number }>>('/api/publisher/photos', formData, {
+    headers: { 'Content-Type': 'multipart/form-data' },
+  })
+  return response.data
+}
+
+async function toPhotosPayload(photos: Photo[]) {
+  const pending = photos.filter((photo) => photo.file && !photo.id)
+  const uploaded = pending.length > 0 ? await uploadPhotos(pending.map((photo) => photo.file as File)) : []
+  const uploadedIds = new Map(pending.map((photo, index) => [photo, uploaded[index].id]))
+
+  return photos.map((photo, index) => {
+    const photoId = uploadedIds.get(photo) ?? (photo.id ? Number(photo.id) : undefined)
+    return {
+      photoId,
+      // Existing photos keep their API URL; uploads are referenced by photoId only
+      fileUrl: uploadedIds.has(photo) ? undefined : photo.url || '',
+      thumbnailUrl: uploadedIds.has(photo) ? undefined : photo.thumbnailUrl || photo.url || '',
+      fileName: photo.fileName || photo.file?.name || `photo-${index + 1}.jpg`,
+      isCover: photo.isCover || index === 0,
+      displayOrder: photo.order !== undefined ? photo.order : index,
+    }
+  })
+}
+
 export const publicationApi = {
   // Create publication
   async create(data: PublicationFormData, userId: string = 'admin'): Promise<Publication> {
-    // TODO: Handle photo uploads to storage service (S3/Cloudinary)
-    // For now, we use base64 data URLs from FileReader
-    // Filter out File objects and only send serializable data
-    const photosPayload = (data.photos || []).map((photo, index) => {
-      // Extract just the URL (which is a base64 data URL from FileReader)
-      // Remove the File object as it cannot be serialized
-      return {
-        fileUrl: photo.url || '', // This is the base64 data URL
-        thumbnailUrl: photo.thumbnailUrl || photo.url || '',
-        fileName: photo.fileName || `photo-${index + 1}.jpg`,
-        isCover: photo.isCover || index === 0,
-        displayOrder: photo.order !== undefined ? photo.order : index,
-      }
-    })
+    const photosPayload = await toPhotosPayload(data.photos || [])
 
     const requestPayload = {
       contentType: data.contentType,
@@ -198,16 +215,7 @@ export const publicationApi = {
 
   // Update publication
   async update(id: string, data: Partial<PublicationFormData>): Promise<Publication> {
-    // Convert photos similar to create method
-    const photosPayload = (data.photos || []).map((photo, index) => {
-      return {
-        fileUrl: photo.url || '',
-        thumbnailUrl: photo.thumbnailUrl || photo.url || '',
-        fileName: photo.fileName || `photo-${index + 1}.jpg`,
-        isCover: photo.isCover || index === 0,
-        displayOrder: photo.order !== undefined ? photo.order : index,
-      }
-    })
+    const photosPayload = await toPhotosPayload(data.photos || [])
 
     const requestPayload = {
       contentType: data.contentType,